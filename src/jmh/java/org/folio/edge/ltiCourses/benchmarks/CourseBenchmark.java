@@ -0,0 +1,70 @@
+package org.folio.edge.ltiCourses.benchmarks;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+import org.folio.edge.ltiCourses.model.Course;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * The per-launch cost of turning a course and its reserves into what the resource link page renders.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CourseBenchmark {
+  // October 2, 2020, in the middle of the fixture course's term.
+  private static final Clock clock = Clock.fixed(Instant.ofEpochSecond(1601658215), ZoneId.of("UTC"));
+
+  @Param({ "10", "500", "5000" })
+  public int reserveCount;
+
+  private JsonObject courseJson;
+  private String reservesString;
+  private Course course;
+
+  @Setup
+  public void setUp() {
+    courseJson = Fixtures.course();
+    reservesString = Fixtures.reserves(reserveCount);
+
+    course = new Course(courseJson);
+    course.setSearchUrl("https://catalog.example.edu/search?q=[BARCODE]");
+    course.setReserves(reservesString);
+  }
+
+  @Benchmark
+  public Course newCourse() {
+    return new Course(courseJson);
+  }
+
+  @Benchmark
+  public Course setReserves() {
+    Course fresh = new Course(courseJson);
+    fresh.setReserves(reservesString);
+    return fresh;
+  }
+
+  @Benchmark
+  public JsonArray getCurrentReserves() {
+    return course.getCurrentReserves(clock);
+  }
+}
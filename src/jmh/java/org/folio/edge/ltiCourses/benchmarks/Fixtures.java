@@ -0,0 +1,155 @@
+package org.folio.edge.ltiCourses.benchmarks;
+
+import static org.folio.edge.ltiCourses.Constants.JWT_KID;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Builds payloads shaped like what mod-courses and mod-configuration actually return, so that the benchmarks
+ * exercise the same JSON paths as a real launch.
+ */
+public class Fixtures {
+  private Fixtures() {}
+
+  public static JsonObject course() {
+    return new JsonObject()
+      .put("id", "b9805a3c-d024-4883-9f4d-5059a7da218f")
+      .put("courseListingId", "4c2a8ce9-f7d4-4f5e-a6d7-88bc7eb193fc")
+      .put("name", "Introduction to Course Reserves")
+      .put("courseNumber", "LIB-101")
+      .put("courseListingObject", new JsonObject()
+        .put("id", "4c2a8ce9-f7d4-4f5e-a6d7-88bc7eb193fc")
+        .put("registrarId", "LIB-101-2020-FALL")
+        .put("externalId", "lti-context-1234")
+        .put("termObject", new JsonObject()
+          .put("id", "3ff4ee79-8f57-4a96-a4a4-d4b2fbd0e9d4")
+          .put("name", "Fall 2020")
+          .put("startDate", "2020-09-01T04:00:00.000Z")
+          .put("endDate", "2020-12-31T04:00:00.000Z")
+        )
+      );
+  }
+
+  public static JsonObject reserve(int i) {
+    JsonObject item = new JsonObject()
+      .put("barcode", "3900000" + i)
+      .put("instanceHrid", "in0000" + i)
+      .put("title", "Reading number " + i + ": an annotated edition")
+      .put("instanceDiscoverySuppress", i % 7 == 0)
+      .put("permanentLocationObject", new JsonObject().put("discoveryDisplayName", "Main Library Stacks"))
+      .put("contributors", new JsonArray()
+        .add(new JsonObject().put("name", "Editor, Some").put("primary", false))
+        .add(new JsonObject().put("name", "Author, Primary").put("primary", true))
+      );
+
+    // Roughly a third of reserves are electronic, and some have a temporary location.
+    if (i % 3 == 0) {
+      item.put("uri", "https://app.box.com/file/" + (100000000 + i));
+    }
+    if (i % 5 == 0) {
+      item.put("temporaryLocationObject", new JsonObject().put("discoveryDisplayName", "Reserve Desk"));
+    }
+
+    JsonObject reserve = new JsonObject()
+      .put("id", "reserve-" + i)
+      .put("courseListingId", "4c2a8ce9-f7d4-4f5e-a6d7-88bc7eb193fc")
+      .put("itemId", "item-" + i)
+      .put("copiedItem", item);
+
+    // Most reserves inherit the term's dates, the rest have their own.
+    if (i % 4 == 0) {
+      reserve
+        .put("startDate", "2020-09-15T04:00:00.000Z")
+        .put("endDate", "2020-10-15T04:00:00.000Z");
+    }
+
+    return reserve;
+  }
+
+  public static String reserves(int count) {
+    JsonArray reserves = new JsonArray();
+    for (int i = 0; i < count; i++) {
+      reserves.add(reserve(i));
+    }
+
+    return new JsonObject()
+      .put("reserves", reserves)
+      .put("totalRecords", count)
+      .encode();
+  }
+
+  public static JsonObject platformConfiguration() {
+    JsonObject platform = new JsonObject()
+      .put("clientId", "folio-lti-courses")
+      .put("cssUrl", "https://lms.example.edu/styles/reserves.css")
+      .put("issuer", "https://lms.example.edu")
+      .put("jwksUrl", "https://lms.example.edu/.well-known/jwks.json")
+      .put("oidcAuthUrl", "https://lms.example.edu/oidc/auth")
+      .put("searchUrl", "https://catalog.example.edu/search?q=[BARCODE]")
+      .put("boxDirectDownload", true);
+
+    return new JsonObject()
+      .put("configs", new JsonArray()
+        .add(new JsonObject()
+          .put("module", "EDGELTICOURSES")
+          .put("configName", "platform")
+          .put("code", "https://lms.example.edu")
+          .put("value", platform.encode())
+        )
+      )
+      .put("totalRecords", 1);
+  }
+
+  public static final String ISSUER = "https://lms.example.edu";
+  public static final String CLIENT_ID = "folio-lti-courses";
+
+  public static KeyPair keyPair(int bits) {
+    try {
+      KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA");
+      kpg.initialize(bits);
+      return kpg.generateKeyPair();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * An id_token like the one a platform posts to the launch endpoint, valid for a day so that it outlives any run.
+   */
+  public static String idToken(KeyPair keyPair) {
+    Map<String, Object> context = new HashMap<>();
+    context.put("id", "lti-context-1234");
+    context.put("label", "LIB-101");
+    context.put("title", "Introduction to Course Reserves");
+    context.put("type", new String[] { "http://purl.imsglobal.org/vocab/lis/v2/course#CourseOffering" });
+
+    return JWT.create()
+      .withIssuer(ISSUER)
+      .withKeyId(JWT_KID)
+      .withAudience(CLIENT_ID)
+      .withSubject("a6d5c443-1f51-4783-ba1a-7686ffe3b54a")
+      .withIssuedAt(Date.from(Instant.now()))
+      .withExpiresAt(Date.from(Instant.now().plusSeconds(86400)))
+      .withClaim("nonce", "abcdefghijklmnopqrst")
+      .withClaim("https://purl.imsglobal.org/spec/lti/claim/message_type", "LtiResourceLinkRequest")
+      .withClaim("https://purl.imsglobal.org/spec/lti/claim/version", "1.3.0")
+      .withClaim("https://purl.imsglobal.org/spec/lti/claim/deployment_id", "1")
+      .withClaim("https://purl.imsglobal.org/spec/lti/claim/target_link_uri", "https://edge.example.edu/lti-courses/launches/apikey")
+      .withClaim("https://purl.imsglobal.org/spec/lti/claim/context", context)
+      .sign(Algorithm.RSA256((RSAPublicKey) keyPair.getPublic(), (RSAPrivateKey) keyPair.getPrivate()));
+  }
+}
@@ -0,0 +1,77 @@
+package org.folio.edge.ltiCourses.benchmarks;
+
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.concurrent.TimeUnit;
+
+import org.folio.edge.ltiCourses.JwksHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.auth0.jwk.InvalidPublicKeyException;
+import com.auth0.jwk.Jwk;
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * The key dependent steps of a launch: verifying the platform's RS256 signature, turning the platform's JWKS into
+ * a public key, and generating our own JWKS. Keys are generated locally and the JWKS is embedded, so nothing here
+ * touches the network.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+  @Param({ "2048", "4096" })
+  public int keySize;
+
+  private RSAPublicKey publicKey;
+  private DecodedJWT jwt;
+  private JsonObject jwk;
+
+  @Setup
+  public void setUp() {
+    KeyPair keyPair = Fixtures.keyPair(keySize);
+    publicKey = (RSAPublicKey) keyPair.getPublic();
+    jwt = JWT.decode(Fixtures.idToken(keyPair));
+    jwk = JwksHandler.buildJwks(publicKey).getJsonArray("keys").getJsonObject(0);
+  }
+
+  /**
+   * Mirrors LtiCoursesHandler.handleLaunch, which builds a verifier for every launch.
+   */
+  @Benchmark
+  public DecodedJWT verify() {
+    return JWT.require(Algorithm.RSA256(publicKey, null))
+      .withIssuer(Fixtures.ISSUER)
+      .withAudience(Fixtures.CLIENT_ID)
+      .build()
+      .verify(jwt);
+  }
+
+  @Benchmark
+  public PublicKey parseJwk() throws InvalidPublicKeyException {
+    return Jwk.fromValues(jwk.getMap()).getPublicKey();
+  }
+
+  @Benchmark
+  public String buildJwks() {
+    return JwksHandler.buildJwks(publicKey).encode();
+  }
+}
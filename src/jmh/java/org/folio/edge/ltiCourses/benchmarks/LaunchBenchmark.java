@@ -0,0 +1,54 @@
+package org.folio.edge.ltiCourses.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.folio.edge.ltiCourses.LtiCoursesHandler;
+import org.folio.edge.ltiCourses.utils.LtiContextClaim;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.interfaces.DecodedJWT;
+
+/**
+ * The key independent steps of an OIDC login and a launch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LaunchBenchmark {
+  private String idToken;
+  private DecodedJWT jwt;
+
+  @Setup
+  public void setUp() {
+    idToken = Fixtures.idToken(Fixtures.keyPair(2048));
+    jwt = JWT.decode(idToken);
+  }
+
+  @Benchmark
+  public DecodedJWT decode() {
+    return JWT.decode(idToken);
+  }
+
+  @Benchmark
+  public LtiContextClaim extractContextClaim() {
+    return jwt.getClaim("https://purl.imsglobal.org/spec/lti/claim/context").as(LtiContextClaim.class);
+  }
+
+  @Benchmark
+  public String generateRandomString() {
+    return LtiCoursesHandler.generateRandomString();
+  }
+}
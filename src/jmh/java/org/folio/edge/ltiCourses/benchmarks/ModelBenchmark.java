@@ -0,0 +1,67 @@
+package org.folio.edge.ltiCourses.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.folio.edge.ltiCourses.model.LtiPlatform;
+import org.folio.edge.ltiCourses.model.Reserve;
+import org.folio.edge.ltiCourses.utils.DateUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * The cost of the individual model objects that are built once per reserve or once per launch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModelBenchmark {
+  private JsonObject reserveJson;
+  private Reserve reserve;
+  private JsonObject platformConfiguration;
+
+  @Setup
+  public void setUp() {
+    // Has its own dates, a temporary location and an electronic link, so every branch is taken.
+    reserveJson = Fixtures.reserve(60);
+    reserve = new Reserve(reserveJson);
+    platformConfiguration = Fixtures.platformConfiguration();
+  }
+
+  @Benchmark
+  public Reserve newReserve() {
+    return new Reserve(reserveJson);
+  }
+
+  @Benchmark
+  public JsonObject reserveAsJsonObject() {
+    return reserve.asJsonObject();
+  }
+
+  @Benchmark
+  public String normalizeTimestamp() {
+    return DateUtils.normalizeDate("2020-09-15T04:00:00.000Z");
+  }
+
+  @Benchmark
+  public String normalizeDate() {
+    return DateUtils.normalizeDate("2020-09-15");
+  }
+
+  @Benchmark
+  public LtiPlatform newLtiPlatform() {
+    return new LtiPlatform(platformConfiguration);
+  }
+}
@@ -0,0 +1,324 @@
+package org.folio.edge.ltiCourses;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Map;
+
+import io.micrometer.core.instrument.Gauge;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import org.folio.edge.ltiCourses.cache.BoxContentCache;
+import org.folio.edge.ltiCourses.cache.BoxFileCache;
+import org.folio.edge.ltiCourses.cache.BoxFolderCache;
+import org.folio.edge.ltiCourses.cache.BoxMetadataCache;
+import org.folio.edge.ltiCourses.cache.LaunchResultCache;
+import org.folio.edge.ltiCourses.cache.OidcStateCache;
+import org.folio.edge.ltiCourses.utils.AdmissionControl;
+import org.folio.edge.ltiCourses.utils.BlockingExecutor;
+import org.folio.edge.ltiCourses.utils.BoxApiClient;
+import org.folio.edge.ltiCourses.utils.BoxApiScheduler;
+import org.folio.edge.ltiCourses.utils.DependencyHealth;
+import org.folio.edge.ltiCourses.utils.FlightRecording;
+import org.folio.edge.ltiCourses.utils.Metrics;
+import org.folio.edge.ltiCourses.utils.Readiness;
+import org.folio.edge.ltiCourses.utils.TenantScheduler;
+
+/**
+ * Operational endpoints for whoever runs the module: /admin/metrics is scraped by Prometheus, /admin/stats shows what
+ * the caches, upstream calls and the Box scheduler are up to, /admin/ready tells the load balancer whether to send this node traffic, /admin/limits shows and
+ * changes the admission limits, and /admin/jfr starts and stops a flight recording.
+ */
+public class AdminHandler {
+  protected final Vertx vertx;
+  protected final String apiToken;
+  protected final BoxApiClient box;
+  protected final AdmissionControl admissionControl;
+  protected final TenantScheduler tenantScheduler;
+  protected final long jfrMaxDuration;
+  protected final long jfrMaxSize;
+
+  private static final Logger logger = LogManager.getLogger(AdminHandler.class);
+
+  /**
+   * @param apiToken
+   *          the bearer token /admin/metrics, /admin/stats, /admin/limits and /admin/jfr require
+   * @param box
+   *          the Box client, or null if Box isn't set up
+   * @param admissionControl
+   *          whose limits /admin/limits shows and changes
+   * @param tenantScheduler
+   *          the scheduler of Okapi calls
+   * @param jfrMaxDuration
+   *          how long in ms a flight recording may run at most
+   * @param jfrMaxSize
+   *          how many bytes a flight recording may keep at most
+   */
+  public AdminHandler(Vertx vertx, String apiToken, BoxApiClient box, AdmissionControl admissionControl,
+      TenantScheduler tenantScheduler, long jfrMaxDuration, long jfrMaxSize) {
+    this.vertx = vertx;
+    this.apiToken = apiToken;
+    this.box = box;
+    this.admissionControl = admissionControl;
+    this.tenantScheduler = tenantScheduler;
+    this.jfrMaxDuration = jfrMaxDuration;
+    this.jfrMaxSize = jfrMaxSize;
+  }
+
+  protected void handleMetrics(RoutingContext ctx) {
+    if (!authorize(ctx)) {
+      return;
+    }
+
+    ctx.response()
+      .setStatusCode(200)
+      .putHeader(HttpHeaders.CONTENT_TYPE, "text/plain; version=0.0.4; charset=utf-8")
+      .end(Metrics.scrape());
+  }
+
+  protected void handleStats(RoutingContext ctx) {
+    if (!authorize(ctx)) {
+      return;
+    }
+
+    ctx.response()
+      .setStatusCode(200)
+      .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
+      .end(buildStats().encodePrettily());
+  }
+
+  protected void handleReady(RoutingContext ctx) {
+    final JsonObject readiness = Readiness.asJsonObject();
+    ctx.response()
+      .setStatusCode(readiness.getBoolean("ready") ? 200 : 503)
+      .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
+      .end(readiness.encode());
+  }
+
+  protected void handleGetLimits(RoutingContext ctx) {
+    if (!authorize(ctx)) {
+      return;
+    }
+
+    ctx.response()
+      .setStatusCode(200)
+      .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
+      .end(admissionControl.getLimits().asJsonObject().encode());
+  }
+
+  /**
+   * Changes the admission limits that are present in the JSON body, leaving the others as they are. The change lasts
+   * until the node restarts.
+   */
+  protected void handlePutLimits(RoutingContext ctx) {
+    if (!authorize(ctx)) {
+      return;
+    }
+
+    final AdmissionControl.Limits limits;
+    try {
+      limits = admissionControl.getLimits().with(ctx.body().asJsonObject());
+    } catch (Exception e) {
+      ctx.response().setStatusCode(400).end("Limits must be a JSON object of numbers");
+      return;
+    }
+
+    admissionControl.setLimits(limits);
+    ctx.response()
+      .setStatusCode(200)
+      .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
+      .end(limits.asJsonObject().encode());
+  }
+
+  /**
+   * Starts a flight recording with the JFR settings named by the `settings` parameter (default or profile), for
+   * `duration` seconds or until it's stopped, but never for longer than {@link #jfrMaxDuration}.
+   */
+  protected void handleJfrStart(RoutingContext ctx) {
+    if (!authorize(ctx)) {
+      return;
+    }
+
+    final String settings = ctx.request().getParam("settings", "profile");
+    if (!settings.equals("default") && !settings.equals("profile")) {
+      ctx.response().setStatusCode(400).end("settings must be either default or profile");
+      return;
+    }
+
+    final long duration;
+    try {
+      final String requested = ctx.request().getParam("duration");
+      duration = requested == null ? jfrMaxDuration : Math.min(jfrMaxDuration, Long.parseLong(requested) * 1000);
+    } catch (NumberFormatException e) {
+      ctx.response().setStatusCode(400).end("duration must be a number of seconds");
+      return;
+    }
+    if (duration <= 0) {
+      ctx.response().setStatusCode(400).end("duration must be a number of seconds");
+      return;
+    }
+
+    vertx.executeBlocking(() -> FlightRecording.start(settings, Duration.ofMillis(duration), jfrMaxSize))
+      .onSuccess(started -> {
+        if (!started) {
+          ctx.response().setStatusCode(409).end("A recording is already running");
+          return;
+        }
+
+        ctx.response()
+          .setStatusCode(202)
+          .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
+          .end(new JsonObject()
+            .put("settings", settings)
+            .put("durationMs", duration)
+            .put("maxSizeBytes", jfrMaxSize)
+            .encode());
+      })
+      .onFailure(cause -> {
+        logger.error("Failed to start a flight recording: " + cause.getMessage());
+        ctx.response().setStatusCode(500).end("Failed to start a recording: " + cause.getMessage());
+      });
+  }
+
+  /**
+   * Stops the flight recording, if it hasn't stopped by itself yet, and sends it.
+   */
+  protected void handleJfrStop(RoutingContext ctx) {
+    if (!authorize(ctx)) {
+      return;
+    }
+
+    vertx.executeBlocking(FlightRecording::stop)
+      .onSuccess(file -> {
+        if (file == null) {
+          ctx.response().setStatusCode(404).end("No recording was started");
+          return;
+        }
+
+        ctx.response()
+          .putHeader(HttpHeaders.CONTENT_TYPE, "application/octet-stream")
+          .putHeader("Content-Disposition", "attachment; filename=\"" + FlightRecording.NAME + ".jfr\"")
+          .sendFile(file.toString())
+          .onComplete(ar -> deleteRecording(file));
+      })
+      .onFailure(cause -> {
+        logger.error("Failed to stop the flight recording: " + cause.getMessage());
+        ctx.response().setStatusCode(500).end("Failed to stop the recording: " + cause.getMessage());
+      });
+  }
+
+  protected void deleteRecording(Path file) {
+    vertx.fileSystem().delete(file.toString())
+      .onFailure(cause -> logger.warn("Failed to delete flight recording " + file + ": " + cause.getMessage()));
+  }
+
+  /**
+   * Answers with 401 unless the request carries the admin API token.
+   *
+   * @return whether the request may go ahead
+   */
+  protected boolean authorize(RoutingContext ctx) {
+    if (isAuthorized(ctx.request().getHeader(HttpHeaders.AUTHORIZATION))) {
+      return true;
+    }
+
+    logger.warn("Rejecting unauthorized request for " + ctx.request().path() + " from " + ctx.request().remoteAddress());
+    ctx.response()
+      .setStatusCode(401)
+      .putHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer")
+      .end();
+    return false;
+  }
+
+  protected boolean isAuthorized(String authorization) {
+    if (authorization == null || !authorization.startsWith("Bearer ")) {
+      return false;
+    }
+
+    // Constant time, so that the token can't be guessed one character at a time.
+    return MessageDigest.isEqual(
+      authorization.substring("Bearer ".length()).trim().getBytes(StandardCharsets.UTF_8),
+      apiToken.getBytes(StandardCharsets.UTF_8)
+    );
+  }
+
+  public JsonObject buildStats() {
+    final JsonObject caches = new JsonObject();
+    if (OidcStateCache.isInitialized()) {
+      caches.put("oidc_state", OidcStateCache.getInstance().getStats());
+    }
+    if (LaunchResultCache.isInitialized()) {
+      caches.put("launch_result", LaunchResultCache.getInstance().getStats());
+    }
+    if (BoxFileCache.isInitialized()) {
+      caches.put("box_download_url", BoxFileCache.getInstance().getStats());
+    }
+    if (BoxMetadataCache.isInitialized()) {
+      caches.put("box_metadata", BoxMetadataCache.getInstance().getStats());
+    }
+    if (BoxFolderCache.isInitialized()) {
+      caches.put("box_folder", BoxFolderCache.getInstance().getStats());
+    }
+    if (BoxContentCache.isInitialized()) {
+      final BoxContentCache content = BoxContentCache.getInstance();
+      caches.put("box_content", new JsonObject()
+        .put("size", content.size())
+        .put("bytes", content.getTotalBytes())
+        .put("hits", content.getHits())
+        .put("misses", content.getMisses())
+        .put("hitRatio", content.getHitRatio())
+        .put("evictions", content.getEvictions())
+        .put("bytesSaved", content.getBytesSaved()));
+    }
+
+    final JsonObject dependencies = new JsonObject();
+    for (Map.Entry<String, DependencyHealth> dependency : DependencyHealth.all().entrySet()) {
+      dependencies.put(dependency.getKey(), dependency.getValue().asJsonObject());
+    }
+
+    final JsonObject stats = new JsonObject()
+      .put("uptimeMs", ManagementFactory.getRuntimeMXBean().getUptime())
+      .put("readiness", Readiness.asJsonObject())
+      .put("caches", caches)
+      .put("dependencies", dependencies)
+      .put("admission", admissionControl.asJsonObject())
+      .put("tenants", tenantScheduler.asJsonObject());
+
+    if (box != null) {
+      final BoxApiScheduler scheduler = box.getScheduler();
+      stats.put("boxScheduler", new JsonObject()
+        .put("queueDepth", scheduler.getQueueDepth())
+        .put("inFlight", scheduler.getInFlight())
+        .put("paused", scheduler.isPaused())
+        .put("throttleEvents", scheduler.getThrottleEvents())
+        .put("queueTimeouts", scheduler.getQueueTimeouts())
+        .put("coalescedCalls", scheduler.getCoalescedCalls()));
+    }
+
+    final JsonObject executors = new JsonObject();
+    for (Map.Entry<String, BlockingExecutor> executor : BlockingExecutor.all().entrySet()) {
+      executors.put(executor.getKey(), new JsonObject()
+        .put("mode", executor.getValue().getMode().name().toLowerCase())
+        .put("active", executor.getValue().getActive())
+        .put("queued", executor.getValue().getQueued())
+        .put("timeouts", executor.getValue().getTimeouts()));
+    }
+    stats.put("blockingExecutors", executors);
+
+    final JsonObject eventLoopLag = new JsonObject();
+    for (Gauge lag : Metrics.registry().find("vertx.eventloop.lag.last").gauges()) {
+      eventLoopLag.put(lag.getId().getTag("event_loop"), lag.value());
+    }
+    stats.put("eventLoopLagMs", eventLoopLag);
+
+    return stats;
+  }
+}
@@ -1,35 +1,85 @@
 package org.folio.edge.ltiCourses;
 
-import java.io.File;
-import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
-import io.vertx.ext.web.RoutingContext;
+import com.box.sdk.BoxAPIException;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxException;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpClientResponse;
 import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.core.streams.Pipe;
+import io.vertx.ext.web.RoutingContext;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import org.folio.edge.ltiCourses.cache.BoxContentCache;
 import org.folio.edge.ltiCourses.cache.BoxFileCache;
+import org.folio.edge.ltiCourses.model.BoxFileMetadata;
+import org.folio.edge.ltiCourses.utils.BoxApiClient;
+import org.folio.edge.ltiCourses.utils.BoxApiScheduler;
+import org.folio.edge.ltiCourses.utils.BoxDownloadTokens;
+import org.folio.edge.ltiCourses.utils.HttpRange;
+import org.folio.edge.ltiCourses.utils.JfrEvents;
+import org.folio.edge.ltiCourses.utils.Metrics;
+import org.folio.edge.ltiCourses.utils.StageTimer;
+import org.folio.edge.ltiCourses.utils.Tracing;
+import org.folio.edge.ltiCourses.utils.TeeWriteStream;
 
-import com.box.sdk.BoxTransactionalAPIConnection;
-import com.box.sdk.BoxFile;
 
 public class BoxDownloadHandler {
-  protected BoxTransactionalAPIConnection api;
+  // Where the file's content came from: box, cache or redirect.
+  protected static final String TRANSFER_SOURCE_KEY = "transferSource";
+
+  private static final AtomicLong contentFetches = new AtomicLong();
+
+  // The characters besides letters and digits that RFC 5987 lets through unencoded in an ext-value.
+  private static final String ATTR_CHARS = "!#$&+-.^_`|~";
+  private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+  protected Vertx vertx;
+  protected BoxApiClient box;
+  protected HttpClient httpClient;
 
   private static final Logger logger = LogManager.getLogger(BoxDownloadHandler.class);
 
-  public BoxDownloadHandler(String appToken) {
-    if (appToken == null || appToken.isEmpty()) {
+  public BoxDownloadHandler(Vertx vertx, BoxApiClient box) {
+    this.vertx = vertx;
+    this.box = box;
+
+    if (box == null) {
       logger.info("No Box API App Token was provided, Box URLs will not be transformed.");
     } else {
-      logger.info("Creating new Box API instance using App Token starting with: " + appToken.substring(0, 5));
-      api = new BoxTransactionalAPIConnection(appToken);
+      httpClient = vertx.createHttpClient(new HttpClientOptions().setKeepAlive(true));
     }
   }
 
   protected void handleDownloadRequest(RoutingContext ctx) {
-    if (api == null) {
+    Tracing.startRequestSpan(ctx, "download");
+    final StageTimer totalTimer = StageTimer.start(ctx, "download", "total");
+    ctx.addEndHandler(ar -> totalTimer.stop(
+      ar.succeeded() && ctx.response().getStatusCode() < 500 ? StageTimer.SUCCESS : StageTimer.ERROR));
+
+    if (box == null) {
       logger.error("No Box API App Token was provided, Box URLs cannot be transformed.");
       ctx.response()
         .setStatusCode(400)
@@ -38,10 +88,10 @@ public class BoxDownloadHandler {
       return;
     }
 
-    final String hash = ctx.request().getParam("hash");
-    String boxFileId = BoxFileCache.getInstance().get(hash);
+    final String token = ctx.request().getParam("token");
+    final BoxDownloadTokens.Token file = BoxDownloadTokens.getInstance().verify(token, Clock.systemUTC());
 
-    if (boxFileId == null || boxFileId.isEmpty()) {
+    if (file == null) {
       ctx.response()
         .setStatusCode(400)
         .end("This file is no longer available for download. Reload the list of reserves and try again.");
@@ -49,44 +99,494 @@ public class BoxDownloadHandler {
       return;
     }
 
-    File tempFile;
-    try {
-      tempFile = File.createTempFile("edge-lti-box-file-", null);
-      tempFile.deleteOnExit();
-    } catch (Exception e) {
-      final String errorMessage = "Failed while creating file: " + e.getMessage();
-      logger.error(errorMessage);
-      ctx.response()
-        .setStatusCode(500)
-        .end(errorMessage);
+    recordTransfer(ctx, file.fileId);
+
+    if (file.redirect) {
+      redirectDownload(ctx, file.fileId);
+    } else {
+      proxyDownload(ctx, file.fileId);
+    }
+  }
+
+  /**
+   * Records the download as a {@link JfrEvents.BoxTransferEvent} once the response has been sent.
+   */
+  protected void recordTransfer(RoutingContext ctx, String boxFileId) {
+    final JfrEvents.BoxTransferEvent event = new JfrEvents.BoxTransferEvent();
+    event.begin();
+
+    ctx.addEndHandler(ar -> {
+      event.end();
+      if (event.shouldCommit()) {
+        event.fileId = boxFileId;
+        event.source = ctx.get(TRANSFER_SOURCE_KEY);
+        event.status = ctx.response().getStatusCode();
+        event.bytes = ctx.response().bytesWritten();
+        event.commit();
+      }
+    });
+  }
+
+  /**
+   * Sends the client straight to Box's short-lived download URL so that the file's content never passes through
+   * this module.
+   */
+  protected void redirectDownload(RoutingContext ctx, String boxFileId) {
+    timed(ctx, "download_url", () -> resolveDownloadUrl(boxFileId))
+      .onSuccess(url -> {
+        logger.info("Redirecting download of Box file " + boxFileId);
+        ctx.put(TRANSFER_SOURCE_KEY, "redirect");
+        ctx.response()
+          .setStatusCode(302)
+          .putHeader(HttpHeaders.CACHE_CONTROL, "no-store")
+          .putHeader(HttpHeaders.LOCATION, url)
+          .end();
+      })
+      .onFailure(cause -> handleDownloadFailure(ctx, cause));
+  }
+
+  protected void proxyDownload(RoutingContext ctx, String boxFileId) {
+    if (!BoxContentCache.isInitialized()) {
+      // Both lookups run on the Box worker pool, concurrently, so we only wait for the slower of the two.
+      final Future<BoxFileMetadata> metadata = timed(ctx, "metadata", () -> box.getFileMetadata(boxFileId));
+      final Future<String> downloadUrl = timed(ctx, "download_url", () -> resolveDownloadUrl(boxFileId));
+
+      Future.all(metadata, downloadUrl)
+        .compose(x -> {
+          if (isNotModified(ctx, metadata.result())) {
+            return sendNotModified(ctx, metadata.result());
+          }
+          return timed(ctx, "stream", () -> streamFromBox(ctx, metadata.result(), downloadUrl.result(), null));
+        })
+        .onFailure(cause -> handleDownloadFailure(ctx, cause));
+      return;
+    }
+
+    // The file's version decides whether our cached copy is still current, so it has to be known up front.
+    timed(ctx, "metadata", () -> box.getFileMetadata(boxFileId))
+      .compose(metadata -> {
+        if (isNotModified(ctx, metadata)) {
+          return sendNotModified(ctx, metadata);
+        }
+        return sendCachedOrStream(ctx, metadata, true);
+      })
+      .onFailure(cause -> handleDownloadFailure(ctx, cause));
+  }
+
+  /**
+   * Sends the file from the local content cache if it's there. If it isn't, the first download of it fetches it from
+   * Box and fills the cache on the way, while downloads that come in meanwhile wait for that fill instead of fetching
+   * the same file again.
+   *
+   * @param mayWait
+   *          whether to wait for another download's fill, which is only worth doing once
+   */
+  protected Future<Void> sendCachedOrStream(RoutingContext ctx, BoxFileMetadata metadata, boolean mayWait) {
+    final BoxContentCache cache = BoxContentCache.getInstance();
+    final String cacheKey = BoxContentCache.key(metadata.id, metadata.version);
+
+    final Path cachedContent = cache.get(cacheKey, metadata.size);
+    if (cachedContent != null) {
+      return timed(ctx, "cached_send", () -> sendCachedContent(ctx, metadata, cachedContent));
+    }
+
+    // Only a download of the whole file can fill the cache.
+    final Promise<Void> fill = requestedRange(ctx, metadata) == null && cache.accepts(metadata.size)
+      ? cache.startFill(cacheKey)
+      : null;
+    if (fill != null) {
+      return timed(ctx, "download_url", () -> resolveDownloadUrl(metadata.id))
+        .compose(url -> timed(ctx, "stream", () -> streamFromBox(ctx, metadata, url, fill)))
+        .onFailure(cause -> fill.tryComplete());
+    }
+
+    final Future<Void> inProgress = cache.getFill(cacheKey);
+    if (inProgress != null && mayWait) {
+      return timed(ctx, "cache_wait", () -> awaitFill(inProgress))
+        .compose(v -> sendCachedOrStream(ctx, metadata, false));
+    }
+
+    return timed(ctx, "download_url", () -> resolveDownloadUrl(metadata.id))
+      .compose(url -> timed(ctx, "stream", () -> streamFromBox(ctx, metadata, url, null)));
+  }
+
+  /**
+   * Waits for another download to fill the cache, on this request's event loop. A fill is as slow as the client it's
+   * streamed to, so this gives up after as long as a call to Box would be queued for.
+   */
+  protected Future<Void> awaitFill(Future<Void> fill) {
+    final Context context = vertx.getOrCreateContext();
+    final Promise<Void> filled = Promise.promise();
+    final long timer = vertx.setTimer(box.getScheduler().getQueueTimeout(), id -> filled.tryComplete());
+
+    fill.onComplete(ar -> context.runOnContext(v -> {
+      vertx.cancelTimer(timer);
+      filled.tryComplete();
+    }));
+    return filled.future();
+  }
+
+  protected Future<Void> sendCachedContent(RoutingContext ctx, BoxFileMetadata metadata, Path content) {
+    final HttpRange range = requestedRange(ctx, metadata);
+    if (range == HttpRange.UNSATISFIABLE) {
+      return sendRangeNotSatisfiable(ctx, metadata);
+    }
+
+    logger.info("Sending Box file " + metadata.id + " from the local content cache");
+    ctx.put(TRANSFER_SOURCE_KEY, "cache");
+
+    final HttpServerResponse response = prepareResponse(ctx, metadata);
+    final Future<Void> sent;
+    if (range == null) {
+      sent = response.sendFile(content.toString());
+    } else {
+      sent = response
+        .setStatusCode(206)
+        .putHeader(HttpHeaders.CONTENT_RANGE, range.asContentRange(metadata.size))
+        .sendFile(content.toString(), range.start, range.length());
+    }
+
+    return sent.recover(cause -> {
+      if (ctx.response().headWritten()) {
+        return Future.failedFuture(cause);
+      }
+
+      // The entry was most likely evicted in the meantime, so fall back to Box.
+      logger.warn("Failed to send cached Box file " + metadata.id + ": " + cause.getMessage());
+      return resolveDownloadUrl(metadata.id)
+        .compose(url -> streamFromBox(ctx, metadata, url, null));
+    });
+  }
+
+  /**
+   * Streams the file's content from Box straight into our response. The pipe pauses reading from Box whenever the
+   * client can't keep up, so no more than a write queue's worth of the file is ever held in memory. When a fill of
+   * the local content cache is given, a complete response is also written to the cache as it passes through, and the
+   * fill is ended either way.
+   *
+   * Conditional headers are evaluated against our own ETag before getting here, so only the resulting byte range
+   * is forwarded to Box.
+   */
+  protected Future<Void> streamFromBox(
+    RoutingContext ctx,
+    BoxFileMetadata metadata,
+    String downloadUrl,
+    Promise<Void> fill
+  ) {
+    final HttpRange range = requestedRange(ctx, metadata);
+    if (range == HttpRange.UNSATISFIABLE) {
+      return sendRangeNotSatisfiable(ctx, metadata);
+    }
+
+    final RequestOptions options = new RequestOptions()
+      .setMethod(HttpMethod.GET)
+      .setAbsoluteURI(downloadUrl)
+      .setFollowRedirects(true);
+    if (range != null) {
+      options.putHeader(HttpHeaders.RANGE, range.asRangeHeader());
+    }
+
+    return fetchContent(metadata.id, options)
+      .compose(boxResponse -> {
+        final int status = boxResponse.statusCode();
+        if (status != 200 && status != 206) {
+          boxResponse.resume();
+          return Future.failedFuture(new BoxAPIException(
+            "Box responded with " + status + " " + boxResponse.statusMessage(), status, null));
+        }
+
+        logger.info("Streaming Box file " + metadata.id + " (" + metadata.size + " bytes) to the client");
+        ctx.put(TRANSFER_SOURCE_KEY, "box");
+
+        final HttpServerResponse response = prepareResponse(ctx, metadata).setStatusCode(status);
+        // A client that goes away mid-download would otherwise leave the Box connection paused, with the rest of the
+        // file still waiting to be read.
+        response.closeHandler(v -> {
+          if (!response.ended()) {
+            boxResponse.request().reset();
+          }
+        });
+
+        final String contentRange = boxResponse.getHeader(HttpHeaders.CONTENT_RANGE);
+        if (status == 206 && contentRange != null) {
+          response.putHeader(HttpHeaders.CONTENT_RANGE, contentRange);
+        }
+
+        final String contentLength = boxResponse.getHeader(HttpHeaders.CONTENT_LENGTH);
+        if (contentLength != null) {
+          try {
+            Metrics.recordUpstreamResponseSize("box", null, Long.parseLong(contentLength));
+          } catch (NumberFormatException ignored) {
+            // Box sent a broken header; the client will find out soon enough.
+          }
+
+          response.putHeader(HttpHeaders.CONTENT_LENGTH, contentLength);
+        } else if (status == 200 && metadata.size >= 0) {
+          response.putHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(metadata.size));
+        } else {
+          response.setChunked(true);
+        }
 
+        if (status != 200 || fill == null) {
+          if (fill != null) {
+            fill.tryComplete();
+          }
+          return boxResponse.pipe()
+            .endOnFailure(false)
+            .to(response);
+        }
+
+        return pipeToResponseAndCache(boxResponse, response, metadata, fill);
+      });
+  }
+
+  /**
+   * Fetches a file's content from Box. Box rate limits these requests like any other call, so they're paced by the
+   * {@link BoxApiScheduler} too, which also retries them when Box answers with a 429. A request only counts as in
+   * flight until Box's response headers arrive, so that a long download doesn't hold up the calls queued behind it.
+   *
+   * @return Box's response, on the caller's event loop, with the body still to be read
+   */
+  protected Future<HttpClientResponse> fetchContent(String boxFileId, RequestOptions options) {
+    final Context context = vertx.getOrCreateContext();
+
+    // Every request streams its own response, so each gets a key of its own rather than being coalesced.
+    final String key = "content:" + boxFileId + ":" + contentFetches.incrementAndGet();
+    return box.getScheduler().submit(key, boxFileId, () -> {
+      final Promise<HttpClientResponse> fetched = Promise.promise();
+      context.runOnContext(v -> httpClient.request(options)
+        .compose(HttpClientRequest::send)
+        .compose(boxResponse -> {
+          if (boxResponse.statusCode() == 429) {
+            return Future.failedFuture(new BoxApiScheduler.RateLimitedException("Box is rate limiting downloads",
+              BoxApiScheduler.parseRetryAfter(boxResponse.getHeader(HttpHeaders.RETRY_AFTER), Clock.systemUTC())));
+          }
+          // The scheduler hands the response back on this same event loop, but it mustn't lose any of the body while
+          // it does.
+          return Future.succeededFuture(boxResponse.pause());
+        })
+        .onComplete(fetched));
+      return fetched.future();
+    });
+  }
+
+  /**
+   * Records how long a stage of the download took, and whether it succeeded.
+   */
+  protected <T> Future<T> timed(RoutingContext ctx, String stage, Supplier<Future<T>> action) {
+    final StageTimer timer = StageTimer.start(ctx, "download", stage);
+    return action.get().andThen(ar -> timer.stop(ar.succeeded() ? StageTimer.SUCCESS : StageTimer.ERROR));
+  }
+
+  /**
+   * Sets the headers that every download response shares, whether it's served from Box or our content cache.
+   */
+  protected HttpServerResponse prepareResponse(RoutingContext ctx, BoxFileMetadata metadata) {
+    return ctx.response()
+      .putHeader(HttpHeaders.CONTENT_TYPE, metadata.contentType)
+      .putHeader("Content-Disposition", contentDisposition(metadata.name))
+      .putHeader(HttpHeaders.ACCEPT_RANGES, "bytes")
+      .putHeader(HttpHeaders.ETAG, etagOf(metadata));
+  }
+
+  /**
+   * @return the Content-Disposition of a download of the given file, naming it both as a quoted ASCII fallback and,
+   *         for clients that support RFC 6266, as the original UTF-8 name
+   */
+  protected static String contentDisposition(String fileName) {
+    if (fileName == null || fileName.isEmpty()) {
+      return "attachment";
+    }
+
+    final StringBuilder fallback = new StringBuilder();
+    for (char c : fileName.toCharArray()) {
+      if (c < 0x20 || c >= 0x7f) {
+        fallback.append('_');
+      } else {
+        if (c == '"' || c == '\\') {
+          fallback.append('\\');
+        }
+        fallback.append(c);
+      }
+    }
+
+    final StringBuilder encoded = new StringBuilder();
+    for (byte b : fileName.getBytes(StandardCharsets.UTF_8)) {
+      final int c = b & 0xff;
+      if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || ATTR_CHARS.indexOf(c) >= 0) {
+        encoded.append((char) c);
+      } else {
+        encoded.append('%').append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xf]);
+      }
+    }
+
+    return "attachment; filename=\"" + fallback + "\"; filename*=UTF-8''" + encoded;
+  }
+
+  protected Future<Void> sendNotModified(RoutingContext ctx, BoxFileMetadata metadata) {
+    return ctx.response()
+      .setStatusCode(304)
+      .putHeader(HttpHeaders.ETAG, etagOf(metadata))
+      .end();
+  }
+
+  protected Future<Void> sendRangeNotSatisfiable(RoutingContext ctx, BoxFileMetadata metadata) {
+    return ctx.response()
+      .setStatusCode(416)
+      .putHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + metadata.size)
+      .end();
+  }
+
+  protected boolean isNotModified(RoutingContext ctx, BoxFileMetadata metadata) {
+    final String ifNoneMatch = ctx.request().getHeader(HttpHeaders.IF_NONE_MATCH);
+    if (ifNoneMatch == null) {
+      return false;
+    }
+
+    final String etag = etagOf(metadata);
+    for (String candidate : ifNoneMatch.split(",")) {
+      final String trimmed = candidate.trim();
+      // If-None-Match uses weak comparison.
+      if (trimmed.equals("*") || trimmed.equals(etag) || trimmed.equals("W/" + etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the range to send, or null for the whole file. An If-Range that doesn't match the current version of the
+   *         file means the client's partial copy is stale, in which case it gets the whole file.
+   */
+  protected HttpRange requestedRange(RoutingContext ctx, BoxFileMetadata metadata) {
+    final String range = ctx.request().getHeader(HttpHeaders.RANGE);
+    if (range == null) {
+      return null;
+    }
+
+    final String ifRange = ctx.request().getHeader(HttpHeaders.IF_RANGE);
+    if (ifRange != null && !ifRange.trim().equals(etagOf(metadata))) {
+      return null;
+    }
+
+    return HttpRange.parse(range, metadata.size);
+  }
+
+  protected String etagOf(BoxFileMetadata metadata) {
+    return "\"" + metadata.version + "\"";
+  }
+
+  protected Future<Void> pipeToResponseAndCache(
+    HttpClientResponse boxResponse,
+    HttpServerResponse response,
+    BoxFileMetadata metadata,
+    Promise<Void> fill
+  ) {
+    final BoxContentCache cache = BoxContentCache.getInstance();
+    final String cacheKey = BoxContentCache.key(metadata.id, metadata.version);
+    final Pipe<Buffer> pipe = boxResponse.pipe().endOnFailure(false);
+    final Path partialFile = cache.newPartialFile();
+
+    return vertx.fileSystem()
+      .open(partialFile.toString(), new OpenOptions().setWrite(true).setCreateNew(true))
+      .transform(opened -> {
+        if (opened.failed()) {
+          logger.warn("Streaming Box file " + metadata.id + " without caching it: " + opened.cause().getMessage());
+          fill.tryComplete();
+          return pipe.to(response);
+        }
+
+        final AsyncFile file = opened.result();
+        final TeeWriteStream tee = new TeeWriteStream(response, file);
+
+        tee.secondaryResult()
+          .compose(v -> vertx.executeBlocking(() -> cache.commit(cacheKey, partialFile, metadata.size)))
+          .onFailure(cause -> {
+            logger.warn("Failed to cache Box file " + metadata.id + ": " + cause.getMessage());
+            file.close();
+            vertx.executeBlocking(() -> {
+              cache.abort(partialFile);
+              return null;
+            });
+          })
+          .onComplete(ar -> fill.tryComplete());
+
+        return pipe.to(tee)
+          .onFailure(tee::failSecondary);
+      });
+  }
+
+  protected Future<String> resolveDownloadUrl(String boxFileId) {
+    final String cachedUrl = BoxFileCache.getInstance().getDownloadUrl(boxFileId);
+    if (cachedUrl != null) {
+      return Future.succeededFuture(cachedUrl);
+    }
+
+    return box.getDownloadUrl(boxFileId).map(url -> {
+      BoxFileCache.getInstance().putDownloadUrl(boxFileId, url.toString());
+      return url.toString();
+    });
+  }
+
+  /**
+   * Answers a download that failed with a status that says whose fault it was. Why it failed is only logged: the
+   * messages of Box, its SDK and our own code are no business of the client's.
+   */
+  protected void handleDownloadFailure(RoutingContext ctx, Throwable cause) {
+    logger.error("Failed while downloading file: " + cause.getMessage());
+
+    if (ctx.response().headWritten()) {
+      // Part of the file has already been sent, so the only honest thing left to do is to abort the transfer.
+      ctx.response().reset();
       return;
     }
 
-    BoxFile file;
-    try (FileOutputStream stream = new FileOutputStream(tempFile.getPath());) {
-      file = new BoxFile(api, boxFileId);
-      file.download(stream);
-    } catch (Exception e) {
-      final String errorMessage = "Failed while downloading file: " + e.getMessage();
-      logger.error(errorMessage);
+    final long retryAfter = retryAfterOf(cause);
+    if (retryAfter >= 0) {
+      // Box will let us through again shortly, so tell the client when to come back rather than failing outright.
       ctx.response()
-        .setStatusCode(500)
-        .end(errorMessage);
+        .setStatusCode(503)
+        .putHeader(HttpHeaders.RETRY_AFTER, String.valueOf((retryAfter + 999) / 1000))
+        .end("Box is busy right now. Please try downloading this file again in a moment.");
+      return;
+    }
 
+    if (cause instanceof BoxAPIException && ((BoxAPIException) cause).getResponseCode() == 404) {
+      ctx.response()
+        .setStatusCode(404)
+        .end("This file could not be found in Box.");
       return;
     }
 
-    logger.info("Sending the Box file that was temporarily stored at " + tempFile.getPath());
+    if (cause instanceof BoxAPIException || cause instanceof IOException || cause instanceof VertxException) {
+      ctx.response()
+        .setStatusCode(502)
+        .end("This file could not be downloaded from Box. Please try again later.");
+      return;
+    }
 
     ctx.response()
-      .putHeader(HttpHeaders.CONTENT_TYPE, "text/plain")
-      .putHeader("Content-Disposition", "attachment; filename=\"" + file.getInfo().getName() + "\"")
-      .putHeader(HttpHeaders.TRANSFER_ENCODING, "chunked")
-      .sendFile(tempFile.getPath());
+      .setStatusCode(500)
+      .end("This file could not be downloaded. Please try again later.");
+  }
 
-    if (!tempFile.delete()) {
-      logger.info("Failed to delete temp file at " + tempFile.getPath());
+  /**
+   * @return in ms, when a download that Box rate limited, or that our own limits kept waiting past its deadline, is
+   *         likely to get through, or -1 if it failed for any other reason
+   */
+  protected static long retryAfterOf(Throwable cause) {
+    if (cause instanceof BoxApiScheduler.ThrottledException) {
+      return ((BoxApiScheduler.ThrottledException) cause).retryAfter;
+    }
+    if (cause instanceof BoxApiScheduler.RateLimitedException) {
+      return ((BoxApiScheduler.RateLimitedException) cause).retryAfter;
+    }
+    if (cause instanceof BoxAPIException && ((BoxAPIException) cause).getResponseCode() == 429
+        || cause instanceof TimeoutException) {
+      // Box still rate limiting us once the scheduler gave up retrying, or the Box executor's queue being too long
+      // for the call to be made in time.
+      return BoxApiScheduler.DEFAULT_RETRY_AFTER;
     }
+    return -1;
   }
-}
\ No newline at end of file
+}
@@ -5,16 +5,58 @@ public class Constants {
 
   public static final String LTI_TOOL_PRIVATE_KEY_FILE = "lti_tool_private_key_file";
   public static final String LTI_TOOL_PUBLIC_KEY_FILE = "lti_tool_public_key_file";
+  public static final String LTI_TOOL_GENERATED_KEY_DIR = "lti_tool_generated_key_dir";
+  public static final String FAST_STARTUP = "fast_startup";
+  public static final String WARMUP_LAUNCHES = "warmup_launches";
+  public static final String WARMUP_TIME_LIMIT = "warmup_time_limit";
 
   public static final String LTI_PLATFORM_PUBLIC_KEY = "lti_platform_public_key";
 
   public static final String JWT_KID = "folio_lti_courses";
   public static final String OIDC_TTL = "oidc_ttl";
   public static final String DOWNLOAD_URL_TTL = "download_url_ttl";
+  public static final String DOWNLOAD_TOKEN_SECRET = "download_token_secret";
   public static final String BOX_API_APP_TOKEN = "box_api_app_token";
+  public static final String BOX_API_MAX_CONCURRENT = "box_api_max_concurrent";
+  public static final String BOX_API_MAX_PER_FILE = "box_api_max_per_file";
+  public static final String BOX_API_RATE = "box_api_rate";
+  public static final String BOX_API_QUEUE_TIMEOUT = "box_api_queue_timeout";
+  public static final String BOX_API_TIMEOUT = "box_api_timeout";
+  public static final String BOX_CONTENT_CACHE_DIR = "box_content_cache_dir";
+  public static final String BOX_CONTENT_CACHE_SIZE = "box_content_cache_size";
+  public static final String BOX_METADATA_TTL = "box_metadata_ttl";
+  public static final String BOX_FOLDER_TTL = "box_folder_ttl";
+  public static final String BOX_PREFETCH_TIMEOUT = "box_prefetch_timeout";
+  public static final String JWKS_MAX_CONCURRENT = "jwks_max_concurrent";
+  public static final String JWKS_TIMEOUT = "jwks_timeout";
+  public static final String BLOCKING_EXECUTION_MODE = "blocking_execution_mode";
+  public static final String LAUNCH_BODY_LIMIT = "launch_body_limit";
+  public static final String ID_TOKEN_MAX_SIZE = "id_token_max_size";
+  public static final String LAUNCH_DEDUP_TTL = "launch_dedup_ttl";
+  public static final String LAUNCH_SESSION_TTL = "launch_session_ttl";
+  public static final String LAUNCH_SESSION_SECRET = "launch_session_secret";
+  public static final String LTI_KNOWN_ISSUERS = "lti_known_issuers";
+  public static final String RATE_LIMIT_ISSUER = "rate_limit_issuer";
+  public static final String RATE_LIMIT_ISSUER_BURST = "rate_limit_issuer_burst";
+  public static final String RATE_LIMIT_API_KEY = "rate_limit_api_key";
+  public static final String RATE_LIMIT_API_KEY_BURST = "rate_limit_api_key_burst";
+  public static final String RATE_LIMIT_CLIENT = "rate_limit_client";
+  public static final String RATE_LIMIT_CLIENT_BURST = "rate_limit_client_burst";
+  public static final String MAX_LAUNCHES_IN_FLIGHT = "max_launches_in_flight";
+  public static final String MAX_EVENT_LOOP_LAG = "max_event_loop_lag";
+  public static final String UPSTREAM_MAX_IN_FLIGHT = "upstream_max_in_flight";
+  public static final String UPSTREAM_MAX_PER_TENANT = "upstream_max_per_tenant";
+  public static final String UPSTREAM_QUEUE_TIMEOUT = "upstream_queue_timeout";
+  public static final String TENANT_WEIGHTS = "tenant_weights";
   public static final String IGNORE_OIDC_STATE = "ignore_oidc_state";
+  public static final String TRACE_SAMPLING_RATE = "trace_sampling_rate";
+  public static final String TRACE_EXPORT_FILE = "trace_export_file";
+  public static final String ADMIN_API_TOKEN = "admin_api_token";
+  public static final String JFR_MAX_DURATION = "jfr_max_duration";
+  public static final String JFR_MAX_SIZE = "jfr_max_size";
 
   public static final String BOX_COM_URL_INDICATOR = "box.com/file/";
+  public static final String BOX_COM_FOLDER_URL_INDICATOR = "box.com/folder/";
 
   public static final String DEFAULT_RESERVES_NOT_FOUND_MESSAGE = "No course reserve materials are currently available. If you believe this is an error, please contact your librarian for assistance.";
 
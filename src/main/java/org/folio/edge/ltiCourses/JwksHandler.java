@@ -4,7 +4,6 @@ import java.security.interfaces.RSAPublicKey;
 import java.util.*;
 
 import io.vertx.ext.web.RoutingContext;
-import io.vertx.core.http.HttpServerResponse;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.json.JsonArray;
 
@@ -28,8 +27,16 @@ public class JwksHandler {
 
     if (publicKey == null) {
       ctx.response().setStatusCode(404).end();
+      return;
     }
 
+    ctx.response()
+      .setStatusCode(200)
+      .putHeader("Content-Type", "application/json")
+      .end(buildJwks(publicKey).encode());
+  }
+
+  public static JsonObject buildJwks(RSAPublicKey publicKey) {
     JsonObject jwk = new JsonObject();
     jwk.put("kty", publicKey.getAlgorithm()); // getAlgorithm() returns kty not algorithm
     jwk.put("kid", JWT_KID);
@@ -39,11 +46,6 @@ public class JwksHandler {
     jwk.put("use", "sig");
 
     JsonArray keys = new JsonArray().add(jwk);
-    JsonObject jwks = new JsonObject().put("keys", keys);
-
-    ctx.response()
-      .setStatusCode(200)
-      .putHeader("Content-Type", "application/json")
-      .end(jwks.encode());
+    return new JsonObject().put("keys", keys);
   }
-}
\ No newline at end of file
+}
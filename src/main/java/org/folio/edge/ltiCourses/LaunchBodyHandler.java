@@ -0,0 +1,111 @@
+package org.folio.edge.ltiCourses;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.ext.web.RoutingContext;
+
+/**
+ * Reads the body of an LTI launch, which is a small url-encoded form (id_token and state), into the request's form
+ * attributes. Unlike Vert.x's BodyHandler the body is never buffered as a whole: the form is decoded as it arrives,
+ * and bodies that aren't a form, or that are larger than {@link #bodyLimit}, are rejected as soon as that is known,
+ * by their headers if possible.
+ *
+ * The body is decoded as it arrives, so none of it may have been read before this handler runs: routes pause the
+ * request with {@link #holdBody(RoutingContext)} before anything else. A request that has ended anyway has lost its
+ * form, and is answered with 400 rather than passed on without one.
+ *
+ * Launches are answered with 415 if the body isn't a form, 413 if it's too large and 400 if it can't be decoded.
+ */
+public class LaunchBodyHandler implements Handler<RoutingContext> {
+  private static final Logger logger = LogManager.getLogger(LaunchBodyHandler.class);
+
+  private static final String FORM_CONTENT_TYPE = "application/x-www-form-urlencoded";
+
+  protected final long bodyLimit;
+
+  /**
+   * @param bodyLimit
+   *          how many bytes a launch body may have at most
+   */
+  public LaunchBodyHandler(long bodyLimit) {
+    this.bodyLimit = bodyLimit;
+  }
+
+  /**
+   * Pauses the request, so that its body waits for this handler however long the handlers before it take, and passes
+   * it on.
+   */
+  public static void holdBody(RoutingContext ctx) {
+    ctx.request().pause();
+    ctx.next();
+  }
+
+  @Override
+  public void handle(RoutingContext ctx) {
+    final HttpServerRequest request = ctx.request();
+
+    final String contentType = request.getHeader(HttpHeaders.CONTENT_TYPE);
+    if (contentType == null || !contentType.toLowerCase().startsWith(FORM_CONTENT_TYPE)) {
+      reject(ctx, 415, "Launches must be sent as " + FORM_CONTENT_TYPE);
+      return;
+    }
+
+    final String contentLength = request.getHeader(HttpHeaders.CONTENT_LENGTH);
+    if (contentLength != null) {
+      try {
+        if (Long.parseLong(contentLength) > bodyLimit) {
+          reject(ctx, 413, "Launch body is larger than " + bodyLimit + " bytes");
+          return;
+        }
+      } catch (NumberFormatException e) {
+        reject(ctx, 400, "Invalid Content-Length");
+        return;
+      }
+    }
+
+    if (request.isEnded()) {
+      if (request.formAttributes().isEmpty()) {
+        reject(ctx, 400, "Launch body was read before it could be decoded");
+      } else {
+        ctx.next();
+      }
+      return;
+    }
+
+    // Chunked bodies don't say how large they are, so every body is also counted as it arrives.
+    final long[] received = { 0 };
+    request.setExpectMultipart(true);
+    request.handler(chunk -> {
+      received[0] += chunk.length();
+      if (received[0] > bodyLimit && !ctx.response().ended()) {
+        reject(ctx, 413, "Launch body is larger than " + bodyLimit + " bytes");
+      }
+    });
+    request.exceptionHandler(t -> {
+      if (!ctx.response().ended()) {
+        logger.warn("Failed to decode launch body: " + t.getMessage());
+        reject(ctx, 400, "Launch body is not a valid form");
+      }
+    });
+    request.endHandler(v -> {
+      if (!ctx.response().ended()) {
+        ctx.next();
+      }
+    });
+    request.resume();
+  }
+
+  /**
+   * Answers right away and closes the connection, so that the rest of the body is never read.
+   */
+  protected void reject(RoutingContext ctx, int statusCode, String message) {
+    ctx.response()
+      .setStatusCode(statusCode)
+      .putHeader(HttpHeaders.CONNECTION, "close")
+      .end(message);
+  }
+}
@@ -2,26 +2,48 @@ package org.folio.edge.ltiCourses;
 
 import java.net.URL;
 import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import org.folio.edge.core.ApiKeyHelper;
 import org.folio.edge.core.security.SecureStore;
+import org.folio.edge.core.utils.OkapiClient;
 import org.folio.edge.core.utils.OkapiClientFactory;
+import org.folio.edge.ltiCourses.cache.BoxMetadataCache;
+import org.folio.edge.ltiCourses.cache.LaunchResultCache;
 import org.folio.edge.ltiCourses.cache.OidcStateCache;
+import org.folio.edge.ltiCourses.model.BoxFileMetadata;
 import org.folio.edge.ltiCourses.model.Course;
 import org.folio.edge.ltiCourses.model.LtiPlatform;
+import org.folio.edge.ltiCourses.utils.AdmissionControl;
+import org.folio.edge.ltiCourses.utils.BlockingExecutor;
+import org.folio.edge.ltiCourses.utils.BoxApiClient;
+import org.folio.edge.ltiCourses.utils.IdTokenPrecheck;
+import org.folio.edge.ltiCourses.utils.JfrEvents;
+import org.folio.edge.ltiCourses.utils.LaunchSessions;
 import org.folio.edge.ltiCourses.utils.LtiContextClaim;
 import org.folio.edge.ltiCourses.utils.LtiCoursesOkapiClient;
+import org.folio.edge.ltiCourses.utils.Metrics;
+import org.folio.edge.ltiCourses.utils.Span;
+import org.folio.edge.ltiCourses.utils.StageTimer;
+import org.folio.edge.ltiCourses.utils.TenantScheduler;
+import org.folio.edge.ltiCourses.utils.Tracing;
 
 import static org.folio.edge.ltiCourses.Constants.LTI_MESSAGE_TYPE_RESOURCE_LINK_REQUEST;
 
-import com.auth0.jwk.Jwk;
 import com.auth0.jwk.JwkProvider;
 import com.auth0.jwk.UrlJwkProvider;
 import com.auth0.jwt.JWT;
@@ -30,8 +52,16 @@ import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.*;
 import com.auth0.jwt.interfaces.DecodedJWT;
 
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Promise;
+import io.vertx.core.http.Cookie;
+import io.vertx.core.http.CookieSameSite;
+import io.vertx.core.http.HttpServerResponse;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.SocketAddress;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.templ.pug.PugTemplateEngine;
 
@@ -40,22 +70,62 @@ public class LtiCoursesHandler extends org.folio.edge.core.Handler {
   protected PugTemplateEngine pugTemplateEngine;
   protected String toolPublicKey;
   protected Boolean ignoreOIDCState;
+  protected BoxApiClient box;
+  protected long boxPrefetchTimeout;
+  protected BlockingExecutor jwksExecutor;
+  protected int jwksTimeout;
+  protected IdTokenPrecheck idTokenPrecheck;
+  protected AdmissionControl admissionControl;
+  protected TenantScheduler tenantScheduler;
+  protected LaunchResultCache launchResults;
+  protected LaunchSessions launchSessions;
+
+  // The promise of the response to a launch that identical launches wait for, see LaunchResultCache.
+  protected static final String LAUNCH_RESULT_KEY = "launchResult";
+  protected static final String SESSION_COOKIE_KEY = "sessionCookie";
 
   private static final Logger logger = LogManager.getLogger(LtiCoursesHandler.class);
 
+  private static final int BOX_PREFETCH_PARALLELISM = 8;
+
   public LtiCoursesHandler(
     SecureStore secureStore,
     OkapiClientFactory ocf,
     ApiKeyHelper apiKeyHelper,
     RSAPrivateKey privateKey,
     PugTemplateEngine pugTemplateEngine,
-    Boolean ignoreOIDCState
+    Boolean ignoreOIDCState,
+    BoxApiClient box,
+    long boxPrefetchTimeout,
+    BlockingExecutor jwksExecutor,
+    int jwksTimeout,
+    IdTokenPrecheck idTokenPrecheck,
+    AdmissionControl admissionControl,
+    TenantScheduler tenantScheduler,
+    LaunchResultCache launchResults,
+    LaunchSessions launchSessions
   ) {
     super(secureStore, ocf, apiKeyHelper);
 
     this.privateKey = privateKey;
     this.pugTemplateEngine = pugTemplateEngine;
     this.ignoreOIDCState = ignoreOIDCState;
+    this.box = box;
+    this.boxPrefetchTimeout = boxPrefetchTimeout;
+    this.jwksExecutor = jwksExecutor;
+    this.jwksTimeout = jwksTimeout;
+    this.idTokenPrecheck = idTokenPrecheck;
+    this.admissionControl = admissionControl;
+    this.tenantScheduler = tenantScheduler;
+    this.launchResults = launchResults;
+    this.launchSessions = launchSessions;
+  }
+
+  /**
+   * @return the client that a request's calls to Okapi are made with
+   */
+  protected LtiCoursesOkapiClient newOkapiClient(OkapiClient client) {
+    return new LtiCoursesOkapiClient(client, tenantScheduler);
   }
 
   protected void handleCommonLTI(
@@ -65,6 +135,11 @@ public class LtiCoursesHandler extends org.folio.edge.core.Handler {
     String issuer,
     ThreeParamVoidFunction<LtiCoursesOkapiClient, Map<String, String>, LtiPlatform> action
   ) {
+    Span span = Tracing.startRequestSpan(ctx, handlerName(ctx));
+    if (span != null) {
+      span.setAttribute("lti.issuer", issuer);
+    }
+
     handleCommon(
       ctx,
       requiredParams,
@@ -75,11 +150,20 @@ public class LtiCoursesHandler extends org.folio.edge.core.Handler {
           return;
         }
 
-        LtiCoursesOkapiClient coursesOkapiClient = new LtiCoursesOkapiClient(client);
+        LtiCoursesOkapiClient coursesOkapiClient = newOkapiClient(client);
+        ctx.put(StageTimer.TENANT_KEY, coursesOkapiClient.getTenant());
+        if (span != null) {
+          span.setAttribute("tenant", coursesOkapiClient.getTenant());
+        }
+
+        StageTimer timer = StageTimer.start(ctx, handlerName(ctx), "platform_lookup");
+        coursesOkapiClient.setTraceparent(timer.traceparent());
         coursesOkapiClient.getPlatform(
           issuer,
           response -> {
+            Metrics.recordUpstreamResponseSize("configurations", coursesOkapiClient.getTenant(), LtiCoursesOkapiClient.bodySize(response));
             if (response.statusCode() != 200) {
+              timer.stop(StageTimer.FAILURE);
               logger.error(response.statusCode() + ": " + response.statusMessage());
               ctx.response().setStatusCode(response.statusCode()).end(response.statusMessage());
               return;
@@ -87,9 +171,11 @@ public class LtiCoursesHandler extends org.folio.edge.core.Handler {
 
             LtiPlatform platform = new LtiPlatform(response.bodyAsJsonObject());
             if (!platform.issuer.equals(issuer)) {
+              timer.stop(StageTimer.FAILURE);
               renderBadRequest(ctx, "No LTI Platform is known for this request's issuer.");
               return;
             }
+            timer.stop(StageTimer.SUCCESS);
 
             ctx.put("platform", platform);
 
@@ -99,12 +185,28 @@ public class LtiCoursesHandler extends org.folio.edge.core.Handler {
               platform
             );
           },
-          t -> handleProxyException(ctx, t)
+          t -> {
+            timer.stop(StageTimer.ERROR);
+            handleProxyException(ctx, t);
+          }
         );
       }
     );
   }
 
+  /**
+   * Stage metrics are labelled with the route they were recorded for, ie, "oidc-login-init" or one of the launches.
+   */
+  protected static String handlerName(RoutingContext ctx) {
+    String path = ctx.currentRoute() == null ? null : ctx.currentRoute().getPath();
+    if (path == null) {
+      return "unknown";
+    }
+
+    path = path.replace("/lti-courses/", "");
+    return path.contains("/") ? path.substring(0, path.indexOf("/")) : path;
+  }
+
   protected void getCourse(
     RoutingContext ctx,
     LtiCoursesOkapiClient client,
@@ -126,11 +228,30 @@ public class LtiCoursesHandler extends org.folio.edge.core.Handler {
       return;
     }
 
+    findCourse(ctx, client, platform, query, action);
+  }
+
+  /**
+   * Looks up the first course that the query finds, with its reserves, and renders that there are no reserves if there
+   * isn't one.
+   */
+  protected void findCourse(
+    RoutingContext ctx,
+    LtiCoursesOkapiClient client,
+    LtiPlatform platform,
+    String query,
+    OneParamVoidFunction<Course> action
+  ) {
+    StageTimer courseSearchTimer = StageTimer.start(ctx, handlerName(ctx), "course_search");
+    client.setTraceparent(courseSearchTimer.traceparent());
     client.getCourse(query, courseResp -> {
+      Metrics.recordUpstreamResponseSize("courses", client.getTenant(), LtiCoursesOkapiClient.bodySize(courseResp));
       if (courseResp.statusCode() != 200) {
+        courseSearchTimer.stop(StageTimer.FAILURE);
         internalServerError(ctx, "Folio had an internal server error: " + courseResp.statusCode());
         return;
       }
+      courseSearchTimer.stop(StageTimer.SUCCESS);
 
       JsonObject courseJson;
       try {
@@ -151,35 +272,82 @@ public class LtiCoursesHandler extends org.folio.edge.core.Handler {
         return;
       }
 
-      course.setSearchUrl(platform.searchUrl);
-      if (platform.boxDirectDownload) {
-        course.enableBoxDirectDownload();
-      }
+      getCourseReserves(ctx, client, platform, course, action);
+    }, t -> {
+      courseSearchTimer.stop(StageTimer.ERROR);
+      handleProxyException(ctx, t);
+    });
+  }
 
-      client.getCourseReserves(
-        course.courseListingId,
-        reservesResp -> {
-          if (reservesResp.statusCode() != 200) {
-            renderBadRequest(ctx, reservesResp.statusMessage());
-            return;
-          }
+  protected void getCourseReserves(
+    RoutingContext ctx,
+    LtiCoursesOkapiClient client,
+    LtiPlatform platform,
+    Course course,
+    OneParamVoidFunction<Course> action
+  ) {
+    course.setSearchUrl(platform.searchUrl);
+    // Box links can only be rewritten if this module has been given access to Box.
+    if (platform.boxDirectDownload && box != null) {
+      course.enableBoxDirectDownload();
+    }
+    if (platform.boxDownloadRedirect) {
+      course.enableBoxDownloadRedirect();
+    }
 
-          course.setReserves(reservesResp.bodyAsString());
-          action.apply(course);
-        },
-        t -> handleProxyException(ctx, t)
-      );
-    }, t -> handleProxyException(ctx, t));
+    StageTimer reservesFetchTimer = StageTimer.start(ctx, handlerName(ctx), "reserves_fetch");
+    client.setTraceparent(reservesFetchTimer.traceparent());
+    client.getCourseReserves(
+      course.courseListingId,
+      reservesResp -> {
+        Metrics.recordUpstreamResponseSize("reserves", client.getTenant(), LtiCoursesOkapiClient.bodySize(reservesResp));
+        if (reservesResp.statusCode() != 200) {
+          reservesFetchTimer.stop(StageTimer.FAILURE);
+          renderBadRequest(ctx, reservesResp.statusMessage());
+          return;
+        }
+        reservesFetchTimer.stop(StageTimer.SUCCESS);
+
+        StageTimer parseTimer = StageTimer.start(ctx, handlerName(ctx), "parse");
+        course.setReserves(reservesResp.bodyAsString());
+        parseTimer.stop(StageTimer.SUCCESS);
+
+        action.apply(course);
+      },
+      t -> {
+        reservesFetchTimer.stop(StageTimer.ERROR);
+        handleProxyException(ctx, t);
+      }
+    );
   }
 
   protected void handleLaunch(RoutingContext ctx, String courseIdType) {
+    ctx.put(StageTimer.COURSE_ID_TYPE_KEY, courseIdType);
+    // Started here rather than in handleCommonLTI, which carries it on, so that the precheck is traced too.
+    Tracing.startRequestSpan(ctx, handlerName(ctx));
+
     String id_token = ctx.request().formAttributes().get("id_token");
     if (id_token == null || id_token.isEmpty()) {
       renderBadRequest(ctx, "id_token is required and was not found");
       return;
     }
 
-    final DecodedJWT jwt = JWT.decode(id_token);
+    // Turn away tokens that can't verify before asking anyone about them.
+    StageTimer precheckTimer = StageTimer.start(ctx, handlerName(ctx), "precheck");
+    IdTokenPrecheck.Result precheck = idTokenPrecheck.check(id_token);
+    if (!precheck.passed()) {
+      precheckTimer.stop(StageTimer.FAILURE);
+      logger.warn("Rejected launch with id_token that is " + precheck.reason);
+      renderBadRequest(ctx, precheck.message);
+      return;
+    }
+    precheckTimer.stop(StageTimer.SUCCESS);
+
+    final DecodedJWT jwt = precheck.jwt;
+
+    if (joinIdenticalLaunch(ctx, id_token)) {
+      return;
+    }
 
     handleCommonLTI(
       ctx,
@@ -187,73 +355,162 @@ public class LtiCoursesHandler extends org.folio.edge.core.Handler {
       new String[] {},
       jwt.getIssuer(),
       (client, params, platform) -> {
-        // Fetch the JWK so we can validate it.
-        RSAPublicKey platformPublicKey;
-        try {
-          JwkProvider jwkProvider = new UrlJwkProvider(new URL(platform.jwksUrl));
-          Jwk jwk = jwkProvider.get(jwt.getKeyId());
-          platformPublicKey = (RSAPublicKey) jwk.getPublicKey();
-        } catch (Exception e) {
-          renderBadRequest(ctx, "Failed to fetch Platform's JWKS: " + e.getLocalizedMessage());
-          return;
-        }
-
-        // Validate the JWT
-        Algorithm algorithm = Algorithm.RSA256(platformPublicKey, null);
-        try {
-          JWTVerifier verifier = JWT.require(algorithm)
-            .withIssuer(platform.issuer)
-            .withAudience(platform.clientId)
-            .build();
-
-          verifier.verify(jwt);
-        } catch (AlgorithmMismatchException e) {
-          renderBadRequest(ctx, "The JWT was signed with an invalid algorithm");
-          return;
-        } catch (SignatureVerificationException e) {
-          renderBadRequest(ctx, "The JWT was signed with a key that doesn't correspond to the LTI Platform's public key");
-          return;
-        } catch (TokenExpiredException e) {
-          renderBadRequest(ctx, "The JWT has expired");
-          return;
-        } catch (InvalidClaimException e) {
-          renderBadRequest(ctx, "The JWT contains invalid claims");
-          return;
-        } catch (JWTVerificationException e) {
-          renderBadRequest(ctx, "The JWT failed verification");
-          return;
-        }
-
-        if (ignoreOIDCState != true) {
-          String nonce = jwt.getClaim("nonce").asString();
-          if (nonce == null || nonce.isEmpty()) {
-            renderBadRequest(ctx, "Nonce is missing from request");
+        // Fetch the JWK so we can validate it. UrlJwkProvider blocks on the network, so it runs on the JWKS executor
+        // and the launch carries on once the key has arrived.
+        StageTimer jwksTimer = StageTimer.start(ctx, handlerName(ctx), "jwks_fetch");
+        jwksExecutor.execute(() -> {
+          JwkProvider jwkProvider = new UrlJwkProvider(new URL(platform.jwksUrl), jwksTimeout, jwksTimeout);
+          return JfrEvents.blocking("jwks_fetch", platform.jwksUrl, () -> jwkProvider.get(jwt.getKeyId()));
+        }).onComplete(ar -> {
+          RSAPublicKey platformPublicKey;
+          try {
+            if (ar.failed()) {
+              throw ar.cause();
+            }
+            platformPublicKey = (RSAPublicKey) ar.result().getPublicKey();
+            jwksTimer.stop(StageTimer.SUCCESS);
+          } catch (Throwable e) {
+            jwksTimer.stop(StageTimer.ERROR);
+            renderBadRequest(ctx, "Failed to fetch Platform's JWKS: " + e.getLocalizedMessage());
             return;
           }
 
-          String memorizedState = OidcStateCache.getInstance().get(nonce);
-          String state = ctx.request().formAttributes().get("state");
-          if (memorizedState == null || !memorizedState.equals(state)) {
-            logger.error("Got new state of: " + state + " but expected: " + memorizedState);
-            renderBadRequest(ctx, "Nonce is invalid, states do not match");
-            return;
-          }
-        }
+          verifyLaunch(ctx, client, jwt, platform, courseIdType, platformPublicKey);
+        });
+      }
+    );
+  }
 
-        getCourse(ctx, client, jwt, platform, courseIdType,
-          course -> {
-            String message_type = jwt.getClaim("https://purl.imsglobal.org/spec/lti/claim/message_type").asString();
-            if (message_type.equals(LTI_MESSAGE_TYPE_RESOURCE_LINK_REQUEST)) {
-              renderResourceLink(ctx, jwt, course);
-            } else {
-              renderBadRequest(ctx, "Invalid message_type claim: " + message_type);
-            }
-          }
-        );
+  /**
+   * Answers a launch that was posted again with the response to the first one, waiting for it if need be.
+   *
+   * @return true if the launch has been answered, false if it's the first of its kind and has to be handled
+   */
+  protected boolean joinIdenticalLaunch(RoutingContext ctx, String idToken) {
+    if (launchResults == null) {
+      return false;
+    }
+
+    final String key = LaunchResultCache.key(
+      ctx.request().path(), idToken, ctx.request().formAttributes().get("state"));
+    final Promise<LaunchResultCache.LaunchResult> promise = Promise.promise();
+    final Future<LaunchResultCache.LaunchResult> identical = launchResults.join(key, promise.future());
+
+    if (identical == null) {
+      ctx.put(LAUNCH_RESULT_KEY, promise);
+      // Responses that aren't pages still let the identical launches waiting on this one go.
+      ctx.addEndHandler(ar -> promise.tryComplete(
+        new LaunchResultCache.LaunchResult(ctx.response().getStatusCode(), null)));
+      return false;
+    }
+
+    Metrics.recordDuplicateLaunch();
+    logger.info("Answering duplicate launch with the response to the first one");
+    // The first launch may be handled on another event loop, so answer this one back on its own.
+    final Context context = ctx.vertx().getOrCreateContext();
+    identical.onComplete(ar -> context.runOnContext(v -> {
+      if (ar.failed()) {
+        loggedInternalServerError(ctx, "Failed to answer duplicate launch: " + ar.cause().getLocalizedMessage());
+      } else {
+        replayLaunchResult(ctx, ar.result());
+      }
+    }));
+    return true;
+  }
+
+  /**
+   * Sends the response to an identical launch again, with its headers and cookies, so that a duplicate gets the same
+   * session as the first.
+   */
+  protected void replayLaunchResult(RoutingContext ctx, LaunchResultCache.LaunchResult result) {
+    final HttpServerResponse response = ctx.response().setStatusCode(result.statusCode);
+    response.headers().addAll(result.headers);
+    result.cookies.forEach(response::addCookie);
+
+    if (result.html == null) {
+      response.end();
+    } else {
+      response.end(result.html);
+    }
+  }
+
+  protected void verifyLaunch(
+    RoutingContext ctx,
+    LtiCoursesOkapiClient client,
+    DecodedJWT jwt,
+    LtiPlatform platform,
+    String courseIdType,
+    RSAPublicKey platformPublicKey
+  ) {
+    // Validate the JWT
+    Algorithm algorithm = Algorithm.RSA256(platformPublicKey, null);
+    StageTimer verifyTimer = StageTimer.start(ctx, handlerName(ctx), "jwt_verify");
+    try {
+      JWTVerifier verifier = JWT.require(algorithm)
+        .withIssuer(platform.issuer)
+        .withAudience(platform.clientId)
+        .build();
+
+      verifier.verify(jwt);
+      verifyTimer.stop(StageTimer.SUCCESS);
+    } catch (JWTVerificationException e) {
+      verifyTimer.stop(StageTimer.FAILURE);
+      renderJwtVerificationFailure(ctx, e);
+      return;
+    }
+
+    // Only now is the issuer known to have sent the launch, so only now is it charged. It's charged before the nonce
+    // is used up, so that a launch turned away here can be posted again.
+    AdmissionControl.Rejection rejection = admissionControl.takeIssuer(ctx.pathParam("apiKeyPath"), platform.issuer);
+    if (rejection != null) {
+      renderRejection(ctx, "launch", rejection);
+      return;
+    }
+
+    if (ignoreOIDCState != true) {
+      String nonce = jwt.getClaim("nonce").asString();
+      if (nonce == null || nonce.isEmpty()) {
+        renderBadRequest(ctx, "Nonce is missing from request");
+        return;
+      }
+
+      // The nonce is used up here, so it can't be replayed; identical launches posted again were answered above.
+      String memorizedState = OidcStateCache.getInstance().remove(nonce);
+      String state = ctx.request().formAttributes().get("state");
+      if (memorizedState == null || !memorizedState.equals(state)) {
+        logger.error("Got new state of: " + state + " but expected: " + memorizedState);
+        renderBadRequest(ctx, "Nonce is invalid, states do not match");
+        return;
+      }
+    }
+
+    getCourse(ctx, client, jwt, platform, courseIdType,
+      course -> {
+        String message_type = jwt.getClaim("https://purl.imsglobal.org/spec/lti/claim/message_type").asString();
+        if (message_type.equals(LTI_MESSAGE_TYPE_RESOURCE_LINK_REQUEST)) {
+          startSession(ctx, client.getTenant(), platform, course);
+          renderResourceLink(ctx, jwt, course);
+        } else {
+          renderBadRequest(ctx, "Invalid message_type claim: " + message_type);
+        }
       }
     );
   }
 
+  protected void renderJwtVerificationFailure(RoutingContext ctx, JWTVerificationException e) {
+    if (e instanceof AlgorithmMismatchException) {
+      renderBadRequest(ctx, "The JWT was signed with an invalid algorithm");
+    } else if (e instanceof SignatureVerificationException) {
+      renderBadRequest(ctx, "The JWT was signed with a key that doesn't correspond to the LTI Platform's public key");
+    } else if (e instanceof TokenExpiredException) {
+      renderBadRequest(ctx, "The JWT has expired");
+    } else if (e instanceof InvalidClaimException) {
+      renderBadRequest(ctx, "The JWT contains invalid claims");
+    } else {
+      renderBadRequest(ctx, "The JWT failed verification");
+    }
+  }
+
   protected void handleOidcLoginInit(RoutingContext ctx) {
     handleCommonLTI(
       ctx,
@@ -305,6 +562,167 @@ public class LtiCoursesHandler extends org.folio.edge.core.Handler {
     );
   }
 
+  /**
+   * Turns logins away before anything is done for them if the node is overloaded, or if their client address or API key
+   * has made too many requests lately. Nothing in a login is verified, so its issuer isn't charged: anyone could claim
+   * to be a platform and use up its limit.
+   */
+  protected void admitLogin(RoutingContext ctx) {
+    AdmissionControl.Rejection rejection = admissionControl.checkLoad();
+    if (rejection == null) {
+      rejection = admissionControl.takeClient(clientAddress(ctx));
+    }
+    if (rejection == null) {
+      rejection = admissionControl.takeApiKey(ctx.pathParam("apiKeyPath"));
+    }
+
+    if (rejection != null) {
+      renderRejection(ctx, "login", rejection);
+      return;
+    }
+    ctx.next();
+  }
+
+  /**
+   * Turns launches away before their body is read if the node is overloaded, if too many launches are in flight, or if
+   * their client address or API key has made too many requests lately. Their issuer is only known once the id_token
+   * has been verified, so its limit is applied in {@link #verifyLaunch}.
+   */
+  protected void admitLaunch(RoutingContext ctx) {
+    AdmissionControl.Rejection rejection = admissionControl.checkLoad();
+    if (rejection == null) {
+      rejection = admissionControl.takeClient(clientAddress(ctx));
+    }
+    if (rejection == null) {
+      rejection = admissionControl.takeApiKey(ctx.pathParam("apiKeyPath"));
+    }
+    if (rejection == null) {
+      rejection = admissionControl.enter();
+      if (rejection == null) {
+        ctx.addEndHandler(ar -> admissionControl.exit());
+      }
+    }
+
+    if (rejection != null) {
+      // The body was held for LaunchBodyHandler. Letting it drain keeps the connection usable for the next request.
+      ctx.request().resume();
+      renderRejection(ctx, "launch", rejection);
+      return;
+    }
+    ctx.next();
+  }
+
+  /**
+   * @return the host the request came from, or null if it isn't known
+   */
+  protected static String clientAddress(RoutingContext ctx) {
+    final SocketAddress address = ctx.request().remoteAddress();
+    return address == null ? null : address.host();
+  }
+
+  /**
+   * Gives the iframe a session cookie after a verified launch, so that it can show the course's reserves again from
+   * {@link #handleSessionReserves(RoutingContext)} without another launch. It's SameSite=None because the iframe is on
+   * the LMS's site, not ours, which also means it's only ever sent over HTTPS.
+   */
+  protected void startSession(RoutingContext ctx, String tenant, LtiPlatform platform, Course course) {
+    if (launchSessions == null) {
+      return;
+    }
+
+    final String session = launchSessions.issue(tenant, platform.issuer, course.getId(), Clock.systemUTC());
+    launchSessions.putPlatform(tenant, platform);
+    final Cookie cookie = Cookie.cookie(LaunchSessions.COOKIE_NAME, session)
+      .setPath(sessionCookiePath(ctx.request().path()))
+      .setMaxAge(launchSessions.getMaxAge())
+      .setHttpOnly(true)
+      .setSecure(true)
+      .setSameSite(CookieSameSite.NONE);
+    ctx.response().addCookie(cookie);
+    // For the launch result, see htmlResponse().
+    ctx.put(SESSION_COOKIE_KEY, cookie);
+  }
+
+  /**
+   * @param launchPath
+   *          the path the launch was posted to, eg: /lti-courses/launches/apiKey
+   * @return the path of the session's pages, eg: /lti-courses/reserves/, which the reload link resolves to relative to
+   *         the launch, so that the cookie is only sent there
+   */
+  protected static String sessionCookiePath(String launchPath) {
+    final int apiKeyStart = launchPath.lastIndexOf('/');
+    final int routeStart = apiKeyStart > 0 ? launchPath.lastIndexOf('/', apiKeyStart - 1) : -1;
+    return routeStart < 0 ? "/" : launchPath.substring(0, routeStart + 1) + "reserves/";
+  }
+
+  /**
+   * Shows the reserves of the course that the session cookie was given out for. The session was only given out after a
+   * verified launch, so there's no id_token to verify and, when the launch was verified by this node, no platform to
+   * look up either, see {@link LaunchSessions#getPlatform(String, String)}. The course and its reserves are looked up
+   * again, so they're as current as after a launch.
+   */
+  protected void handleSessionReserves(RoutingContext ctx) {
+    final Cookie cookie = ctx.request().getCookie(LaunchSessions.COOKIE_NAME);
+    final LaunchSessions.Session session = cookie == null || launchSessions == null
+      ? null
+      : launchSessions.verify(cookie.getValue(), Clock.systemUTC());
+    if (session == null) {
+      renderError(ctx, 401, "Your session has expired, please open this page from your course again.");
+      return;
+    }
+
+    final LtiPlatform platform = launchSessions.getPlatform(session.tenant, session.issuer);
+    if (platform == null) {
+      // Launched through another node, which is the only one that knows the platform.
+      handleCommonLTI(
+        ctx,
+        new String[] {},
+        new String[] {},
+        session.issuer,
+        (client, params, lookedUp) -> showSessionReserves(ctx, client, session, lookedUp)
+      );
+      return;
+    }
+
+    Span span = Tracing.startRequestSpan(ctx, handlerName(ctx));
+    if (span != null) {
+      span.setAttribute("lti.issuer", session.issuer);
+    }
+
+    handleCommon(
+      ctx,
+      new String[] {},
+      new String[] {},
+      (client, params) -> {
+        LtiCoursesOkapiClient coursesOkapiClient = newOkapiClient(client);
+        ctx.put(StageTimer.TENANT_KEY, coursesOkapiClient.getTenant());
+        if (span != null) {
+          span.setAttribute("tenant", coursesOkapiClient.getTenant());
+        }
+
+        ctx.put("platform", platform);
+        showSessionReserves(ctx, coursesOkapiClient, session, platform);
+      }
+    );
+  }
+
+  protected void showSessionReserves(
+    RoutingContext ctx,
+    LtiCoursesOkapiClient client,
+    LaunchSessions.Session session,
+    LtiPlatform platform
+  ) {
+    // Sessions are only good for the tenant that they were given out for.
+    if (!client.getTenant().equals(session.tenant)) {
+      renderError(ctx, 401, "Your session has expired, please open this page from your course again.");
+      return;
+    }
+
+    final String query = "query=%28id%3D%3D%22" + URLEncoder.encode(session.courseId, StandardCharsets.UTF_8)
+      + "%22%29";
+    findCourse(ctx, client, platform, query, course -> renderResourceLink(ctx, null, course));
+  }
+
   protected void handleRequest(RoutingContext ctx) {
     handleLaunch(ctx, "courseNumber");
   }
@@ -318,19 +736,134 @@ public class LtiCoursesHandler extends org.folio.edge.core.Handler {
   }
 
   protected void renderResourceLink(RoutingContext ctx, DecodedJWT jwt, Course course) {
+    StageTimer currentReservesTimer = StageTimer.start(ctx, handlerName(ctx), "current_reserves");
     JsonArray reserves = course.getCurrentReserves();
+    currentReservesTimer.stop(StageTimer.SUCCESS);
     if (reserves.size() == 0) {
       renderNoReserves(ctx);
       return;
     }
 
-    JsonObject model = new JsonObject()
-      .put("reserves", reserves)
-      .put("platform", ((LtiPlatform) ctx.get("platform")).asJsonObject());
+    StageTimer boxTimer = StageTimer.start(ctx, handlerName(ctx), "box_prefetch");
+    expandBoxFolders(ctx, course, reserves)
+      .compose(expanded -> prefetchBoxMetadata(ctx, expanded).map(expanded))
+      .compose(expanded -> {
+        boxTimer.stop(StageTimer.SUCCESS);
+        addBoxMetadata(expanded);
+
+        JsonObject model = new JsonObject()
+          .put("reserves", expanded)
+          .put("platform", ((LtiPlatform) ctx.get("platform")).asJsonObject());
+        if (launchSessions != null) {
+          // Relative to both the launch and the session's own page, so it works whatever this module is mounted under.
+          model.put("reloadUrl", "../reserves/" + ctx.pathParam("apiKeyPath"));
+        }
+
+        StageTimer renderTimer = StageTimer.start(ctx, handlerName(ctx), "render");
+        return pugTemplateEngine.render(model, "templates/ResourceLinkResponse")
+          .andThen(ar -> renderTimer.stop(ar.succeeded() ? StageTimer.SUCCESS : StageTimer.ERROR));
+      })
+      .onSuccess(html -> htmlResponse(ctx, html.toString()))
+      .onFailure(cause -> loggedInternalServerError(ctx, "Failed to render resource link: " + cause));
+  }
+
+  /**
+   * Lists all the Box folders in the list concurrently and replaces them with their files. Like the metadata
+   * prefetch, this gives up waiting after the configured timeout; folders listed late keep their original link.
+   */
+  protected Future<JsonArray> expandBoxFolders(RoutingContext ctx, Course course, JsonArray reserves) {
+    if (box == null) {
+      return Future.succeededFuture(reserves);
+    }
+
+    Set<String> boxFolderIds = new LinkedHashSet<>();
+    for (int i = 0; i < reserves.size(); i++) {
+      String boxFolderId = reserves.getJsonObject(i).getString("boxFolderId");
+      if (boxFolderId != null) {
+        boxFolderIds.add(boxFolderId);
+      }
+    }
+
+    if (boxFolderIds.isEmpty()) {
+      return Future.succeededFuture(reserves);
+    }
+
+    Map<String, Future<List<BoxFileMetadata>>> listings = new HashMap<>();
+    for (String boxFolderId : boxFolderIds) {
+      listings.put(boxFolderId, box.getFolderFiles(boxFolderId)
+        .onFailure(cause -> logger.warn("Failed to list Box folder " + boxFolderId + ": " + cause.getMessage())));
+    }
+
+    Promise<Void> listed = Promise.promise();
+    long timer = ctx.vertx().setTimer(boxPrefetchTimeout, id -> {
+      logger.warn("Timed out listing " + boxFolderIds.size() + " Box folders");
+      listed.tryComplete();
+    });
+
+    Future.join(new ArrayList<>(listings.values())).onComplete(ar -> {
+      ctx.vertx().cancelTimer(timer);
+      listed.tryComplete();
+    });
+
+    return listed.future().map(v -> {
+      Map<String, List<BoxFileMetadata>> folders = new HashMap<>();
+      listings.forEach((boxFolderId, files) -> {
+        if (files.succeeded()) {
+          folders.put(boxFolderId, files.result());
+        }
+      });
+      return course.expandBoxFolders(reserves, folders, Clock.systemUTC());
+    });
+  }
+
+  /**
+   * Fetches the metadata of all the Box files in the list concurrently, but gives up waiting after the configured
+   * timeout; anything fetched late is still cached for the downloads that follow.
+   */
+  protected Future<Void> prefetchBoxMetadata(RoutingContext ctx, JsonArray reserves) {
+    if (box == null) {
+      return Future.succeededFuture();
+    }
 
-    pugTemplateEngine.render(model, "templates/ResourceLinkResponse")
-        .onSuccess(html -> htmlResponse(ctx, html.toString()))
-        .onFailure(cause -> loggedInternalServerError(ctx, "Failed to render resource link: " + cause));
+    List<String> boxFileIds = new ArrayList<>();
+    for (int i = 0; i < reserves.size(); i++) {
+      String boxFileId = reserves.getJsonObject(i).getString("boxFileId");
+      if (boxFileId != null) {
+        boxFileIds.add(boxFileId);
+      }
+    }
+
+    if (boxFileIds.isEmpty()) {
+      return Future.succeededFuture();
+    }
+
+    Promise<Void> prefetched = Promise.promise();
+    long timer = ctx.vertx().setTimer(boxPrefetchTimeout, id -> {
+      logger.warn("Timed out prefetching metadata of " + boxFileIds.size() + " Box files");
+      prefetched.tryComplete();
+    });
+
+    box.prefetchFileMetadata(boxFileIds, BOX_PREFETCH_PARALLELISM).onComplete(ar -> {
+      ctx.vertx().cancelTimer(timer);
+      prefetched.tryComplete();
+    });
+
+    return prefetched.future();
+  }
+
+  protected void addBoxMetadata(JsonArray reserves) {
+    if (!BoxMetadataCache.isInitialized()) {
+      return;
+    }
+
+    for (int i = 0; i < reserves.size(); i++) {
+      JsonObject reserve = reserves.getJsonObject(i);
+      String boxFileId = reserve.getString("boxFileId");
+      BoxFileMetadata metadata = boxFileId == null ? null : BoxMetadataCache.getInstance().get(boxFileId);
+      if (metadata != null) {
+        reserve.put("fileSize", metadata.getDisplaySize());
+      }
+    }
   }
 
 
@@ -344,6 +877,10 @@ public class LtiCoursesHandler extends org.folio.edge.core.Handler {
   }
 
   protected void renderBadRequest(RoutingContext ctx, String msg) {
+    renderError(ctx, 400, msg);
+  }
+
+  protected void renderError(RoutingContext ctx, int statusCode, String msg) {
     JsonObject model = new JsonObject().put("error", msg);
 
     LtiPlatform platform = ctx.get("platform");
@@ -354,13 +891,35 @@ public class LtiCoursesHandler extends org.folio.edge.core.Handler {
     logger.error(msg);
 
     pugTemplateEngine.render(model, "templates/Error")
-      .onSuccess(html -> htmlResponse(ctx, html.toString(), 400))
+      .onSuccess(html -> htmlResponse(ctx, html.toString(), statusCode))
       .onFailure(cause -> {
         logger.error("Failed to render Error template: " + cause.getLocalizedMessage());
-        badRequest(ctx, msg);
+        ctx.response().setStatusCode(statusCode).end(msg);
       });
   }
 
+  /**
+   * Calls that waited too long for their tenant's turn are answered with 503, so that clients back off and retry
+   * rather than treating it as a failure of the call itself.
+   */
+  @Override
+  protected void handleProxyException(RoutingContext ctx, Throwable t) {
+    if (t instanceof TenantScheduler.QueueTimeoutException) {
+      ctx.response().putHeader("Retry-After", "1");
+      renderError(ctx, 503, "The service is busy, please try again shortly.");
+      return;
+    }
+    super.handleProxyException(ctx, t);
+  }
+
+  protected void renderRejection(RoutingContext ctx, String route, AdmissionControl.Rejection rejection) {
+    Metrics.recordAdmissionRejection(route, rejection.reason);
+    logger.warn("Turned away " + route + " from " + ctx.request().remoteAddress() + ": " + rejection.reason);
+
+    ctx.response().putHeader("Retry-After", String.valueOf(rejection.retryAfter));
+    renderError(ctx, rejection.statusCode, rejection.message);
+  }
+
   protected void loggedInternalServerError(RoutingContext ctx, String msg) {
     logger.error(msg);
     internalServerError(ctx, msg);
@@ -371,17 +930,26 @@ public class LtiCoursesHandler extends org.folio.edge.core.Handler {
   }
 
   protected void htmlResponse(RoutingContext ctx, String html, int statusCode) {
-    ctx.response()
+    final HttpServerResponse response = ctx.response()
       .setStatusCode(statusCode)
-      .putHeader("content-type", "text/html;charset=UTF-8")
-      .end(html);
+      .putHeader("content-type", "text/html;charset=UTF-8");
+
+    final Promise<LaunchResultCache.LaunchResult> launchResult = ctx.get(LAUNCH_RESULT_KEY);
+    if (launchResult != null) {
+      final Cookie sessionCookie = ctx.get(SESSION_COOKIE_KEY);
+      launchResult.tryComplete(new LaunchResultCache.LaunchResult(statusCode, html,
+        MultiMap.caseInsensitiveMultiMap().addAll(response.headers()),
+        sessionCookie == null ? Collections.emptyList() : Collections.singletonList(sessionCookie)));
+    }
+
+    response.end(html);
   }
 
-  private String generateRandomString() {
+  public static String generateRandomString() {
     int leftLimit = 97; // 'a'
     int rightLimit = 122; // 'z'
 
-    return new Random().ints(leftLimit, rightLimit + 1)
+    return ThreadLocalRandom.current().ints(leftLimit, rightLimit + 1)
       .limit(20)
       .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append)
       .toString();
@@ -1,19 +1,69 @@
 package org.folio.edge.ltiCourses;
 
+import static org.folio.edge.ltiCourses.Constants.ADMIN_API_TOKEN;
+import static org.folio.edge.ltiCourses.Constants.BLOCKING_EXECUTION_MODE;
 import static org.folio.edge.ltiCourses.Constants.BOX_API_APP_TOKEN;
+import static org.folio.edge.ltiCourses.Constants.BOX_API_MAX_CONCURRENT;
+import static org.folio.edge.ltiCourses.Constants.BOX_API_MAX_PER_FILE;
+import static org.folio.edge.ltiCourses.Constants.BOX_API_QUEUE_TIMEOUT;
+import static org.folio.edge.ltiCourses.Constants.BOX_API_RATE;
+import static org.folio.edge.ltiCourses.Constants.BOX_API_TIMEOUT;
+import static org.folio.edge.ltiCourses.Constants.BOX_CONTENT_CACHE_DIR;
+import static org.folio.edge.ltiCourses.Constants.BOX_CONTENT_CACHE_SIZE;
+import static org.folio.edge.ltiCourses.Constants.BOX_FOLDER_TTL;
+import static org.folio.edge.ltiCourses.Constants.BOX_METADATA_TTL;
+import static org.folio.edge.ltiCourses.Constants.BOX_PREFETCH_TIMEOUT;
+import static org.folio.edge.ltiCourses.Constants.DOWNLOAD_TOKEN_SECRET;
 import static org.folio.edge.ltiCourses.Constants.DOWNLOAD_URL_TTL;
+import static org.folio.edge.ltiCourses.Constants.FAST_STARTUP;
+import static org.folio.edge.ltiCourses.Constants.ID_TOKEN_MAX_SIZE;
+import static org.folio.edge.ltiCourses.Constants.LTI_TOOL_GENERATED_KEY_DIR;
 import static org.folio.edge.ltiCourses.Constants.LTI_TOOL_PRIVATE_KEY_FILE;
 import static org.folio.edge.ltiCourses.Constants.LTI_TOOL_PUBLIC_KEY_FILE;
+import static org.folio.edge.ltiCourses.Constants.MAX_EVENT_LOOP_LAG;
+import static org.folio.edge.ltiCourses.Constants.MAX_LAUNCHES_IN_FLIGHT;
 import static org.folio.edge.ltiCourses.Constants.OIDC_TTL;
+import static org.folio.edge.ltiCourses.Constants.RATE_LIMIT_API_KEY;
+import static org.folio.edge.ltiCourses.Constants.RATE_LIMIT_API_KEY_BURST;
+import static org.folio.edge.ltiCourses.Constants.RATE_LIMIT_CLIENT;
+import static org.folio.edge.ltiCourses.Constants.RATE_LIMIT_CLIENT_BURST;
+import static org.folio.edge.ltiCourses.Constants.RATE_LIMIT_ISSUER;
+import static org.folio.edge.ltiCourses.Constants.RATE_LIMIT_ISSUER_BURST;
 import static org.folio.edge.ltiCourses.Constants.IGNORE_OIDC_STATE;
+import static org.folio.edge.ltiCourses.Constants.JFR_MAX_DURATION;
+import static org.folio.edge.ltiCourses.Constants.JFR_MAX_SIZE;
+import static org.folio.edge.ltiCourses.Constants.JWKS_MAX_CONCURRENT;
+import static org.folio.edge.ltiCourses.Constants.JWKS_TIMEOUT;
+import static org.folio.edge.ltiCourses.Constants.LAUNCH_BODY_LIMIT;
+import static org.folio.edge.ltiCourses.Constants.LAUNCH_DEDUP_TTL;
+import static org.folio.edge.ltiCourses.Constants.LAUNCH_SESSION_SECRET;
+import static org.folio.edge.ltiCourses.Constants.LAUNCH_SESSION_TTL;
+import static org.folio.edge.ltiCourses.Constants.LTI_KNOWN_ISSUERS;
+import static org.folio.edge.ltiCourses.Constants.TENANT_WEIGHTS;
+import static org.folio.edge.ltiCourses.Constants.TRACE_EXPORT_FILE;
+import static org.folio.edge.ltiCourses.Constants.TRACE_SAMPLING_RATE;
+import static org.folio.edge.ltiCourses.Constants.UPSTREAM_MAX_IN_FLIGHT;
+import static org.folio.edge.ltiCourses.Constants.UPSTREAM_MAX_PER_TENANT;
+import static org.folio.edge.ltiCourses.Constants.UPSTREAM_QUEUE_TIMEOUT;
+import static org.folio.edge.ltiCourses.Constants.WARMUP_LAUNCHES;
+import static org.folio.edge.ltiCourses.Constants.WARMUP_TIME_LIMIT;
 import static org.folio.edge.ltiCourses.utils.PemUtils.readPrivateKeyFromFile;
 import static org.folio.edge.ltiCourses.utils.PemUtils.readPublicKeyFromFile;
+import static org.folio.edge.ltiCourses.utils.PemUtils.writeKeyToFile;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.NoSuchAlgorithmException;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 import io.vertx.ext.web.templ.pug.PugTemplateEngine;
 import org.apache.logging.log4j.LogManager;
@@ -23,9 +73,35 @@ import org.folio.edge.core.ApiKeyHelper;
 import org.folio.edge.core.EdgeVerticleHttp;
 import org.folio.edge.core.utils.OkapiClientFactory;
 import org.folio.edge.core.utils.OkapiClientFactoryInitializer;
+import org.folio.edge.ltiCourses.cache.BoxContentCache;
 import org.folio.edge.ltiCourses.cache.BoxFileCache;
+import org.folio.edge.ltiCourses.cache.BoxFolderCache;
+import org.folio.edge.ltiCourses.cache.BoxMetadataCache;
+import org.folio.edge.ltiCourses.cache.LaunchResultCache;
 import org.folio.edge.ltiCourses.cache.OidcStateCache;
+import org.folio.edge.ltiCourses.utils.AdmissionControl;
+import org.folio.edge.ltiCourses.utils.BlockingExecutor;
+import org.folio.edge.ltiCourses.utils.BoxApiClient;
+import org.folio.edge.ltiCourses.utils.BoxApiScheduler;
+import org.folio.edge.ltiCourses.utils.BoxDownloadTokens;
+import org.folio.edge.ltiCourses.utils.HmacSigner;
+import org.folio.edge.ltiCourses.utils.IdTokenPrecheck;
+import org.folio.edge.ltiCourses.utils.LaunchSessions;
+import org.folio.edge.ltiCourses.utils.Metrics;
+import org.folio.edge.ltiCourses.utils.Readiness;
+import org.folio.edge.ltiCourses.utils.TenantScheduler;
+import org.folio.edge.ltiCourses.utils.Tracing;
+import org.folio.edge.ltiCourses.warmup.Warmup;
 
+import com.box.sdk.BoxAPIConnection;
+import com.box.sdk.BoxTransactionalAPIConnection;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.handler.BodyHandler;
@@ -35,28 +111,95 @@ public class MainVerticle extends EdgeVerticleHttp {
 
   private static final Logger logger = LogManager.getLogger(MainVerticle.class);
 
+  // Shared by every instance of this verticle deployed on the same Vert.x instance, see initializeShared().
+  private static Vertx sharedVertx = null;
+  private static Future<Void> sharedInitialized = null;
+  private static KeyPair toolKeyPair = null;
+  private static BoxAPIConnection boxApi = null;
+  private static BoxApiScheduler boxScheduler = null;
+  private static BlockingExecutor boxExecutor = null;
+  private static BlockingExecutor jwksExecutor = null;
+  private static AdmissionControl admissionControl = null;
+  private static TenantScheduler tenantScheduler = null;
+  private static LaunchResultCache launchResultCache = null;
+  private static LaunchSessions launchSessions = null;
+
+  // What startup is called while it keeps the module from being ready.
+  private static final String STARTUP = "startup";
+
   public MainVerticle() {
     super();
   }
 
+  /**
+   * Sets up the shared state, without blocking the event loop, before EdgeVerticleHttp loads the secure store, defines
+   * the routes and starts listening.
+   */
+  @Override
+  public void start(Promise<Void> promise) {
+    // Another instance may be setting the shared state up, in which case it completes on that instance's event loop.
+    final Context context = this.context;
+    initializeShared(vertx).onComplete(ar -> context.runOnContext(v -> {
+      if (ar.failed()) {
+        promise.fail(ar.cause());
+        return;
+      }
+
+      try {
+        super.start(promise);
+      } catch (Exception e) {
+        promise.tryFail(e);
+      }
+    }));
+  }
+
   // We don't currently use the tool keys because this module only supports Resource Links at the moment which
   // are not signed. Future development to add Deep Linking (or other parts of the LTI spec) would require
   // keys so this has been kept in for now.
-  final private KeyPair getToolKeyPair() {
+  private static KeyPair getToolKeyPair() {
     final String toolPrivateKeyFile = System.getProperty(LTI_TOOL_PRIVATE_KEY_FILE);
     final String toolPublicKeyFile = System.getProperty(LTI_TOOL_PUBLIC_KEY_FILE);
 
     if (toolPrivateKeyFile == null || toolPrivateKeyFile.isEmpty()) {
+      // Reuse the keys we generated last time, if we were asked to keep them.
+      final String generatedKeyDir = System.getProperty(LTI_TOOL_GENERATED_KEY_DIR, "");
+      final Path generatedPrivateKeyFile = Paths.get(generatedKeyDir, "tool-private-key.pem");
+      final Path generatedPublicKeyFile = Paths.get(generatedKeyDir, "tool-public-key.pem");
+      if (!generatedKeyDir.isEmpty() && Files.isRegularFile(generatedPrivateKeyFile)
+          && Files.isRegularFile(generatedPublicKeyFile)) {
+        try {
+          logger.info("Using our own LTI Tool RSA key pair generated before in: " + generatedKeyDir);
+          return new KeyPair(
+            readPublicKeyFromFile(generatedPublicKeyFile.toString(), "RSA"),
+            readPrivateKeyFromFile(generatedPrivateKeyFile.toString(), "RSA")
+          );
+        } catch (Exception e) {
+          logger.warn("Failed to read the key pair generated before, generating a new one: " + e.getLocalizedMessage());
+        }
+      }
+
       // Generate our own keys
+      final KeyPair keyPair;
       try {
         logger.info("Generating our own LTI Tool RSA key pair");
         KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA");
         kpg.initialize(2048);
-        return kpg.generateKeyPair();
+        keyPair = kpg.generateKeyPair();
       } catch (NoSuchAlgorithmException e) {
         logger.error("Couldn't find RSA algorithm to generate key pair");
         return null;
       }
+
+      if (!generatedKeyDir.isEmpty()) {
+        try {
+          writeKeyToFile(keyPair.getPrivate(), "PRIVATE KEY", generatedPrivateKeyFile.toString());
+          writeKeyToFile(keyPair.getPublic(), "PUBLIC KEY", generatedPublicKeyFile.toString());
+          logger.info("Saved our own LTI Tool RSA key pair in: " + generatedKeyDir);
+        } catch (Exception e) {
+          logger.warn("Failed to save the generated key pair, a new one will be generated next time: " + e.getLocalizedMessage());
+        }
+      }
+      return keyPair;
     } else {
       // Use the keys stored locally.
       logger.info("Using LTI Tool Private Key File: " + toolPrivateKeyFile);
@@ -83,15 +226,298 @@ public class MainVerticle extends EdgeVerticleHttp {
 
   }
 
-  @Override
-  public Router defineRoutes() {
+  /**
+   * Sets up the state that every instance of this verticle shares: the caches, the tool's key pair, the Box API
+   * connection and its scheduler, the executors of blocking calls, admission control, the scheduler of Okapi calls,
+   * metrics and tracing. Only the first instance deployed on a Vert.x instance does
+   * this, so that deploying one instance per core neither resets the caches nor gives each instance its own key pair
+   * and Box rate limit.
+   *
+   * The tool's key pair and the Box API connection, which take the longest and block while they're at it, are set up
+   * on worker threads while the rest is; with fast_startup, at the same time as each other. With warmup_launches, the
+   * {@link Warmup} is started once everything is set up.
+   *
+   * @return completes once everything is set up. Every instance gets the same future.
+   */
+  private static synchronized Future<Void> initializeShared(Vertx vertx) {
+    if (sharedVertx == vertx) {
+      return sharedInitialized;
+    }
+    sharedVertx = vertx;
+
+    // Until the routes are defined, see defineRoutes.
+    Readiness.warmingUp(STARTUP);
+    Gauge.builder("lti.courses.startup.time.to.ready", () -> Readiness.getTimeToReady())
+      .description("Time in ms from the start of the JVM until the module was first ready, or -1 until then")
+      .register(Metrics.registry());
+
+    // Ordered, they run one after the other on the worker pool; unordered, at the same time.
+    final boolean fastStartup = Boolean.parseBoolean(System.getProperty(FAST_STARTUP, "false"));
+    final Future<KeyPair> keyPair = vertx.executeBlocking(MainVerticle::getToolKeyPair, !fastStartup);
+    final Future<Void> boxInitialized = vertx.executeBlocking(() -> {
+      // Set up Box.com API integration if applicable.
+      initializeBox(vertx);
+      return null;
+    }, !fastStartup);
+
     OidcStateCache.initialize(
       Integer.valueOf(System.getProperty(OIDC_TTL, "10000")),
       Integer.valueOf(System.getProperty(OIDC_TTL, "10000")),
       10000
     );
 
-    final KeyPair toolKeyPair = getToolKeyPair();
+    final long launchDedupTtl = Long.valueOf(System.getProperty(LAUNCH_DEDUP_TTL, "30000"));
+    launchResultCache = launchDedupTtl > 0 ? LaunchResultCache.initialize(launchDedupTtl, 1000) : null;
+
+    final long launchSessionTtl = Long.valueOf(System.getProperty(LAUNCH_SESSION_TTL, "1800000"));  // 30 minutes
+    final String launchSessionSecret = System.getProperty(LAUNCH_SESSION_SECRET, "");
+    if (launchSessionTtl > 0 && launchSessionSecret.isEmpty()) {
+      logger.warn("No launch session secret was provided, launch sessions will only work on this node until it restarts.");
+    }
+    launchSessions = launchSessionTtl <= 0 ? null : LaunchSessions.initialize(
+      launchSessionSecret.isEmpty() ? HmacSigner.withRandomSecret() : HmacSigner.withSecret(launchSessionSecret),
+      launchSessionTtl
+    );
+
+    Metrics.registerCache("oidc_state",
+      () -> OidcStateCache.isInitialized() ? OidcStateCache.getInstance().getHits() : 0L,
+      () -> OidcStateCache.isInitialized() ? OidcStateCache.getInstance().getMisses() : 0L);
+    Metrics.registerCache("box_download_url",
+      () -> BoxFileCache.isInitialized() ? BoxFileCache.getInstance().getHits() : 0L,
+      () -> BoxFileCache.isInitialized() ? BoxFileCache.getInstance().getMisses() : 0L);
+    Metrics.registerCache("launch_result",
+      () -> LaunchResultCache.isInitialized() ? LaunchResultCache.getInstance().getHits() : 0L,
+      () -> LaunchResultCache.isInitialized() ? LaunchResultCache.getInstance().getMisses() : 0L);
+
+    final String traceExportFile = System.getProperty(TRACE_EXPORT_FILE, "");
+    Tracing.initialize(
+      Double.valueOf(System.getProperty(TRACE_SAMPLING_RATE, "0")),
+      traceExportFile.isEmpty() ? null : Paths.get(traceExportFile)
+    );
+
+    if (jwksExecutor != null) {
+      jwksExecutor.close();
+    }
+    jwksExecutor = new BlockingExecutor(
+      vertx,
+      "jwks",
+      blockingExecutionMode(),
+      Integer.valueOf(System.getProperty(JWKS_MAX_CONCURRENT, "10")),
+      Long.valueOf(System.getProperty(JWKS_TIMEOUT, "5000"))
+    );
+
+    admissionControl = new AdmissionControl(new AdmissionControl.Limits(
+      Double.valueOf(System.getProperty(RATE_LIMIT_ISSUER, "20")),
+      Integer.valueOf(System.getProperty(RATE_LIMIT_ISSUER_BURST, "40")),
+      Double.valueOf(System.getProperty(RATE_LIMIT_API_KEY, "50")),
+      Integer.valueOf(System.getProperty(RATE_LIMIT_API_KEY_BURST, "100")),
+      Double.valueOf(System.getProperty(RATE_LIMIT_CLIENT, "20")),
+      Integer.valueOf(System.getProperty(RATE_LIMIT_CLIENT_BURST, "60")),
+      Integer.valueOf(System.getProperty(MAX_LAUNCHES_IN_FLIGHT, "500")),
+      Long.valueOf(System.getProperty(MAX_EVENT_LOOP_LAG, "1000"))
+    ));
+    Gauge.builder("lti.courses.launches.in.flight", () -> admissionControl.getInFlight())
+      .description("Launches being handled")
+      .register(Metrics.registry());
+
+    tenantScheduler = new TenantScheduler(
+      vertx,
+      Integer.valueOf(System.getProperty(UPSTREAM_MAX_IN_FLIGHT, "100")),
+      Integer.valueOf(System.getProperty(UPSTREAM_MAX_PER_TENANT, "20")),
+      Long.valueOf(System.getProperty(UPSTREAM_QUEUE_TIMEOUT, "10000")),
+      tenantWeights(System.getProperty(TENANT_WEIGHTS, ""))
+    );
+    Gauge.builder("lti.courses.upstream.queue.depth", () -> tenantScheduler.getQueueDepth())
+      .description("Okapi calls waiting for their tenant's turn")
+      .register(Metrics.registry());
+    Gauge.builder("lti.courses.upstream.in.flight", () -> tenantScheduler.getInFlight())
+      .description("Okapi calls in flight")
+      .register(Metrics.registry());
+
+    sharedInitialized = Future.all(keyPair, boxInitialized).map(v -> {
+      toolKeyPair = keyPair.result();
+
+      final int warmupLaunches = Integer.valueOf(System.getProperty(WARMUP_LAUNCHES, "0"));
+      if (warmupLaunches > 0) {
+        new Warmup(
+          vertx,
+          (RSAPrivateKey) toolKeyPair.getPrivate(),
+          jwksExecutor,
+          Integer.valueOf(System.getProperty(JWKS_TIMEOUT, "5000")),
+          Long.valueOf(System.getProperty(LAUNCH_BODY_LIMIT, "65536")),
+          launchSessions,
+          warmupLaunches,
+          Long.valueOf(System.getProperty(WARMUP_TIME_LIMIT, "30000"))
+        ).start();
+      }
+      return null;
+    });
+    return sharedInitialized;
+  }
+
+  /**
+   * Defines the routes of logins and launches, which the {@link Warmup} runs through as well.
+   */
+  public static void defineLtiRoutes(Router router, LtiCoursesHandler ltiCoursesHandler, LaunchBodyHandler launchBodyHandler) {
+    router.route(HttpMethod.GET, "/lti-courses/oidc-login-init/:apiKeyPath").handler(ltiCoursesHandler::admitLogin).handler(ltiCoursesHandler::handleOidcLoginInit);
+    router.route(HttpMethod.POST, "/lti-courses/launches/:apiKeyPath").handler(LaunchBodyHandler::holdBody).handler(ltiCoursesHandler::admitLaunch).handler(launchBodyHandler).handler(ltiCoursesHandler::handleRequest);
+    router.route(HttpMethod.POST, "/lti-courses/externalIdLaunches/:apiKeyPath").handler(LaunchBodyHandler::holdBody).handler(ltiCoursesHandler::admitLaunch).handler(launchBodyHandler).handler(ltiCoursesHandler::handleRequestCourseExternalId);
+    router.route(HttpMethod.POST, "/lti-courses/registrarIdLaunches/:apiKeyPath").handler(LaunchBodyHandler::holdBody).handler(ltiCoursesHandler::admitLaunch).handler(launchBodyHandler).handler(ltiCoursesHandler::handleRequestCourseRegistrarId);
+    router.route(HttpMethod.GET, "/lti-courses/reserves/:apiKeyPath").handler(ltiCoursesHandler::admitLaunch).handler(ltiCoursesHandler::handleSessionReserves);
+  }
+
+  /**
+   * @param weights
+   *          eg: diku:2,other:0.5
+   */
+  private static Map<String, Double> tenantWeights(String weights) {
+    final Map<String, Double> parsed = new HashMap<>();
+    for (String weight : weights.split(",")) {
+      if (weight.trim().isEmpty()) {
+        continue;
+      }
+
+      final String[] tenantAndWeight = weight.split(":");
+      try {
+        parsed.put(tenantAndWeight[0].trim(), Double.valueOf(tenantAndWeight[1].trim()));
+      } catch (RuntimeException e) {
+        logger.warn("Ignoring invalid tenant weight: " + weight);
+      }
+    }
+    return parsed;
+  }
+
+  private static BlockingExecutor.Mode blockingExecutionMode() {
+    final String mode = System.getProperty(BLOCKING_EXECUTION_MODE, "worker");
+    try {
+      return BlockingExecutor.Mode.of(mode);
+    } catch (IllegalArgumentException e) {
+      logger.warn("Unknown blocking execution mode " + mode + ", using worker threads");
+      return BlockingExecutor.Mode.WORKER;
+    }
+  }
+
+  private static void initializeBox(Vertx vertx) {
+    boxApi = null;
+    boxScheduler = null;
+    if (boxExecutor != null) {
+      boxExecutor.close();
+      boxExecutor = null;
+    }
+
+    final String boxApiAppToken = System.getProperty(BOX_API_APP_TOKEN, "");
+    if (boxApiAppToken.isEmpty()) {
+      return;
+    }
+
+    BoxFileCache.initialize(
+      Integer.valueOf(System.getProperty(DOWNLOAD_URL_TTL, "600000")),  // 10 minutes
+      Integer.valueOf(System.getProperty(DOWNLOAD_URL_TTL, "600000")),  // 10 minutes
+      100000
+    );
+
+    BoxMetadataCache.initialize(
+      Integer.valueOf(System.getProperty(BOX_METADATA_TTL, "300000")),  // 5 minutes
+      Integer.valueOf(System.getProperty(BOX_METADATA_TTL, "300000")),  // 5 minutes
+      100000
+    );
+    Metrics.registerCache("box_metadata",
+      () -> BoxMetadataCache.getInstance().getHits(),
+      () -> BoxMetadataCache.getInstance().getMisses());
+
+    BoxFolderCache.initialize(
+      Integer.valueOf(System.getProperty(BOX_FOLDER_TTL, "300000")),  // 5 minutes
+      Integer.valueOf(System.getProperty(BOX_FOLDER_TTL, "300000")),  // 5 minutes
+      10000
+    );
+    Metrics.registerCache("box_folder",
+      () -> BoxFolderCache.getInstance().getHits(),
+      () -> BoxFolderCache.getInstance().getMisses());
+
+    final String downloadTokenSecret = System.getProperty(DOWNLOAD_TOKEN_SECRET, "");
+    if (downloadTokenSecret.isEmpty()) {
+      logger.warn("No download token secret was provided, Box download links will only work on this node until it restarts.");
+    }
+    BoxDownloadTokens.initialize(
+      downloadTokenSecret.isEmpty() ? HmacSigner.withRandomSecret() : HmacSigner.withSecret(downloadTokenSecret),
+      Integer.valueOf(System.getProperty(DOWNLOAD_URL_TTL, "600000"))
+    );
+
+    final String boxContentCacheDir = System.getProperty(BOX_CONTENT_CACHE_DIR, "");
+    if (boxContentCacheDir.length() > 0) {
+      try {
+        final BoxContentCache boxContentCache = BoxContentCache.initialize(
+          Paths.get(boxContentCacheDir),
+          Long.valueOf(System.getProperty(BOX_CONTENT_CACHE_SIZE, "1073741824"))  // 1 GiB
+        );
+
+        Metrics.registerCache("box_content", boxContentCache::getHits, boxContentCache::getMisses);
+
+        vertx.setPeriodic(300000, id -> logger.info("Box content cache: "
+          + boxContentCache.size() + " files, "
+          + boxContentCache.getTotalBytes() + " bytes, "
+          + "hit ratio " + boxContentCache.getHitRatio() + ", "
+          + boxContentCache.getBytesSaved() + " bytes saved, "
+          + boxContentCache.getEvictions() + " evictions"));
+      } catch (Exception e) {
+        logger.error("Box content cache is disabled: " + e.getMessage());
+      }
+    }
+
+    final BoxApiScheduler scheduler = new BoxApiScheduler(
+      vertx,
+      Integer.valueOf(System.getProperty(BOX_API_MAX_CONCURRENT, "10")),
+      Integer.valueOf(System.getProperty(BOX_API_MAX_PER_FILE, "2")),
+      Double.valueOf(System.getProperty(BOX_API_RATE, "10")),
+      Long.valueOf(System.getProperty(BOX_API_QUEUE_TIMEOUT, "5000"))
+    );
+
+    Gauge.builder("box.api.queue.depth", scheduler, BoxApiScheduler::getQueueDepth)
+      .description("Box API calls waiting for capacity")
+      .register(Metrics.registry());
+    Gauge.builder("box.api.in.flight", scheduler, BoxApiScheduler::getInFlight)
+      .description("Box API calls in flight")
+      .register(Metrics.registry());
+    FunctionCounter.builder("box.api.throttle.events", scheduler, BoxApiScheduler::getThrottleEvents)
+      .description("Times Box answered with 429")
+      .register(Metrics.registry());
+    FunctionCounter.builder("box.api.queue.timeouts", scheduler, BoxApiScheduler::getQueueTimeouts)
+      .description("Box API calls that timed out waiting for capacity")
+      .register(Metrics.registry());
+    FunctionCounter.builder("box.api.coalesced.calls", scheduler, BoxApiScheduler::getCoalescedCalls)
+      .description("Box API calls answered by an identical call already in progress")
+      .register(Metrics.registry());
+
+    vertx.setPeriodic(300000, id -> logger.info("Box API scheduler: "
+      + scheduler.getQueueDepth() + " queued, "
+      + scheduler.getInFlight() + " in flight, "
+      + scheduler.getThrottleEvents() + " throttle events, "
+      + scheduler.getQueueTimeouts() + " queue timeouts, "
+      + scheduler.getCoalescedCalls() + " coalesced calls"));
+
+    logger.info("Creating new Box API instance using App Token starting with: " + boxApiAppToken.substring(0, 5));
+    boxApi = new BoxTransactionalAPIConnection(boxApiAppToken);
+    boxScheduler = scheduler;
+
+    // The SDK's own timeouts end a call that is stuck on the network, the executor's ends one that is stuck anywhere.
+    final int boxApiTimeout = Integer.valueOf(System.getProperty(BOX_API_TIMEOUT, "30000"));
+    boxApi.setConnectTimeout(boxApiTimeout);
+    boxApi.setReadTimeout(boxApiTimeout);
+    boxExecutor = new BlockingExecutor(
+      vertx,
+      "box-api",
+      blockingExecutionMode(),
+      scheduler.getMaxConcurrent(),
+      boxApiTimeout
+    );
+  }
+
+  @Override
+  public Router defineRoutes() {
+    // Each instance runs on an event loop of its own, so each one watches its own.
+    Metrics.monitorEventLoopLag(vertx, 1000);
+
+    // Everything from here on belongs to this instance, so that requests on different event loops never contend.
 
     // Init the Jade templating engine
     PugTemplateEngine pugTemplateEngine = PugTemplateEngine.create(vertx);
@@ -106,41 +532,84 @@ public class MainVerticle extends EdgeVerticleHttp {
       logger.info("Ignoring OIDC state...this is UNSAFE and only intended for development!");
     }
 
+    final Set<String> knownIssuers = new HashSet<>();
+    for (String issuer : System.getProperty(LTI_KNOWN_ISSUERS, "").split(",")) {
+      if (!issuer.trim().isEmpty()) {
+        knownIssuers.add(issuer.trim());
+      }
+    }
+    final IdTokenPrecheck idTokenPrecheck = new IdTokenPrecheck(
+      Integer.valueOf(System.getProperty(ID_TOKEN_MAX_SIZE, "32768")),
+      knownIssuers,
+      Clock.systemUTC()
+    );
+
+    final BoxApiClient box = boxApi == null
+      ? null
+      : new BoxApiClient(vertx, boxApi, boxExecutor, boxScheduler);
+
     final LtiCoursesHandler ltiCoursesHandler = new LtiCoursesHandler(
       secureStore,
       ocf,
       apiKeyHelper,
       (RSAPrivateKey)toolKeyPair.getPrivate(),
       pugTemplateEngine,
-      ignoreOIDCState
+      ignoreOIDCState,
+      box,
+      Long.valueOf(System.getProperty(BOX_PREFETCH_TIMEOUT, "1500")),
+      jwksExecutor,
+      Integer.valueOf(System.getProperty(JWKS_TIMEOUT, "5000")),
+      idTokenPrecheck,
+      admissionControl,
+      tenantScheduler,
+      launchResultCache,
+      launchSessions
     );
 
     final JwksHandler jwksHandler = new JwksHandler((RSAPublicKey)toolKeyPair.getPublic());
 
+    final String adminApiToken = System.getProperty(ADMIN_API_TOKEN, "");
+    final AdminHandler adminHandler = new AdminHandler(
+      vertx,
+      adminApiToken,
+      box,
+      admissionControl,
+      tenantScheduler,
+      Long.valueOf(System.getProperty(JFR_MAX_DURATION, "600000")),  // 10 minutes
+      Long.valueOf(System.getProperty(JFR_MAX_SIZE, "104857600"))  // 100 MiB
+    );
+
+    // Only launches have a body worth reading, every other route leaves it alone.
+    final LaunchBodyHandler launchBodyHandler = new LaunchBodyHandler(
+      Long.valueOf(System.getProperty(LAUNCH_BODY_LIMIT, "65536"))  // 64 KiB
+    );
+
     // Define our regular routes.
     final Router router = Router.router(vertx);
-    router.route().handler(BodyHandler.create());
     router.route(HttpMethod.GET, "/admin/health").handler(this::handleHealthCheck);
+    router.route(HttpMethod.GET, "/admin/ready").handler(adminHandler::handleReady);
+    if (adminApiToken.isEmpty()) {
+      logger.info("No admin API token was provided, /admin/metrics, /admin/stats and /admin/jfr are disabled.");
+    } else {
+      // The metrics are labelled by tenant, so they're no more public than the stats.
+      router.route(HttpMethod.GET, "/admin/metrics").handler(adminHandler::handleMetrics);
+      router.route(HttpMethod.GET, "/admin/stats").handler(adminHandler::handleStats);
+      router.route(HttpMethod.GET, "/admin/limits").handler(adminHandler::handleGetLimits);
+      router.route(HttpMethod.PUT, "/admin/limits").handler(BodyHandler.create().setBodyLimit(4096)).handler(adminHandler::handlePutLimits);
+      router.route(HttpMethod.POST, "/admin/jfr/start").handler(adminHandler::handleJfrStart);
+      router.route(HttpMethod.POST, "/admin/jfr/stop").handler(adminHandler::handleJfrStop);
+    }
     router.route(HttpMethod.GET, "/lti-courses/.well-known/jwks.json").handler(jwksHandler::handleGetJWKS);
 
-    router.route(HttpMethod.GET, "/lti-courses/oidc-login-init/:apiKeyPath").handler(ltiCoursesHandler::handleOidcLoginInit);
-    router.route(HttpMethod.POST, "/lti-courses/launches/:apiKeyPath").handler(ltiCoursesHandler::handleRequest);
-    router.route(HttpMethod.POST, "/lti-courses/externalIdLaunches/:apiKeyPath").handler(ltiCoursesHandler::handleRequestCourseExternalId);
-    router.route(HttpMethod.POST, "/lti-courses/registrarIdLaunches/:apiKeyPath").handler(ltiCoursesHandler::handleRequestCourseRegistrarId);
+    defineLtiRoutes(router, ltiCoursesHandler, launchBodyHandler);
 
-    // Set up Box.com API integration if applicable.
-    final String boxApiAppToken = System.getProperty(BOX_API_APP_TOKEN, "");
-    if (boxApiAppToken.length() > 0) {
-      BoxFileCache.initialize(
-        Integer.valueOf(System.getProperty(DOWNLOAD_URL_TTL, "600000")),  // 10 minutes
-        Integer.valueOf(System.getProperty(DOWNLOAD_URL_TTL, "600000")),  // 10 minutes
-        100000
-      );
-
-      final BoxDownloadHandler boxDownloadHandler = new BoxDownloadHandler(boxApiAppToken);
-      router.route(HttpMethod.GET, "/lti-courses/download-file/:hash").handler(boxDownloadHandler::handleDownloadRequest);
+    if (box != null) {
+      final BoxDownloadHandler boxDownloadHandler = new BoxDownloadHandler(vertx, box);
+      router.route(HttpMethod.GET, "/lti-courses/download-file/:token").handler(boxDownloadHandler::handleDownloadRequest);
     }
 
+    Readiness.warmedUp(STARTUP);
+
     return router;
   }
 }
@@ -0,0 +1,280 @@
+package org.folio.edge.ltiCourses.cache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import org.folio.edge.ltiCourses.utils.JfrEvents;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+
+/**
+ * A size-bounded, least-recently-used cache of Box file content stored on local disk. Entries are keyed by the Box
+ * file ID and version, so a new upload of a file is never served from a stale entry.
+ *
+ * Content is always written to a partial file first and only moved into place once it's complete, so readers never
+ * see a half-written entry. While content is being fetched and written, other downloads of it can wait for the fill
+ * to finish rather than fetching it from Box again.
+ */
+public class BoxContentCache {
+
+  private static final Logger logger = LogManager.getLogger(BoxContentCache.class);
+
+  private static final String PARTIAL_SUFFIX = ".part";
+
+  private static volatile BoxContentCache instance = null;
+
+  private final Path directory;
+  private final long maxBytes;
+
+  // Access-ordered, so iteration starts at the least recently used entry.
+  private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long totalBytes = 0;
+
+  // Keys whose content is being fetched and written right now.
+  private final Map<String, Promise<Void>> fills = new ConcurrentHashMap<>();
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong bytesSaved = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  private BoxContentCache(Path directory, long maxBytes) {
+    logger.info("Using directory: " + directory);
+    logger.info("Using max size in bytes: " + maxBytes);
+    this.directory = directory;
+    this.maxBytes = maxBytes;
+
+    try {
+      Files.createDirectories(directory);
+      loadExistingEntries();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to prepare Box content cache at " + directory, e);
+    }
+  }
+
+  /**
+   * Get the BoxContentCache singleton. the singleton must be initialized before
+   * calling this method.
+   *
+   * @see {@link #initialize(Path, long)}
+   *
+   * @return the BoxContentCache singleton instance.
+   */
+  public static BoxContentCache getInstance() {
+    final BoxContentCache current = instance;
+    if (current == null) {
+      throw new NotInitializedException(
+          "You must call BoxContentCache.initialize(directory, maxBytes) before you can get the singleton instance");
+    }
+    return current;
+  }
+
+  public static boolean isInitialized() {
+    return instance != null;
+  }
+
+  /**
+   * Creates a new BoxContentCache instance, replacing the existing one if it
+   * already exists. Content already on disk is picked up again.
+   *
+   * @param directory
+   *          where the cached files are stored
+   * @param maxBytes
+   *          total size of all cached files before the least recently used are evicted
+   * @return the new BoxContentCache singleton instance
+   */
+  public static synchronized BoxContentCache initialize(Path directory, long maxBytes) {
+    if (instance != null) {
+      logger.warn("Reinitializing cache.  Cached content will be re-indexed");
+    }
+    instance = new BoxContentCache(directory, maxBytes);
+    return instance;
+  }
+
+  public static String key(String fileId, String version) {
+    return (fileId + "_" + version).replaceAll("[^A-Za-z0-9_-]", "");
+  }
+
+  /**
+   * @return the path of the cached content, or null if it isn't cached
+   */
+  public synchronized Path get(String key, long expectedSize) {
+    final Long size = entries.get(key);
+    JfrEvents.cacheLookup("box_content", size != null);
+    if (size == null) {
+      misses.incrementAndGet();
+      return null;
+    }
+
+    hits.incrementAndGet();
+    bytesSaved.addAndGet(expectedSize > 0 ? expectedSize : size);
+    return directory.resolve(key);
+  }
+
+  public boolean accepts(long size) {
+    return size > 0 && size <= maxBytes;
+  }
+
+  /**
+   * Claims the filling of the given key. Whoever claims it must complete the returned promise once the fill is over,
+   * whether or not the content made it into the cache.
+   *
+   * @return the promise that ends the fill, or null if the key is already being filled
+   */
+  public Promise<Void> startFill(String key) {
+    final Promise<Void> fill = Promise.promise();
+    if (fills.putIfAbsent(key, fill) != null) {
+      return null;
+    }
+
+    fill.future().onComplete(ar -> fills.remove(key, fill));
+    return fill;
+  }
+
+  /**
+   * @return a future that completes when the key's fill is over, or null if it isn't being filled
+   */
+  public Future<Void> getFill(String key) {
+    final Promise<Void> fill = fills.get(key);
+    return fill == null ? null : fill.future();
+  }
+
+  public Path newPartialFile() {
+    return directory.resolve(UUID.randomUUID().toString() + PARTIAL_SUFFIX);
+  }
+
+  /**
+   * Atomically moves fully written content into the cache, evicting the least recently used entries if needed.
+   * This touches the filesystem so it should not be called from an event loop.
+   *
+   * @return whether the content was added to the cache
+   */
+  public boolean commit(String key, Path partialFile, long expectedSize) {
+    try {
+      final long size = Files.size(partialFile);
+      if (size != expectedSize || !accepts(size)) {
+        logger.warn("Not caching Box content " + key + ": got " + size + " bytes but expected " + expectedSize);
+        Files.deleteIfExists(partialFile);
+        return false;
+      }
+
+      Files.move(partialFile, directory.resolve(key), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+      synchronized (this) {
+        final Long previous = entries.put(key, size);
+        totalBytes += size - (previous == null ? 0 : previous);
+        evictToFit();
+      }
+      return true;
+    } catch (IOException e) {
+      logger.error("Failed to cache Box content " + key + ": " + e.getMessage());
+      abort(partialFile);
+      return false;
+    }
+  }
+
+  public void abort(Path partialFile) {
+    try {
+      Files.deleteIfExists(partialFile);
+    } catch (IOException e) {
+      logger.warn("Failed to delete partial Box content at " + partialFile + ": " + e.getMessage());
+    }
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public double getHitRatio() {
+    final long total = hits.get() + misses.get();
+    return total == 0 ? 0 : (double) hits.get() / total;
+  }
+
+  public long getBytesSaved() {
+    return bytesSaved.get();
+  }
+
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  public synchronized long getTotalBytes() {
+    return totalBytes;
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  private void evictToFit() {
+    final Iterator<Map.Entry<String, Long>> i = entries.entrySet().iterator();
+    while (totalBytes > maxBytes && i.hasNext()) {
+      final Map.Entry<String, Long> eldest = i.next();
+      i.remove();
+      totalBytes -= eldest.getValue();
+      evictions.incrementAndGet();
+
+      try {
+        // Anyone still sending this file keeps their open handle, so deleting it here is safe.
+        Files.deleteIfExists(directory.resolve(eldest.getKey()));
+      } catch (IOException e) {
+        logger.warn("Failed to delete evicted Box content " + eldest.getKey() + ": " + e.getMessage());
+      }
+    }
+  }
+
+  private void loadExistingEntries() throws IOException {
+    final List<Path> files;
+    try (Stream<Path> listing = Files.list(directory)) {
+      files = listing
+        .filter(Files::isRegularFile)
+        .sorted(Comparator.comparingLong(path -> path.toFile().lastModified()))
+        .collect(Collectors.toList());
+    }
+
+    for (Path file : files) {
+      if (file.getFileName().toString().endsWith(PARTIAL_SUFFIX)) {
+        Files.deleteIfExists(file);
+        continue;
+      }
+
+      final long size = Files.size(file);
+      entries.put(file.getFileName().toString(), size);
+      totalBytes += size;
+    }
+
+    evictToFit();
+    logger.info("Indexed " + entries.size() + " cached Box files totalling " + totalBytes + " bytes");
+  }
+
+  public static class NotInitializedException extends RuntimeException {
+
+    private static final long serialVersionUID = 4747532964596334577L;
+
+    public NotInitializedException(String msg) {
+      super(msg);
+    }
+  }
+
+}
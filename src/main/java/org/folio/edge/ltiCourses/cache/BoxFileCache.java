@@ -3,55 +3,51 @@ package org.folio.edge.ltiCourses.cache;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import org.folio.edge.core.cache.Cache;
-import org.folio.edge.core.cache.Cache.Builder;
-
-import java.util.UUID;
+import io.vertx.core.json.JsonObject;
 
 public class BoxFileCache {
 
   private static final Logger logger = LogManager.getLogger(BoxFileCache.class);
 
-  private static BoxFileCache instance = null;
+  private static volatile BoxFileCache instance = null;
 
-  private Cache<String> cache;
+  private TtlCache<String> downloadUrls;
 
   private BoxFileCache(long ttl, long nullTokenTtl, int capacity) {
     logger.info("Using TTL: " + ttl);
     logger.info("Using null token TTL: " + nullTokenTtl);
     logger.info("Using capacity: " + capacity);
-    cache = new Builder<String>()
-      .withTTL(ttl)
-      .withNullValueTTL(nullTokenTtl)
-      .withCapacity(capacity)
-      .build();
+    downloadUrls = new TtlCache<>("box_download_url", ttl, nullTokenTtl, capacity);
   }
 
   /**
-   * Get the BoxDownloadUrlCache singleton. the singleton must be initialized before
+   * Get the BoxFileCache singleton. the singleton must be initialized before
    * calling this method.
    *
-   * @see {@link #initialize(long, int)}
+   * @see {@link #initialize(long, long, int)}
    *
-   * @return the BoxDownloadUrlCache singleton instance.
+   * @return the BoxFileCache singleton instance.
    */
-  public static synchronized BoxFileCache getInstance() {
-    if (instance == null) {
+  public static BoxFileCache getInstance() {
+    final BoxFileCache current = instance;
+    if (current == null) {
       throw new NotInitializedException(
-          "You must call BoxDownloadUrlCache.initialize(ttl, capacity) before you can get the singleton instance");
+          "You must call BoxFileCache.initialize(ttl, nullValueTtl, capacity) before you can get the singleton instance");
     }
-    return instance;
+    return current;
   }
 
   /**
-   * Creates a new BoxDownloadUrlCache instance, replacing the existing one if it
+   * Creates a new BoxFileCache instance, replacing the existing one if it
    * already exists; in which case all pre-existing cache entries will be lost.
    *
    * @param ttl
    *          cache entry time to live in ms
+   * @param nullValueTtl
+   *          time to live in ms of an entry with a null value
    * @param capacity
    *          maximum number of entries this cache will hold before pruning
-   * @return the new BoxDownloadUrlCache singleton instance
+   * @return the new BoxFileCache singleton instance
    */
   public static synchronized BoxFileCache initialize(long ttl, long nullValueTtl, int capacity) {
     if (instance != null) {
@@ -61,14 +57,32 @@ public class BoxFileCache {
     return instance;
   }
 
-  public String get(String hash) {
-    return cache.get(hash);
+  /**
+   * Box's download URLs are short-lived and don't require authentication, so they're only cached for as long as
+   * the download links we hand out are guaranteed to be valid.
+   */
+  public String getDownloadUrl(String fileId) {
+    return downloadUrls.get(fileId);
+  }
+
+  public void putDownloadUrl(String fileId, String downloadUrl) {
+    downloadUrls.put(fileId, downloadUrl);
+  }
+
+  public static boolean isInitialized() {
+    return instance != null;
+  }
+
+  public long getHits() {
+    return downloadUrls.getHits();
+  }
+
+  public long getMisses() {
+    return downloadUrls.getMisses();
   }
 
-  public String put(String fileId) {
-    final String hash = UUID.randomUUID().toString();
-    cache.put(hash, fileId);
-    return hash;
+  public JsonObject getStats() {
+    return downloadUrls.asJsonObject();
   }
 
   public static class NotInitializedException extends RuntimeException {
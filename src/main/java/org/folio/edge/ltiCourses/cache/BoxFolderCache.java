@@ -0,0 +1,95 @@
+package org.folio.edge.ltiCourses.cache;
+
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import org.folio.edge.ltiCourses.model.BoxFileMetadata;
+
+import io.vertx.core.json.JsonObject;
+
+public class BoxFolderCache {
+
+  private static final Logger logger = LogManager.getLogger(BoxFolderCache.class);
+
+  private static volatile BoxFolderCache instance = null;
+
+  private TtlCache<List<BoxFileMetadata>> cache;
+
+  private BoxFolderCache(long ttl, long nullValueTtl, int capacity) {
+    logger.info("Using TTL: " + ttl);
+    logger.info("Using null value TTL: " + nullValueTtl);
+    logger.info("Using capacity: " + capacity);
+    cache = new TtlCache<>("box_folder", ttl, nullValueTtl, capacity);
+  }
+
+  /**
+   * Get the BoxFolderCache singleton. the singleton must be initialized before
+   * calling this method.
+   *
+   * @see {@link #initialize(long, long, int)}
+   *
+   * @return the BoxFolderCache singleton instance.
+   */
+  public static BoxFolderCache getInstance() {
+    final BoxFolderCache current = instance;
+    if (current == null) {
+      throw new NotInitializedException(
+          "You must call BoxFolderCache.initialize(ttl, capacity) before you can get the singleton instance");
+    }
+    return current;
+  }
+
+  public static boolean isInitialized() {
+    return instance != null;
+  }
+
+  /**
+   * Creates a new BoxFolderCache instance, replacing the existing one if it
+   * already exists; in which case all pre-existing cache entries will be lost.
+   *
+   * @param ttl
+   *          cache entry time to live in ms
+   * @param capacity
+   *          maximum number of entries this cache will hold before pruning
+   * @return the new BoxFolderCache singleton instance
+   */
+  public static synchronized BoxFolderCache initialize(long ttl, long nullValueTtl, int capacity) {
+    if (instance != null) {
+      logger.warn("Reinitializing cache.  All cached entries will be lost");
+    }
+    instance = new BoxFolderCache(ttl, nullValueTtl, capacity);
+    return instance;
+  }
+
+  public List<BoxFileMetadata> get(String folderId) {
+    return cache.get(folderId);
+  }
+
+  public void put(String folderId, List<BoxFileMetadata> files) {
+    cache.put(folderId, files);
+  }
+
+  public long getHits() {
+    return cache.getHits();
+  }
+
+  public long getMisses() {
+    return cache.getMisses();
+  }
+
+  public JsonObject getStats() {
+    return cache.asJsonObject();
+  }
+
+  public static class NotInitializedException extends RuntimeException {
+
+    private static final long serialVersionUID = 6236157719437820951L;
+
+    public NotInitializedException(String msg) {
+      super(msg);
+    }
+  }
+
+}
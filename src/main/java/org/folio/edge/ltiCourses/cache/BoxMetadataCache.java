@@ -0,0 +1,93 @@
+package org.folio.edge.ltiCourses.cache;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import org.folio.edge.ltiCourses.model.BoxFileMetadata;
+
+import io.vertx.core.json.JsonObject;
+
+public class BoxMetadataCache {
+
+  private static final Logger logger = LogManager.getLogger(BoxMetadataCache.class);
+
+  private static volatile BoxMetadataCache instance = null;
+
+  private TtlCache<BoxFileMetadata> cache;
+
+  private BoxMetadataCache(long ttl, long nullValueTtl, int capacity) {
+    logger.info("Using TTL: " + ttl);
+    logger.info("Using null value TTL: " + nullValueTtl);
+    logger.info("Using capacity: " + capacity);
+    cache = new TtlCache<>("box_metadata", ttl, nullValueTtl, capacity);
+  }
+
+  /**
+   * Get the BoxMetadataCache singleton. the singleton must be initialized before
+   * calling this method.
+   *
+   * @see {@link #initialize(long, long, int)}
+   *
+   * @return the BoxMetadataCache singleton instance.
+   */
+  public static BoxMetadataCache getInstance() {
+    final BoxMetadataCache current = instance;
+    if (current == null) {
+      throw new NotInitializedException(
+          "You must call BoxMetadataCache.initialize(ttl, capacity) before you can get the singleton instance");
+    }
+    return current;
+  }
+
+  public static boolean isInitialized() {
+    return instance != null;
+  }
+
+  /**
+   * Creates a new BoxMetadataCache instance, replacing the existing one if it
+   * already exists; in which case all pre-existing cache entries will be lost.
+   *
+   * @param ttl
+   *          cache entry time to live in ms
+   * @param capacity
+   *          maximum number of entries this cache will hold before pruning
+   * @return the new BoxMetadataCache singleton instance
+   */
+  public static synchronized BoxMetadataCache initialize(long ttl, long nullValueTtl, int capacity) {
+    if (instance != null) {
+      logger.warn("Reinitializing cache.  All cached entries will be lost");
+    }
+    instance = new BoxMetadataCache(ttl, nullValueTtl, capacity);
+    return instance;
+  }
+
+  public BoxFileMetadata get(String fileId) {
+    return cache.get(fileId);
+  }
+
+  public void put(String fileId, BoxFileMetadata metadata) {
+    cache.put(fileId, metadata);
+  }
+
+  public long getHits() {
+    return cache.getHits();
+  }
+
+  public long getMisses() {
+    return cache.getMisses();
+  }
+
+  public JsonObject getStats() {
+    return cache.asJsonObject();
+  }
+
+  public static class NotInitializedException extends RuntimeException {
+
+    private static final long serialVersionUID = 4747532964596334577L;
+
+    public NotInitializedException(String msg) {
+      super(msg);
+    }
+  }
+
+}
@@ -0,0 +1,178 @@
+package org.folio.edge.ltiCourses.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.vertx.core.Future;
+import io.vertx.core.MultiMap;
+import io.vertx.core.http.Cookie;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Answers launches that are posted again, because the LMS's iframe resubmitted the form or the student refreshed,
+ * with the response to the first one instead of verifying and fetching everything again:
+ *
+ * - A launch that arrives while an identical one is still being handled waits for, and gets, that one's response.
+ * - A launch that arrives after an identical one succeeded gets its response, for a short while.
+ *
+ * Launches are identical when they're posted to the same path with the same id_token and state. The nonce is still
+ * used up by the first launch, so a repeat is only ever answered with what the first got, never verified again.
+ *
+ * Both kinds are the same entry: the future of the first launch's response goes into the cache as soon as that launch
+ * claims its key, and stays there once it's complete. There's no moment at which a repeat finds neither a launch in
+ * flight nor its result, and goes on to be verified again with a nonce that's used up.
+ */
+public class LaunchResultCache {
+
+  private static final Logger logger = LogManager.getLogger(LaunchResultCache.class);
+
+  private static volatile LaunchResultCache instance = null;
+
+  private final TtlCache<Future<LaunchResult>> results;
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  private LaunchResultCache(long ttl, int capacity) {
+    logger.info("Using TTL: " + ttl);
+    logger.info("Using capacity: " + capacity);
+    results = new TtlCache<>("launch_result", ttl, ttl, capacity);
+  }
+
+  /**
+   * Get the LaunchResultCache singleton. the singleton must be initialized before calling this method.
+   *
+   * @see {@link #initialize(long, int)}
+   *
+   * @return the LaunchResultCache singleton instance.
+   */
+  public static LaunchResultCache getInstance() {
+    final LaunchResultCache current = instance;
+    if (current == null) {
+      throw new NotInitializedException(
+          "You must call LaunchResultCache.initialize(ttl, capacity) before you can get the singleton instance");
+    }
+    return current;
+  }
+
+  /**
+   * Creates a new LaunchResultCache instance, replacing the existing one if it already exists; in which case all
+   * pre-existing cache entries will be lost.
+   *
+   * @param ttl
+   *          how long in ms the response to a launch is reused
+   * @param capacity
+   *          maximum number of responses this cache will hold before pruning
+   * @return the new LaunchResultCache singleton instance
+   */
+  public static synchronized LaunchResultCache initialize(long ttl, int capacity) {
+    if (instance != null) {
+      logger.warn("Reinitializing cache.  All cached entries will be lost");
+    }
+    instance = new LaunchResultCache(ttl, capacity);
+    return instance;
+  }
+
+  public static boolean isInitialized() {
+    return instance != null;
+  }
+
+  /**
+   * @return what identifies a launch, without keeping its id_token around
+   */
+  public static String key(String path, String idToken, String state) {
+    try {
+      final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(path.getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) 0);
+      digest.update(idToken.getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) 0);
+      digest.update(String.valueOf(state).getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * @return the response to an identical launch, either already sent or still being worked out, or null if this is
+   *         the first launch of its kind, in which case `result` is what the identical launches that follow will get
+   */
+  public Future<LaunchResult> join(String key, Future<LaunchResult> result) {
+    final Future<LaunchResult> existing = results.putIfAbsent(key, result);
+    if (existing != null) {
+      return existing;
+    }
+
+    inFlight.incrementAndGet();
+    result.onComplete(ar -> complete(key, result));
+    return null;
+  }
+
+  private void complete(String key, Future<LaunchResult> result) {
+    inFlight.decrementAndGet();
+    // Only launches that got through are worth repeating; the rest are worked out again, and fail on their nonce.
+    if (result.succeeded() && result.result().statusCode == 200) {
+      // Put again, so that the response is reused for the whole TTL from when it was sent.
+      results.put(key, result);
+    } else {
+      results.remove(key, result);
+    }
+  }
+
+  public long getHits() {
+    return results.getHits();
+  }
+
+  public long getMisses() {
+    return results.getMisses();
+  }
+
+  public JsonObject getStats() {
+    return results.asJsonObject().put("inFlight", inFlight.get());
+  }
+
+  public static class NotInitializedException extends RuntimeException {
+
+    private static final long serialVersionUID = 2364185493851870942L;
+
+    public NotInitializedException(String msg) {
+      super(msg);
+    }
+  }
+
+  public static class LaunchResult {
+    public final int statusCode;
+    public final String html;
+    public final MultiMap headers;
+    public final List<Cookie> cookies;
+
+    /**
+     * @param html
+     *          the page sent, or null if the response wasn't a page
+     */
+    public LaunchResult(int statusCode, String html) {
+      this(statusCode, html, MultiMap.caseInsensitiveMultiMap(), Collections.emptyList());
+    }
+
+    /**
+     * @param headers
+     *          the headers sent, which are replayed with the response
+     * @param cookies
+     *          the cookies set, such as the launch session's. They're kept apart from the headers because they're only
+     *          written into them as the response goes out.
+     */
+    public LaunchResult(int statusCode, String html, MultiMap headers, List<Cookie> cookies) {
+      this.statusCode = statusCode;
+      this.html = html;
+      this.headers = headers;
+      this.cookies = cookies;
+    }
+  }
+}
@@ -3,27 +3,21 @@ package org.folio.edge.ltiCourses.cache;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import org.folio.edge.core.cache.Cache;
-import org.folio.edge.core.cache.Cache.Builder;
-import org.folio.edge.core.cache.Cache.CacheValue;
+import io.vertx.core.json.JsonObject;
 
 public class OidcStateCache {
 
   private static final Logger logger = LogManager.getLogger(OidcStateCache.class);
 
-  private static OidcStateCache instance = null;
+  private static volatile OidcStateCache instance = null;
 
-  private Cache<String> cache;
+  private TtlCache<String> cache;
 
   private OidcStateCache(long ttl, long nullTokenTtl, int capacity) {
     logger.info("Using TTL: " + ttl);
     logger.info("Using null token TTL: " + nullTokenTtl);
     logger.info("Using capacity: " + capacity);
-    cache = new Builder<String>()
-      .withTTL(ttl)
-      .withNullValueTTL(nullTokenTtl)
-      .withCapacity(capacity)
-      .build();
+    cache = new TtlCache<>("oidc_state", ttl, nullTokenTtl, capacity);
   }
 
   /**
@@ -34,12 +28,13 @@ public class OidcStateCache {
    *
    * @return the OidcStateCache singleton instance.
    */
-  public static synchronized OidcStateCache getInstance() {
-    if (instance == null) {
+  public static OidcStateCache getInstance() {
+    final OidcStateCache current = instance;
+    if (current == null) {
       throw new NotInitializedException(
           "You must call OidcStateCache.initialize(ttl, capacity) before you can get the singleton instance");
     }
-    return instance;
+    return current;
   }
 
   /**
@@ -60,12 +55,35 @@ public class OidcStateCache {
     return instance;
   }
 
+  public static boolean isInitialized() {
+    return instance != null;
+  }
+
   public String get(String nonce) {
     return cache.get(nonce);
   }
 
-  public CacheValue<String> put(String nonce, String state) {
-    return cache.put(nonce, state);
+  /**
+   * Gets the state that goes with a nonce and forgets it, so that the nonce can only be used once.
+   */
+  public String remove(String nonce) {
+    return cache.remove(nonce);
+  }
+
+  public long getHits() {
+    return cache.getHits();
+  }
+
+  public long getMisses() {
+    return cache.getMisses();
+  }
+
+  public JsonObject getStats() {
+    return cache.asJsonObject();
+  }
+
+  public void put(String nonce, String state) {
+    cache.put(nonce, state);
   }
 
   public static class NotInitializedException extends RuntimeException {
@@ -0,0 +1,292 @@
+package org.folio.edge.ltiCourses.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.vertx.core.json.JsonObject;
+
+import org.folio.edge.ltiCourses.utils.JfrEvents;
+
+/**
+ * A size bounded cache whose entries expire after a fixed time, like edge-common's Cache, but which also keeps the
+ * statistics reported by /admin/stats and records every lookup as a {@link JfrEvents.CacheLookupEvent}. When it's full
+ * the least recently used entries are evicted.
+ *
+ * Every event loop shares these caches, so gets and puts don't take a lock: entries live in a ConcurrentHashMap and
+ * remember when they were last used, and the put that takes the cache over capacity scans it for the entries to evict.
+ * LRU is approximate, since an entry used during that scan may still go, and each scan makes room for about 1% of the
+ * capacity so that a full cache isn't scanned on every put.
+ */
+public class TtlCache<T> {
+
+  protected final String name;
+  protected final long ttl;
+  protected final long nullValueTtl;
+  protected final int capacity;
+  protected final long createdAt = System.currentTimeMillis();
+
+  private final ConcurrentHashMap<String, Entry<T>> entries = new ConcurrentHashMap<>();
+  // Orders uses of entries. A counter rather than the time, so that no two uses tie.
+  private final AtomicLong uses = new AtomicLong();
+  private final AtomicBoolean evicting = new AtomicBoolean();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder expirations = new LongAdder();
+
+  /**
+   * @param name
+   *          identifies the cache in flight recordings
+   * @param ttl
+   *          time to live of an entry in ms
+   * @param nullValueTtl
+   *          time to live of an entry with a null value in ms
+   * @param capacity
+   *          maximum number of entries
+   */
+  public TtlCache(String name, long ttl, long nullValueTtl, int capacity) {
+    this.name = name;
+    this.ttl = ttl;
+    this.nullValueTtl = nullValueTtl;
+    this.capacity = capacity;
+  }
+
+  /**
+   * @return the cached value, or null if there is none or it has expired
+   */
+  public T get(String key) {
+    final T value = lookUp(key);
+    JfrEvents.cacheLookup(name, value != null);
+    return value;
+  }
+
+  private T lookUp(String key) {
+    final Entry<T> entry = entries.get(key);
+    if (entry == null) {
+      misses.increment();
+      return null;
+    }
+
+    if (entry.expires <= System.currentTimeMillis()) {
+      if (entries.remove(key, entry)) {
+        expirations.increment();
+      }
+      misses.increment();
+      return null;
+    }
+
+    entry.lastUsed = uses.incrementAndGet();
+    if (entry.value == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return entry.value;
+  }
+
+  public void put(String key, T value) {
+    final long now = System.currentTimeMillis();
+    entries.put(key, newEntry(value, now));
+
+    if (entries.size() > capacity) {
+      evict(now);
+    }
+  }
+
+  /**
+   * Puts the value unless one that hasn't expired is already cached, atomically, so that of the threads putting the
+   * same key at once only one gets it in.
+   *
+   * @return the value already cached, which is kept, or null if `value` was put
+   */
+  public T putIfAbsent(String key, T value) {
+    final long now = System.currentTimeMillis();
+    final Entry<T> entry = newEntry(value, now);
+
+    while (true) {
+      final Entry<T> existing = entries.putIfAbsent(key, entry);
+      if (existing == null) {
+        break;
+      }
+      if (existing.expires > now) {
+        existing.lastUsed = uses.incrementAndGet();
+        hits.increment();
+        JfrEvents.cacheLookup(name, true);
+        return existing.value;
+      }
+      if (entries.replace(key, existing, entry)) {
+        expirations.increment();
+        break;
+      }
+    }
+
+    misses.increment();
+    JfrEvents.cacheLookup(name, false);
+    if (entries.size() > capacity) {
+      evict(now);
+    }
+    return null;
+  }
+
+  private Entry<T> newEntry(T value, long now) {
+    return new Entry<>(value, now, now + (value == null ? nullValueTtl : ttl), uses.incrementAndGet());
+  }
+
+  /**
+   * @return the value that was removed, or null if there was none or it had expired
+   */
+  public T remove(String key) {
+    final Entry<T> entry = entries.remove(key);
+    if (entry == null || entry.expires <= System.currentTimeMillis()) {
+      return null;
+    }
+    return entry.value;
+  }
+
+  /**
+   * Removes the entry only if it still holds this very value, so that one put since is left alone.
+   *
+   * @return whether the entry was removed
+   */
+  public boolean remove(String key, T value) {
+    final Entry<T> entry = entries.get(key);
+    return entry != null && entry.value == value && entries.remove(key, entry);
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  public double getHitRatio() {
+    final long hits = getHits();
+    final long gets = hits + getMisses();
+    return gets == 0 ? 0 : (double) hits / gets;
+  }
+
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  public long getExpirations() {
+    return expirations.sum();
+  }
+
+  /**
+   * @return how long ago the oldest entry was put, in ms
+   */
+  public long getOldestEntryAge() {
+    long oldest = Long.MAX_VALUE;
+    for (Entry<T> entry : entries.values()) {
+      oldest = Math.min(oldest, entry.created);
+    }
+    return oldest == Long.MAX_VALUE ? 0 : System.currentTimeMillis() - oldest;
+  }
+
+  public JsonObject asJsonObject() {
+    return new JsonObject()
+      .put("size", size())
+      .put("capacity", capacity)
+      .put("hits", getHits())
+      .put("misses", getMisses())
+      .put("hitRatio", getHitRatio())
+      .put("evictions", getEvictions())
+      .put("expirations", getExpirations())
+      .put("ageMs", System.currentTimeMillis() - createdAt)
+      .put("oldestEntryAgeMs", getOldestEntryAge());
+  }
+
+  /**
+   * Drops the expired entries, then the least recently used ones until the cache is about 1% below capacity. One thread
+   * evicts at a time; puts made meanwhile are caught by the check once it's done.
+   */
+  private void evict(long now) {
+    if (!evicting.compareAndSet(false, true)) {
+      return;
+    }
+
+    try {
+      final int target = capacity - capacity / 100;
+      final int excess = entries.size() - target;
+      if (excess <= 0) {
+        return;
+      }
+
+      // The least recently used entries seen so far, most recently used at the head, so it's the one to drop once
+      // there are more than `excess`.
+      final PriorityQueue<Candidate<T>> candidates = new PriorityQueue<>(excess + 1,
+        Comparator.comparingLong((Candidate<T> candidate) -> candidate.lastUsed).reversed());
+      for (Map.Entry<String, Entry<T>> e : entries.entrySet()) {
+        final Entry<T> entry = e.getValue();
+        if (entry.expires <= now) {
+          if (entries.remove(e.getKey(), entry)) {
+            expirations.increment();
+          }
+        } else {
+          candidates.add(new Candidate<>(e.getKey(), entry));
+          if (candidates.size() > excess) {
+            candidates.poll();
+          }
+        }
+      }
+
+      final List<Candidate<T>> victims = new ArrayList<>(candidates);
+      victims.sort(Comparator.comparingLong(candidate -> candidate.lastUsed));
+      for (Candidate<T> victim : victims) {
+        if (entries.size() <= target) {
+          break;
+        }
+        if (entries.remove(victim.key, victim.entry)) {
+          evictions.increment();
+        }
+      }
+    } finally {
+      evicting.set(false);
+    }
+
+    if (entries.size() > capacity) {
+      evict(System.currentTimeMillis());
+    }
+  }
+
+  private static class Entry<T> {
+    final T value;
+    final long created;
+    final long expires;
+    volatile long lastUsed;
+
+    Entry(T value, long created, long expires, long lastUsed) {
+      this.value = value;
+      this.created = created;
+      this.expires = expires;
+      this.lastUsed = lastUsed;
+    }
+  }
+
+  // An entry and when it was last used as of the scan, so that its place in the queue doesn't change under it.
+  private static class Candidate<T> {
+    final String key;
+    final Entry<T> entry;
+    final long lastUsed;
+
+    Candidate(String key, Entry<T> entry) {
+      this.key = key;
+      this.entry = entry;
+      this.lastUsed = entry.lastUsed;
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package org.folio.edge.ltiCourses.model;
+
+import java.net.URLConnection;
+import java.util.Locale;
+
+import com.box.sdk.BoxFile;
+
+import io.vertx.core.json.JsonObject;
+
+public class BoxFileMetadata {
+  public String id;
+  public String name;
+  public long size;
+  public String contentType;
+  public String sha1;
+  public String version;
+
+  public BoxFileMetadata(BoxFile.Info info) {
+    this.id = info.getID();
+    this.name = info.getName();
+    this.size = info.getSize();
+    this.sha1 = info.getSha1();
+
+    // Not every Box account exposes file versions, but the SHA1 changes along with the content too.
+    if (info.getVersion() != null && info.getVersion().getVersionID() != null) {
+      this.version = info.getVersion().getVersionID();
+    } else {
+      this.version = info.getSha1();
+    }
+
+    final String guessedContentType = name == null ? null : URLConnection.guessContentTypeFromName(name);
+    this.contentType = guessedContentType == null ? "application/octet-stream" : guessedContentType;
+  }
+
+  public String getDisplaySize() {
+    if (size < 1024) {
+      return size + " B";
+    }
+
+    final int exponent = Math.min((int) (Math.log(size) / Math.log(1024)), 4);
+    return String.format(Locale.ROOT, "%.1f %sB", size / Math.pow(1024, exponent), "KMGT".charAt(exponent - 1));
+  }
+
+  public JsonObject asJsonObject() {
+    return new JsonObject()
+      .put("id", id)
+      .put("name", name)
+      .put("size", size)
+      .put("contentType", contentType)
+      .put("sha1", sha1)
+      .put("version", version);
+  }
+}
@@ -1,18 +1,25 @@
 package org.folio.edge.ltiCourses.model;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.text.ParsePosition;
 import java.time.Clock;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.Period;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
 import java.util.ArrayDeque;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
-import org.folio.edge.ltiCourses.cache.BoxFileCache;
+import org.folio.edge.ltiCourses.utils.BoxDownloadTokens;
 
+import static org.folio.edge.ltiCourses.Constants.BOX_COM_FOLDER_URL_INDICATOR;
 import static org.folio.edge.ltiCourses.Constants.BOX_COM_URL_INDICATOR;
 
 import io.vertx.core.json.JsonArray;
@@ -26,8 +33,12 @@ public class Course {
   protected Term term;
   protected ArrayDeque<Reserve> reserves;
   protected Boolean boxDirectDownload = false;
+  protected Boolean boxDownloadRedirect = false;
 
-  private static final SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+  // Immutable, so unlike SimpleDateFormat it can be shared by every event loop. Lenient in the same ways as the
+  // SimpleDateFormat("yyyy-MM-dd") it replaced, see parseDate().
+  private static final DateTimeFormatter format = DateTimeFormatter.ofPattern("u-M-d")
+    .withResolverStyle(ResolverStyle.LENIENT);
 
   private static final Logger logger = LogManager.getLogger(Course.class);
 
@@ -42,6 +53,10 @@ public class Course {
     this.reserves = new ArrayDeque<Reserve>();
   }
 
+  public String getId() {
+    return id;
+  }
+
   public void setSearchUrl(String searchUrl) {
     this.searchUrl = searchUrl;
   }
@@ -50,6 +65,10 @@ public class Course {
     this.boxDirectDownload = true;
   }
 
+  public void enableBoxDownloadRedirect() {
+    this.boxDownloadRedirect = true;
+  }
+
   public void setReserves(String reservesString) {
     Iterator<Object> i;
 
@@ -66,6 +85,16 @@ public class Course {
     }
   }
 
+  /**
+   * Parses dates as leniently as SimpleDateFormat did: months and days may have one digit, out of range fields roll
+   * over (2020-13-01 is 2021-01-01) and anything after the date, such as a time, is ignored.
+   *
+   * @return the start of the given day in the system's time zone
+   */
+  protected static Instant parseDate(String date) {
+    return LocalDate.from(format.parse(date, new ParsePosition(0))).atStartOfDay(ZoneId.systemDefault()).toInstant();
+  }
+
   public JsonArray getCurrentReserves(Clock clock) {
     Instant now = Instant.now(clock);
     Instant termStart;
@@ -74,9 +103,9 @@ public class Course {
     JsonArray json = new JsonArray();
 
     try {
-      termStart = format.parse(term.startDate).toInstant();
-      termEnd = format.parse(term.endDate).toInstant();
-    } catch (ParseException e) {
+      termStart = parseDate(term.startDate);
+      termEnd = parseDate(term.endDate);
+    } catch (DateTimeParseException e) {
       logger.error("Failed to parse term dates: " + term.startDate + " & " + term.endDate);
       return json;
     }
@@ -93,8 +122,8 @@ public class Course {
       if (!(reserve.startDate.isEmpty())) {
         try {
           startDateString = reserve.startDate;
-          startDate = format.parse(reserve.startDate).toInstant();
-        } catch (ParseException e) {
+          startDate = parseDate(reserve.startDate);
+        } catch (DateTimeParseException e) {
           logger.error("Failed to parse reserve start date: " + reserve.startDate);
         }
       }
@@ -102,8 +131,8 @@ public class Course {
       if (!(reserve.endDate.isEmpty())) {
         try {
           endDateString = reserve.endDate;
-          endDate = format.parse(reserve.endDate).toInstant();
-        } catch (ParseException e) {
+          endDate = parseDate(reserve.endDate);
+        } catch (DateTimeParseException e) {
           logger.error("Failed to parse reserve end date: " + reserve.endDate);
         }
       }
@@ -124,10 +153,15 @@ public class Course {
           }
         } else if (Boolean.TRUE.equals(this.boxDirectDownload) && reserve.uri.contains(BOX_COM_URL_INDICATOR)) {
           String boxFileId = reserve.uri.substring(reserve.uri.lastIndexOf("/") + 1);
-          String hash = BoxFileCache.getInstance().put(boxFileId);
-          reserveJson.put("uri", "/lti-courses/download-file/" + hash);
-
-          logger.info("Switching URL of Box File from " + reserve.uri + " to " + reserveJson.getString("uri"));
+          String token = BoxDownloadTokens.getInstance().issue(boxFileId, this.boxDownloadRedirect, clock);
+          if (token != null) {
+            reserveJson.put("uri", "/lti-courses/download-file/" + token);
+            reserveJson.put("boxFileId", boxFileId);
+            logger.debug("Switching URL of Box File from " + reserve.uri + " to " + reserveJson.getString("uri"));
+          }
+        } else if (Boolean.TRUE.equals(this.boxDirectDownload) && reserve.uri.contains(BOX_COM_FOLDER_URL_INDICATOR)) {
+          // The folder's files are only known once it's been listed, see expandBoxFolders.
+          reserveJson.put("boxFolderId", reserve.uri.substring(reserve.uri.lastIndexOf("/") + 1));
         }
 
         json.add(reserveJson);
@@ -137,6 +171,43 @@ public class Course {
     return json;
   }
 
+  /**
+   * Replaces each reserve that links to a Box folder with one entry per file in that folder, each with its own
+   * download link. Folders that haven't been listed keep their original link.
+   *
+   * @param folders
+   *          the files of each listed folder, by folder ID
+   */
+  public JsonArray expandBoxFolders(JsonArray reserves, Map<String, List<BoxFileMetadata>> folders, Clock clock) {
+    JsonArray json = new JsonArray();
+
+    for (int i = 0; i < reserves.size(); i++) {
+      JsonObject reserveJson = reserves.getJsonObject(i);
+      List<BoxFileMetadata> files = folders.get(reserveJson.getString("boxFolderId", ""));
+      if (files == null) {
+        json.add(reserveJson);
+        continue;
+      }
+
+      for (BoxFileMetadata file : files) {
+        String token = BoxDownloadTokens.getInstance().issue(file.id, this.boxDownloadRedirect, clock);
+        if (token == null) {
+          continue;
+        }
+
+        String title = reserveJson.getString("title", "");
+        JsonObject fileJson = reserveJson.copy();
+        fileJson.remove("boxFolderId");
+        fileJson.put("title", title.isEmpty() ? file.name : title + " / " + file.name);
+        fileJson.put("uri", "/lti-courses/download-file/" + token);
+        fileJson.put("boxFileId", file.id);
+        json.add(fileJson);
+      }
+    }
+
+    return json;
+  }
+
   public JsonArray getCurrentReserves() {
     // A term date is stored as the localised datetime, eg, 2020-09-01T04:00:00.000Z.
     // An item reserve date is stored as the date, eg, 2020-09-04.
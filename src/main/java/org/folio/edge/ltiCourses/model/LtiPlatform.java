@@ -14,6 +14,7 @@ public class LtiPlatform {
   public String oidcAuthUrl;
   public String searchUrl;
   public Boolean boxDirectDownload = false;
+  public Boolean boxDownloadRedirect = false;
 
   public LtiPlatform(JsonObject configuration) {
     JsonObject platform = new JsonObject(
@@ -31,6 +32,7 @@ public class LtiPlatform {
     this.noReservesMessage = platform.getString("noReservesMessage", DEFAULT_RESERVES_NOT_FOUND_MESSAGE);
     this.searchUrl = platform.getString("searchUrl");
     this.boxDirectDownload = platform.getBoolean("boxDirectDownload", false);
+    this.boxDownloadRedirect = platform.getBoolean("boxDownloadRedirect", false);
   }
 
   public JsonObject asJsonObject() {
@@ -42,6 +44,7 @@ public class LtiPlatform {
       .put("oidcAuthUrl", oidcAuthUrl)
       .put("noReservesMessage", noReservesMessage)
       .put("searchUrl", searchUrl)
-      .put("boxDirectDownload", this.boxDirectDownload);
+      .put("boxDirectDownload", this.boxDirectDownload)
+      .put("boxDownloadRedirect", this.boxDownloadRedirect);
   }
 }
\ No newline at end of file
@@ -0,0 +1,269 @@
+package org.folio.edge.ltiCourses.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.vertx.core.json.JsonObject;
+
+import org.folio.edge.ltiCourses.cache.TtlCache;
+
+/**
+ * Decides which logins and launches this node takes on, so that one misbehaving LMS or a crawler can neither fill the
+ * OIDC state cache nor swamp Okapi, and so that an overloaded node answers quickly instead of slowly:
+ *
+ * - Each client address and each API key gets a token bucket; requests beyond it are answered with 429. These are
+ *   charged before anything about the request has been verified.
+ * - Each issuer of each API key gets a token bucket too, charged only once a launch's id_token has been verified, so
+ *   that nobody can use up a platform's bucket by claiming to be it.
+ * - At most {@link Limits#maxInFlight} launches are handled at once; more are answered with 503.
+ * - While the event loop a request arrives on lags more than {@link Limits#maxEventLoopLag}, it's answered with 503.
+ *
+ * The limits can be changed while the node is running, see {@link #setLimits(Limits)}. A limit of 0 is no limit.
+ */
+public class AdmissionControl {
+  private static final Logger logger = LogManager.getLogger(AdmissionControl.class);
+
+  public static final String OVERLOADED = "overloaded";
+  public static final String TOO_MANY_IN_FLIGHT = "too_many_in_flight";
+  public static final String ISSUER_RATE = "issuer_rate";
+  public static final String API_KEY_RATE = "api_key_rate";
+  public static final String CLIENT_RATE = "client_rate";
+
+  // Buckets are forgotten a while after they were made, so that the number kept stays bounded. At worst that grants a
+  // busy issuer, API key or client one extra burst per BUCKET_TTL.
+  private static final long BUCKET_TTL = 600000;
+  private static final int MAX_BUCKETS = 10000;
+
+  private volatile Limits limits;
+
+  private final TtlCache<TokenBucket> issuerBuckets = new TtlCache<>("admission_issuer", BUCKET_TTL, BUCKET_TTL, MAX_BUCKETS);
+  private final TtlCache<TokenBucket> apiKeyBuckets = new TtlCache<>("admission_api_key", BUCKET_TTL, BUCKET_TTL, MAX_BUCKETS);
+  private final TtlCache<TokenBucket> clientBuckets = new TtlCache<>("admission_client", BUCKET_TTL, BUCKET_TTL, MAX_BUCKETS);
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  public AdmissionControl(Limits limits) {
+    this.limits = limits;
+  }
+
+  public Limits getLimits() {
+    return limits;
+  }
+
+  public void setLimits(Limits limits) {
+    logger.info("Admission limits are now " + limits.asJsonObject().encode());
+    this.limits = limits;
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  /**
+   * @return why the request is turned away, or null if it may go ahead
+   */
+  public Rejection checkLoad() {
+    final long maxLag = limits.maxEventLoopLag;
+    if (maxLag > 0 && Metrics.eventLoopLag() > maxLag) {
+      return new Rejection(503, OVERLOADED, 1, "The service is overloaded, please try again shortly.");
+    }
+    return null;
+  }
+
+  /**
+   * Only to be called for launches whose id_token has been verified to come from the issuer. Each API key has its own
+   * buckets, so one tenant's launches never count against another's.
+   */
+  public Rejection takeIssuer(String apiKey, String issuer) {
+    final String key = apiKey == null || issuer == null ? null : apiKey + " " + issuer;
+    return take(issuerBuckets, key, limits.issuerRate, limits.issuerBurst, ISSUER_RATE,
+      "Too many requests from this LTI Platform, please try again shortly.");
+  }
+
+  public Rejection takeApiKey(String apiKey) {
+    return take(apiKeyBuckets, apiKey, limits.apiKeyRate, limits.apiKeyBurst, API_KEY_RATE,
+      "Too many requests for this API key, please try again shortly.");
+  }
+
+  /**
+   * @param address
+   *          the host the request came from
+   */
+  public Rejection takeClient(String address) {
+    return take(clientBuckets, address, limits.clientRate, limits.clientBurst, CLIENT_RATE,
+      "Too many requests, please try again shortly.");
+  }
+
+  /**
+   * Counts a launch as in flight until {@link #exit()} is called, unless too many already are.
+   *
+   * @return why the launch is turned away, or null if it may go ahead
+   */
+  public Rejection enter() {
+    final int max = limits.maxInFlight;
+    if (max <= 0) {
+      inFlight.incrementAndGet();
+      return null;
+    }
+
+    if (inFlight.incrementAndGet() > max) {
+      inFlight.decrementAndGet();
+      return new Rejection(503, TOO_MANY_IN_FLIGHT, 1, "The service is overloaded, please try again shortly.");
+    }
+    return null;
+  }
+
+  public void exit() {
+    inFlight.decrementAndGet();
+  }
+
+  private Rejection take(TtlCache<TokenBucket> buckets, String key, double rate, int burst, String reason,
+      String message) {
+    if (rate <= 0 || key == null) {
+      return null;
+    }
+
+    final TokenBucket bucket;
+    synchronized (buckets) {
+      final TokenBucket existing = buckets.get(key);
+      if (existing == null) {
+        bucket = new TokenBucket();
+        buckets.put(key, bucket);
+      } else {
+        bucket = existing;
+      }
+    }
+
+    final long wait = bucket.take(rate, Math.max(1, burst), System.currentTimeMillis());
+    if (wait > 0) {
+      return new Rejection(429, reason, (int) Math.ceil(wait / 1000.0), message);
+    }
+    return null;
+  }
+
+  public JsonObject asJsonObject() {
+    return new JsonObject()
+      .put("limits", limits.asJsonObject())
+      .put("inFlight", inFlight.get())
+      .put("issuers", issuerBuckets.size())
+      .put("apiKeys", apiKeyBuckets.size())
+      .put("clients", clientBuckets.size());
+  }
+
+  /**
+   * A bucket that starts full and refills continuously at the rate it's given on every take, so that changed limits
+   * apply to existing buckets straight away.
+   */
+  private static class TokenBucket {
+    private double tokens = -1;
+    private long lastRefill;
+
+    /**
+     * @return 0 if a token was taken, otherwise how many ms until one will be available
+     */
+    synchronized long take(double rate, int burst, long now) {
+      if (tokens < 0) {
+        tokens = burst;
+      } else {
+        tokens = Math.min(burst, tokens + (now - lastRefill) * rate / 1000);
+      }
+      lastRefill = now;
+
+      if (tokens < 1) {
+        return Math.max(1, (long) Math.ceil((1 - tokens) * 1000 / rate));
+      }
+      tokens -= 1;
+      return 0;
+    }
+  }
+
+  public static class Rejection {
+    public final int statusCode;
+    public final String reason;
+    public final int retryAfter;
+    public final String message;
+
+    /**
+     * @param retryAfter
+     *          seconds after which the client may try again
+     */
+    Rejection(int statusCode, String reason, int retryAfter, String message) {
+      this.statusCode = statusCode;
+      this.reason = reason;
+      this.retryAfter = retryAfter;
+      this.message = message;
+    }
+  }
+
+  public static class Limits {
+    public final double issuerRate;
+    public final int issuerBurst;
+    public final double apiKeyRate;
+    public final int apiKeyBurst;
+    public final double clientRate;
+    public final int clientBurst;
+    public final int maxInFlight;
+    public final long maxEventLoopLag;
+
+    /**
+     * @param issuerRate
+     *          verified launches per second allowed from each issuer of an API key
+     * @param issuerBurst
+     *          verified launches allowed from an issuer at once after it has been quiet
+     * @param apiKeyRate
+     *          requests per second allowed for each API key
+     * @param apiKeyBurst
+     *          requests allowed for an API key at once after it has been quiet
+     * @param clientRate
+     *          requests per second allowed from each client address
+     * @param clientBurst
+     *          requests allowed from a client address at once after it has been quiet
+     * @param maxInFlight
+     *          launches handled at once
+     * @param maxEventLoopLag
+     *          ms an event loop may lag before the requests arriving on it are turned away
+     */
+    public Limits(double issuerRate, int issuerBurst, double apiKeyRate, int apiKeyBurst, double clientRate,
+        int clientBurst, int maxInFlight, long maxEventLoopLag) {
+      this.issuerRate = issuerRate;
+      this.issuerBurst = issuerBurst;
+      this.apiKeyRate = apiKeyRate;
+      this.apiKeyBurst = apiKeyBurst;
+      this.clientRate = clientRate;
+      this.clientBurst = clientBurst;
+      this.maxInFlight = maxInFlight;
+      this.maxEventLoopLag = maxEventLoopLag;
+    }
+
+    /**
+     * @return these limits, with those that are present in the given JSON replaced
+     * @throws ClassCastException
+     *           if a limit in the JSON isn't a number
+     */
+    public Limits with(JsonObject changes) {
+      return new Limits(
+        changes.getNumber("issuerRate", issuerRate).doubleValue(),
+        changes.getNumber("issuerBurst", issuerBurst).intValue(),
+        changes.getNumber("apiKeyRate", apiKeyRate).doubleValue(),
+        changes.getNumber("apiKeyBurst", apiKeyBurst).intValue(),
+        changes.getNumber("clientRate", clientRate).doubleValue(),
+        changes.getNumber("clientBurst", clientBurst).intValue(),
+        changes.getNumber("maxInFlight", maxInFlight).intValue(),
+        changes.getNumber("maxEventLoopLagMs", maxEventLoopLag).longValue()
+      );
+    }
+
+    public JsonObject asJsonObject() {
+      return new JsonObject()
+        .put("issuerRate", issuerRate)
+        .put("issuerBurst", issuerBurst)
+        .put("apiKeyRate", apiKeyRate)
+        .put("apiKeyBurst", apiKeyBurst)
+        .put("clientRate", clientRate)
+        .put("clientBurst", clientBurst)
+        .put("maxInFlight", maxInFlight)
+        .put("maxEventLoopLagMs", maxEventLoopLag);
+    }
+  }
+}
@@ -0,0 +1,179 @@
+package org.folio.edge.ltiCourses.utils;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+
+/**
+ * Runs the calls of one blocking integration (the Box SDK, or fetching a platform's JWKS) off the event loop, with a
+ * limit on how many run at once and a timeout after which the caller gets a {@link TimeoutException} and the call is
+ * interrupted.
+ *
+ * Calls run either on a pool of platform threads ({@link Mode#WORKER}), or each on a virtual thread of its own
+ * ({@link Mode#VIRTUAL}), where waiting on the network costs next to nothing and interrupting a call also aborts its
+ * socket IO. Results are delivered on the event loop the call was made from.
+ */
+public class BlockingExecutor {
+  private static final Logger logger = LogManager.getLogger(BlockingExecutor.class);
+
+  private static final Map<String, BlockingExecutor> executors = new ConcurrentHashMap<>();
+
+  public enum Mode {
+    WORKER,
+    VIRTUAL;
+
+    public static Mode of(String mode) {
+      return valueOf(mode.trim().toUpperCase());
+    }
+  }
+
+  protected final Vertx vertx;
+  protected final String name;
+  protected final Mode mode;
+  protected final int maxConcurrent;
+  protected final long timeout;
+
+  protected final ExecutorService executor;
+
+  // Virtual threads are started for every call right away, so they take turns here instead of in a pool's queue.
+  protected final Semaphore permits;
+
+  private final AtomicInteger queued = new AtomicInteger();
+  private final AtomicInteger active = new AtomicInteger();
+  private final AtomicLong timeouts = new AtomicLong();
+
+  /**
+   * @param name
+   *          names the threads, eg: box-api
+   * @param maxConcurrent
+   *          how many calls may run at once
+   * @param timeout
+   *          how long in ms a call may take, including the time it waits to run
+   */
+  public BlockingExecutor(Vertx vertx, String name, Mode mode, int maxConcurrent, long timeout) {
+    logger.info("Using " + mode + " threads for " + name + ", at most " + maxConcurrent + " at once with a timeout of "
+      + timeout + " ms");
+
+    this.vertx = vertx;
+    this.name = name;
+    this.mode = mode;
+    this.maxConcurrent = maxConcurrent;
+    this.timeout = timeout;
+
+    if (mode == Mode.VIRTUAL) {
+      this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+      this.permits = new Semaphore(maxConcurrent, true);
+    } else {
+      this.executor = Executors.newFixedThreadPool(maxConcurrent, platformThreads(name));
+      this.permits = null;
+    }
+
+    final BlockingExecutor replaced = executors.put(name, this);
+    if (replaced != null) {
+      replaced.executor.shutdownNow();
+    }
+  }
+
+  /**
+   * @return every executor that hasn't been closed, by name
+   */
+  public static Map<String, BlockingExecutor> all() {
+    return executors;
+  }
+
+  public <T> Future<T> execute(Callable<T> call) {
+    final Context context = vertx.getOrCreateContext();
+    final Promise<T> promise = Promise.promise();
+
+    // Whoever flips this first, the call starting or the timeout, takes the call off the queue.
+    final AtomicBoolean dequeued = new AtomicBoolean();
+
+    queued.incrementAndGet();
+    final java.util.concurrent.Future<?> task = executor.submit(() -> {
+      if (!dequeued.compareAndSet(false, true)) {
+        return;
+      }
+
+      try {
+        if (permits != null) {
+          permits.acquire();
+        }
+      } catch (InterruptedException e) {
+        queued.decrementAndGet();
+        return;
+      }
+
+      queued.decrementAndGet();
+      active.incrementAndGet();
+      try {
+        final T result = call.call();
+        context.runOnContext(v -> promise.tryComplete(result));
+      } catch (Throwable t) {
+        context.runOnContext(v -> promise.tryFail(t));
+      } finally {
+        active.decrementAndGet();
+        if (permits != null) {
+          permits.release();
+        }
+      }
+    });
+
+    final long timer = vertx.setTimer(timeout, id -> {
+      if (promise.tryFail(new TimeoutException(name + " call timed out after " + timeout + " ms"))) {
+        timeouts.incrementAndGet();
+        if (dequeued.compareAndSet(false, true)) {
+          queued.decrementAndGet();
+        }
+        task.cancel(true);
+      }
+    });
+
+    return promise.future().andThen(ar -> vertx.cancelTimer(timer));
+  }
+
+  public Mode getMode() {
+    return mode;
+  }
+
+  public int getQueued() {
+    return queued.get();
+  }
+
+  public int getActive() {
+    return active.get();
+  }
+
+  public long getTimeouts() {
+    return timeouts.get();
+  }
+
+  public void close() {
+    executors.remove(name, this);
+    executor.shutdownNow();
+  }
+
+  private static ThreadFactory platformThreads(String name) {
+    final AtomicInteger count = new AtomicInteger();
+    return runnable -> {
+      final Thread thread = new Thread(runnable, name + "-" + count.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
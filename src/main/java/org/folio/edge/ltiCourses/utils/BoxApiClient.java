@@ -0,0 +1,206 @@
+package org.folio.edge.ltiCourses.utils;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import org.folio.edge.ltiCourses.cache.BoxFolderCache;
+import org.folio.edge.ltiCourses.cache.BoxMetadataCache;
+import org.folio.edge.ltiCourses.model.BoxFileMetadata;
+
+import com.box.sdk.BoxAPIConnection;
+import com.box.sdk.BoxAPIException;
+import com.box.sdk.BoxFile;
+import com.box.sdk.BoxFolder;
+import com.box.sdk.BoxItem;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+
+/**
+ * Asynchronous facade over the (blocking) Box.com Java SDK. Every call is paced by a {@link BoxApiScheduler} and run
+ * by a dedicated {@link BlockingExecutor} so that the event loop never waits on Box.
+ *
+ * Each verticle instance has its own client, while the API connection, scheduler and executor are shared. Results
+ * are always delivered on the event loop the call was made from.
+ */
+public class BoxApiClient {
+  public static final String[] FILE_INFO_FIELDS = new String[] { "name", "size", "sha1", "etag", "file_version" };
+
+  // Reserves are a reading list, not a file browser; anything past this is most likely a mistake.
+  public static final int MAX_FOLDER_FILES = 500;
+
+  protected final Vertx vertx;
+  protected final BoxAPIConnection api;
+  protected final BlockingExecutor executor;
+  protected final BoxApiScheduler scheduler;
+
+  private static final Logger logger = LogManager.getLogger(BoxApiClient.class);
+
+  public BoxApiClient(Vertx vertx, BoxAPIConnection api, BlockingExecutor executor, BoxApiScheduler scheduler) {
+    // The SDK's own retries sleep on the worker thread; the scheduler retries rate limited calls instead.
+    api.setMaxRetryAttempts(0);
+
+    this.vertx = vertx;
+    this.api = api;
+    this.executor = executor;
+    this.scheduler = scheduler;
+  }
+
+  public BoxApiScheduler getScheduler() {
+    return scheduler;
+  }
+
+  /**
+   * Runs a blocking SDK call on the executor, counting it in the {@link DependencyHealth} of Box. All tenants share
+   * one Box account, identical calls are coalesced across tenants, and downloads don't know their tenant at all, so
+   * Box calls are counted under the unknown tenant.
+   */
+  protected <T> Future<T> call(Callable<T> blockingCall) {
+    final DependencyHealth health = DependencyHealth.of(DependencyHealth.BOX);
+    final long start = health.begin(null);
+
+    return executor.execute(() -> JfrEvents.blocking("box_api", null, blockingCall))
+      .andThen(ar -> health.end(null, start, ar.succeeded() || !isBoxFailure(ar.cause())));
+  }
+
+  // Files that don't exist or that we can't see are the caller's problem, being rate limited is the scheduler's.
+  private static boolean isBoxFailure(Throwable cause) {
+    if (!(cause instanceof BoxAPIException)) {
+      return true;
+    }
+
+    // The SDK reports network errors with a response code of 0.
+    final int responseCode = ((BoxAPIException) cause).getResponseCode();
+    return responseCode <= 0 || responseCode >= 500;
+  }
+
+  /**
+   * The scheduler is shared by every verticle instance, so it may complete a call on another instance's event loop
+   * or on a worker thread. This hands the result back to the caller's event loop.
+   */
+  protected <T> Future<T> onCallerContext(Future<T> result) {
+    final Context context = vertx.getOrCreateContext();
+    final Promise<T> promise = Promise.promise();
+    result.onComplete(ar -> context.runOnContext(v -> promise.handle(ar)));
+    return promise.future();
+  }
+
+  public Future<BoxFile.Info> getFileInfo(String fileId) {
+    return onCallerContext(scheduler.submit("info:" + fileId, fileId, () -> call(() -> {
+      logger.debug("Fetching info of Box file " + fileId);
+      return new BoxFile(api, fileId).getInfo(FILE_INFO_FIELDS);
+    })));
+  }
+
+  /**
+   * Like {@link #getFileInfo(String)}, but served from the {@link BoxMetadataCache} when possible.
+   */
+  public Future<BoxFileMetadata> getFileMetadata(String fileId) {
+    if (BoxMetadataCache.isInitialized()) {
+      final BoxFileMetadata cached = BoxMetadataCache.getInstance().get(fileId);
+      if (cached != null) {
+        return Future.succeededFuture(cached);
+      }
+    }
+
+    return getFileInfo(fileId).map(info -> {
+      final BoxFileMetadata metadata = new BoxFileMetadata(info);
+      if (BoxMetadataCache.isInitialized()) {
+        BoxMetadataCache.getInstance().put(fileId, metadata);
+      }
+      return metadata;
+    });
+  }
+
+  /**
+   * Loads the metadata of all the given files into the {@link BoxMetadataCache}, fetching at most `parallelism` of
+   * them at a time so that one large course can't monopolize the Box worker pool. Files that can't be fetched are
+   * skipped, so the returned future always succeeds.
+   */
+  public Future<Void> prefetchFileMetadata(Collection<String> fileIds, int parallelism) {
+    final Iterator<String> pending = new LinkedHashSet<>(fileIds).iterator();
+    final List<Future<Void>> workers = new ArrayList<>();
+    for (int i = 0; i < parallelism && i < fileIds.size(); i++) {
+      workers.add(prefetchRemaining(pending));
+    }
+
+    return Future.join(workers).mapEmpty();
+  }
+
+  // Completions are delivered on the caller's context, so the iterator is never used concurrently.
+  private Future<Void> prefetchRemaining(Iterator<String> pending) {
+    if (!pending.hasNext()) {
+      return Future.succeededFuture();
+    }
+
+    final String fileId = pending.next();
+    return getFileMetadata(fileId)
+      .<Void>mapEmpty()
+      .recover(cause -> {
+        logger.warn("Failed to prefetch metadata of Box file " + fileId + ": " + cause.getMessage());
+        return Future.succeededFuture();
+      })
+      .compose(v -> prefetchRemaining(pending));
+  }
+
+  /**
+   * Lists the files directly inside a Box folder, served from the {@link BoxFolderCache} when possible. Subfolders
+   * and web links are left out. Since the listing carries the same fields as {@link #getFileInfo(String)}, the
+   * metadata of every file in it is put into the {@link BoxMetadataCache} too.
+   */
+  public Future<List<BoxFileMetadata>> getFolderFiles(String folderId) {
+    if (BoxFolderCache.isInitialized()) {
+      final List<BoxFileMetadata> cached = BoxFolderCache.getInstance().get(folderId);
+      if (cached != null) {
+        return Future.succeededFuture(cached);
+      }
+    }
+
+    return onCallerContext(scheduler.<List<BoxFileMetadata>>submit("folder:" + folderId, folderId, () -> call(() -> {
+      logger.debug("Listing files of Box folder " + folderId);
+
+      final List<BoxFileMetadata> files = new ArrayList<>();
+      for (BoxItem.Info item : new BoxFolder(api, folderId).getChildren(FILE_INFO_FIELDS)) {
+        if (files.size() >= MAX_FOLDER_FILES) {
+          logger.warn("Box folder " + folderId + " has more than " + MAX_FOLDER_FILES + " files, ignoring the rest");
+          break;
+        }
+        if (item instanceof BoxFile.Info) {
+          files.add(new BoxFileMetadata((BoxFile.Info) item));
+        }
+      }
+      return files;
+    }))).map(files -> {
+      if (BoxFolderCache.isInitialized()) {
+        BoxFolderCache.getInstance().put(folderId, files);
+      }
+      if (BoxMetadataCache.isInitialized()) {
+        for (BoxFileMetadata file : files) {
+          BoxMetadataCache.getInstance().put(file.id, file);
+        }
+      }
+      return files;
+    });
+  }
+
+  /**
+   * Resolves the short-lived URL that Box serves the file's content from. Fetching that URL doesn't need any
+   * authentication, so it can be streamed by a plain HTTP client or handed to the browser.
+   */
+  public Future<URL> getDownloadUrl(String fileId) {
+    return onCallerContext(scheduler.submit("download-url:" + fileId, fileId, () -> call(() -> {
+      logger.debug("Fetching download URL of Box file " + fileId);
+      return new BoxFile(api, fileId).getDownloadURL();
+    })));
+  }
+}
@@ -0,0 +1,356 @@
+package org.folio.edge.ltiCourses.utils;
+
+import java.time.Clock;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.box.sdk.BoxAPIException;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+
+/**
+ * Paces every call made to the Box API so that we stay within Box's rate limits instead of bouncing off them.
+ *
+ * - At most `maxConcurrent` calls are in flight at once, and at most `maxPerFile` for any one file.
+ * - Calls are started no faster than a token bucket allows.
+ * - A 429 from Box pauses all calls for as long as its Retry-After asks, after which the call is retried. Calls
+ *   that aren't made through the SDK, such as fetching a file's content, report a 429 as a
+ *   {@link RateLimitedException}.
+ * - Calls that can't be started before their deadline fail with a {@link ThrottledException}.
+ * - Identical calls (same key) that are queued or in flight at the same time share one result.
+ *
+ * One scheduler is shared by every verticle instance, so the limits hold for the whole JVM. Results are delivered on
+ * whichever thread the call completes on; {@link BoxApiClient} hands them back to the caller's event loop.
+ */
+public class BoxApiScheduler {
+  private static final Logger logger = LogManager.getLogger(BoxApiScheduler.class);
+
+  public static final long DEFAULT_RETRY_AFTER = 1000;
+
+  protected final Vertx vertx;
+  protected final int maxConcurrent;
+  protected final int maxPerFile;
+  protected final double permitsPerSecond;
+  protected final long queueTimeout;
+
+  // Everything below is guarded by `this`.
+  private final LinkedList<Task<?>> queue = new LinkedList<>();
+  private final Map<String, Integer> inFlightPerFile = new HashMap<>();
+  private int inFlight = 0;
+  private double tokens;
+  private long lastRefill;
+  private long pausedUntil = 0;
+  private long wakeUpTimer = -1;
+
+  private final Map<String, Future<?>> pending = new ConcurrentHashMap<>();
+
+  private final AtomicLong throttleEvents = new AtomicLong();
+  private final AtomicLong queueTimeouts = new AtomicLong();
+  private final AtomicLong coalescedCalls = new AtomicLong();
+
+  public BoxApiScheduler(Vertx vertx, int maxConcurrent, int maxPerFile, double permitsPerSecond, long queueTimeout) {
+    logger.info("Using max concurrent calls: " + maxConcurrent);
+    logger.info("Using max concurrent calls per file: " + maxPerFile);
+    logger.info("Using calls per second: " + permitsPerSecond);
+    logger.info("Using queue timeout: " + queueTimeout);
+
+    this.vertx = vertx;
+    this.maxConcurrent = maxConcurrent;
+    this.maxPerFile = maxPerFile;
+    this.permitsPerSecond = permitsPerSecond;
+    this.queueTimeout = queueTimeout;
+    this.tokens = Math.max(1, permitsPerSecond);
+    this.lastRefill = System.currentTimeMillis();
+  }
+
+  /**
+   * Queues a call to the Box API.
+   *
+   * @param key
+   *          identifies the call; concurrent calls with the same key are only made once
+   * @param fileId
+   *          the Box file or folder the call is about, for the per-file limit
+   * @param call
+   *          starts the call
+   */
+  @SuppressWarnings("unchecked")
+  public <T> Future<T> submit(String key, String fileId, Supplier<Future<T>> call) {
+    final Future<?> existing = pending.get(key);
+    if (existing != null) {
+      coalescedCalls.incrementAndGet();
+      return (Future<T>) existing;
+    }
+
+    final Task<T> task = new Task<>(key, fileId, call, System.currentTimeMillis() + queueTimeout);
+    final Future<?> raced = pending.putIfAbsent(key, task.promise.future());
+    if (raced != null) {
+      coalescedCalls.incrementAndGet();
+      return (Future<T>) raced;
+    }
+
+    task.promise.future().onComplete(ar -> pending.remove(key));
+    task.deadlineTimer = vertx.setTimer(queueTimeout + 1, id -> dispatch());
+
+    synchronized (this) {
+      queue.add(task);
+    }
+    dispatch();
+
+    return task.promise.future();
+  }
+
+  /**
+   * @return the delay in ms that a Retry-After header asks for, in either its delta-seconds or its HTTP-date form, or
+   *         a default delay if the header is missing or can't be parsed
+   */
+  public static long parseRetryAfter(String retryAfter, Clock clock) {
+    if (retryAfter == null || retryAfter.trim().isEmpty()) {
+      return DEFAULT_RETRY_AFTER;
+    }
+
+    final String value = retryAfter.trim();
+    try {
+      return Math.max(0, Long.parseLong(value)) * 1000;
+    } catch (NumberFormatException e) {
+      // Not a number of seconds, so it should be a date.
+    }
+
+    try {
+      final ZonedDateTime retryAt = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+      return Math.max(0, retryAt.toInstant().toEpochMilli() - clock.millis());
+    } catch (DateTimeParseException e) {
+      return DEFAULT_RETRY_AFTER;
+    }
+  }
+
+  public int getMaxConcurrent() {
+    return maxConcurrent;
+  }
+
+  public long getQueueTimeout() {
+    return queueTimeout;
+  }
+
+  public synchronized int getQueueDepth() {
+    return queue.size();
+  }
+
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  public synchronized boolean isPaused() {
+    return System.currentTimeMillis() < pausedUntil;
+  }
+
+  public long getThrottleEvents() {
+    return throttleEvents.get();
+  }
+
+  public long getQueueTimeouts() {
+    return queueTimeouts.get();
+  }
+
+  public long getCoalescedCalls() {
+    return coalescedCalls.get();
+  }
+
+  protected void dispatch() {
+    final List<Task<?>> expired = new ArrayList<>();
+    final List<Task<?>> ready = new ArrayList<>();
+
+    synchronized (this) {
+      final long now = System.currentTimeMillis();
+      refill(now);
+
+      final Iterator<Task<?>> i = queue.iterator();
+      while (i.hasNext()) {
+        final Task<?> task = i.next();
+
+        if (task.deadline <= now) {
+          i.remove();
+          expired.add(task);
+          continue;
+        }
+
+        if (now < pausedUntil) {
+          scheduleWakeUp(pausedUntil - now);
+          continue;
+        }
+
+        if (inFlight >= maxConcurrent || inFlightPerFile.getOrDefault(task.fileId, 0) >= maxPerFile) {
+          // Calls about other files may still fit, and completions trigger another dispatch.
+          continue;
+        }
+
+        if (tokens < 1) {
+          scheduleWakeUp((long) Math.ceil((1 - tokens) * 1000 / permitsPerSecond));
+          continue;
+        }
+
+        tokens -= 1;
+        i.remove();
+        inFlight++;
+        inFlightPerFile.merge(task.fileId, 1, Integer::sum);
+        ready.add(task);
+      }
+    }
+
+    for (Task<?> task : expired) {
+      queueTimeouts.incrementAndGet();
+      task.promise.tryFail(new ThrottledException("Timed out waiting to call the Box API", retryAfter()));
+    }
+
+    for (Task<?> task : ready) {
+      start(task);
+    }
+  }
+
+  protected <T> void start(Task<T> task) {
+    Future<T> call;
+    try {
+      call = task.call.get();
+    } catch (Exception e) {
+      call = Future.failedFuture(e);
+    }
+
+    call.onComplete(ar -> {
+      synchronized (this) {
+        inFlight--;
+        inFlightPerFile.computeIfPresent(task.fileId, (fileId, count) -> count > 1 ? count - 1 : null);
+      }
+
+      if (ar.succeeded()) {
+        vertx.cancelTimer(task.deadlineTimer);
+        task.promise.tryComplete(ar.result());
+      } else if (isRateLimited(ar.cause())) {
+        throttle(retryAfterOf(ar.cause()));
+
+        // Try again once Box lets us, as long as the caller is still prepared to wait.
+        synchronized (this) {
+          queue.addFirst(task);
+        }
+      } else {
+        vertx.cancelTimer(task.deadlineTimer);
+        task.promise.tryFail(ar.cause());
+      }
+
+      dispatch();
+    });
+  }
+
+  protected void throttle(long retryAfter) {
+    throttleEvents.incrementAndGet();
+    logger.warn("Box API is rate limiting us, pausing all calls for " + retryAfter + " ms");
+
+    synchronized (this) {
+      pausedUntil = Math.max(pausedUntil, System.currentTimeMillis() + retryAfter);
+    }
+  }
+
+  protected boolean isRateLimited(Throwable cause) {
+    return cause instanceof RateLimitedException
+      || cause instanceof BoxAPIException && ((BoxAPIException) cause).getResponseCode() == 429;
+  }
+
+  protected long retryAfterOf(Throwable cause) {
+    if (cause instanceof RateLimitedException) {
+      return ((RateLimitedException) cause).retryAfter;
+    }
+
+    final Map<String, List<String>> headers = ((BoxAPIException) cause).getHeaders();
+    if (headers == null) {
+      return DEFAULT_RETRY_AFTER;
+    }
+
+    for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+      if ("Retry-After".equalsIgnoreCase(header.getKey()) && header.getValue() != null && !header.getValue().isEmpty()) {
+        return parseRetryAfter(header.getValue().get(0), Clock.systemUTC());
+      }
+    }
+    return DEFAULT_RETRY_AFTER;
+  }
+
+  /**
+   * @return a hint in ms for clients as to when capacity is likely to be available again
+   */
+  protected synchronized long retryAfter() {
+    return Math.max(DEFAULT_RETRY_AFTER, pausedUntil - System.currentTimeMillis());
+  }
+
+  private void refill(long now) {
+    tokens = Math.min(Math.max(1, permitsPerSecond), tokens + (now - lastRefill) * permitsPerSecond / 1000);
+    lastRefill = now;
+  }
+
+  private void scheduleWakeUp(long delay) {
+    if (wakeUpTimer != -1) {
+      return;
+    }
+
+    wakeUpTimer = vertx.setTimer(Math.max(1, delay), id -> {
+      synchronized (this) {
+        wakeUpTimer = -1;
+      }
+      dispatch();
+    });
+  }
+
+  protected static class Task<T> {
+    final String key;
+    final String fileId;
+    final Supplier<Future<T>> call;
+    final long deadline;
+    final Promise<T> promise = Promise.promise();
+    long deadlineTimer;
+
+    Task(String key, String fileId, Supplier<Future<T>> call, long deadline) {
+      this.key = key;
+      this.fileId = fileId;
+      this.call = call;
+      this.deadline = deadline;
+    }
+  }
+
+  /**
+   * Box turned a call away with a 429, which the scheduler retries once Box lets it.
+   */
+  public static class RateLimitedException extends RuntimeException {
+
+    private static final long serialVersionUID = 6052839718540329417L;
+
+    public final long retryAfter;
+
+    public RateLimitedException(String msg, long retryAfter) {
+      super(msg);
+      this.retryAfter = retryAfter;
+    }
+  }
+
+  public static class ThrottledException extends RuntimeException {
+
+    private static final long serialVersionUID = 2812390456218312647L;
+
+    public final long retryAfter;
+
+    public ThrottledException(String msg, long retryAfter) {
+      super(msg);
+      this.retryAfter = retryAfter;
+    }
+  }
+}
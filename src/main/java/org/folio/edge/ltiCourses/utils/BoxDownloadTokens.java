@@ -0,0 +1,137 @@
+package org.folio.edge.ltiCourses.utils;
+
+import java.time.Clock;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Issues and verifies the self-contained tokens used in Box download links. A token carries the Box file ID, how
+ * the file should be delivered, and when the link expires, all signed with an HMAC. Verifying one needs no lookup,
+ * so links work on any node that shares the signing secret.
+ *
+ * Expiry is rounded up to the end of the next TTL window, so every render within one window produces the same link
+ * for a file and each link stays valid for at least one full TTL.
+ */
+public class BoxDownloadTokens {
+
+  private static final Logger logger = LogManager.getLogger(BoxDownloadTokens.class);
+
+  private static final Pattern FILE_ID = Pattern.compile("[A-Za-z0-9_-]+");
+  private static final String SEPARATOR = ".";
+
+  private static volatile BoxDownloadTokens instance = null;
+
+  private final HmacSigner signer;
+  private final long ttl;
+
+  private BoxDownloadTokens(HmacSigner signer, long ttl) {
+    logger.info("Using TTL: " + ttl);
+    this.signer = signer;
+    this.ttl = ttl;
+  }
+
+  /**
+   * Get the BoxDownloadTokens singleton. the singleton must be initialized before
+   * calling this method.
+   *
+   * @see {@link #initialize(HmacSigner, long)}
+   *
+   * @return the BoxDownloadTokens singleton instance.
+   */
+  public static BoxDownloadTokens getInstance() {
+    final BoxDownloadTokens current = instance;
+    if (current == null) {
+      throw new NotInitializedException(
+          "You must call BoxDownloadTokens.initialize(signer, ttl) before you can get the singleton instance");
+    }
+    return current;
+  }
+
+  /**
+   * Creates a new BoxDownloadTokens instance, replacing the existing one if it
+   * already exists. Tokens issued with a different secret will no longer verify.
+   *
+   * @param signer
+   *          signs and verifies the tokens
+   * @param ttl
+   *          minimum time in ms that an issued token stays valid
+   * @return the new BoxDownloadTokens singleton instance
+   */
+  public static synchronized BoxDownloadTokens initialize(HmacSigner signer, long ttl) {
+    if (instance != null) {
+      logger.warn("Reinitializing download tokens");
+    }
+    instance = new BoxDownloadTokens(signer, ttl);
+    return instance;
+  }
+
+  /**
+   * @return a token for the file, or null if the file ID can't be safely put into a link
+   */
+  public String issue(String fileId, boolean redirect, Clock clock) {
+    if (fileId == null || !FILE_ID.matcher(fileId).matches()) {
+      return null;
+    }
+
+    final long now = clock.millis();
+    final long expires = (now - now % ttl + 2 * ttl) / 1000;
+    final String payload = fileId + SEPARATOR + (redirect ? "r" : "p") + SEPARATOR + expires;
+
+    return payload + SEPARATOR + signer.sign(payload);
+  }
+
+  /**
+   * @return the file the token refers to, or null if it's malformed, forged or expired
+   */
+  public Token verify(String token, Clock clock) {
+    if (token == null) {
+      return null;
+    }
+
+    final int signatureStart = token.lastIndexOf(SEPARATOR);
+    if (signatureStart < 0) {
+      return null;
+    }
+
+    final String payload = token.substring(0, signatureStart);
+    if (!signer.verify(payload, token.substring(signatureStart + 1))) {
+      return null;
+    }
+
+    final String[] parts = payload.split(Pattern.quote(SEPARATOR));
+    if (parts.length != 3) {
+      return null;
+    }
+
+    try {
+      if (Long.parseLong(parts[2]) * 1000 < clock.millis()) {
+        return null;
+      }
+    } catch (NumberFormatException e) {
+      return null;
+    }
+
+    return new Token(parts[0], "r".equals(parts[1]));
+  }
+
+  public static class Token {
+    public final String fileId;
+    public final boolean redirect;
+
+    public Token(String fileId, boolean redirect) {
+      this.fileId = fileId;
+      this.redirect = redirect;
+    }
+  }
+
+  public static class NotInitializedException extends RuntimeException {
+
+    private static final long serialVersionUID = 4747532964596334577L;
+
+    public NotInitializedException(String msg) {
+      super(msg);
+    }
+  }
+}
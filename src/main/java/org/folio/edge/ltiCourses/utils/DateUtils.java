@@ -1,10 +1,23 @@
 package org.folio.edge.ltiCourses.utils;
 
-import java.text.SimpleDateFormat;
+import java.text.ParsePosition;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.ResolverStyle;
+import java.time.temporal.ChronoField;
 
 public class DateUtils {
-  private static SimpleDateFormat sourceFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-  private static SimpleDateFormat storageFormat = new SimpleDateFormat("yyyy-MM-dd");
+  // DateTimeFormatters are immutable and thread-safe, so these can be shared by every event loop. The source format
+  // is as lenient as the SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'") it replaced: fields may have fewer or more
+  // digits, out of range ones roll over and anything after the 'Z' is ignored.
+  private static final DateTimeFormatter sourceFormat = new DateTimeFormatterBuilder()
+    .appendPattern("u-M-d'T'H:m:s")
+    .appendFraction(ChronoField.NANO_OF_SECOND, 1, 9, true)
+    .appendLiteral('Z')
+    .toFormatter()
+    .withResolverStyle(ResolverStyle.LENIENT);
+  private static final DateTimeFormatter storageFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
   public static String normalizeDate(String date) {
     if (date.isEmpty()) {
@@ -13,7 +26,7 @@ public class DateUtils {
 
     if (date.contains("T")) {
       try {
-        return storageFormat.format(sourceFormat.parse(date));
+        return storageFormat.format(LocalDateTime.from(sourceFormat.parse(date, new ParsePosition(0))));
       } catch (Exception e) {
         return "";
       }
@@ -21,4 +34,4 @@ public class DateUtils {
 
     return date;
   }
-}
\ No newline at end of file
+}
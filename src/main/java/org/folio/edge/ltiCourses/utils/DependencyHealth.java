@@ -0,0 +1,147 @@
+package org.folio.edge.ltiCourses.utils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Keeps track of the calls we make to a service we depend on (FOLIO or Box): how many are in flight for each tenant,
+ * how long the most recent ones took and whether they failed.
+ *
+ * A dependency is considered down once {@link #FAILURE_THRESHOLD} calls in a row have failed, until a call succeeds
+ * or {@link #RECOVERY_WINDOW} passes without a failure. The latter matters because a node that isn't ready stops
+ * getting traffic, so it might otherwise never get to see a call succeed again.
+ */
+public class DependencyHealth {
+
+  public static final String OKAPI = "okapi";
+  public static final String BOX = "box";
+
+  public static final String UP = "up";
+  public static final String DOWN = "down";
+
+  public static final int FAILURE_THRESHOLD = 5;
+  public static final long RECOVERY_WINDOW = 30000;
+
+  // Enough calls for the 99th percentile to mean something, few enough that it's still recent.
+  protected static final int WINDOW = 256;
+
+  private static final Map<String, DependencyHealth> dependencies = new ConcurrentHashMap<>();
+
+  protected final String name;
+
+  private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+  // Everything below is guarded by `this`. The latencies are a ring buffer of the last WINDOW calls.
+  private final long[] latencies = new long[WINDOW];
+  private final boolean[] failures = new boolean[WINDOW];
+  private long calls = 0;
+  private int consecutiveFailures = 0;
+  private long lastFailure = 0;
+
+  protected DependencyHealth(String name) {
+    this.name = name;
+  }
+
+  public static DependencyHealth of(String name) {
+    return dependencies.computeIfAbsent(name, DependencyHealth::new);
+  }
+
+  /**
+   * @return every dependency a call has been made to so far
+   */
+  public static Map<String, DependencyHealth> all() {
+    return dependencies;
+  }
+
+  /**
+   * Records the start of a call.
+   *
+   * @return the start time, to be passed to {@link #end(String, long, boolean)}
+   */
+  public long begin(String tenant) {
+    inFlight.computeIfAbsent(tenant == null ? Metrics.UNKNOWN_TENANT : tenant, t -> new AtomicInteger()).incrementAndGet();
+    return System.nanoTime();
+  }
+
+  public void end(String tenant, long start, boolean succeeded) {
+    final AtomicInteger count = inFlight.get(tenant == null ? Metrics.UNKNOWN_TENANT : tenant);
+    if (count != null) {
+      count.decrementAndGet();
+    }
+
+    synchronized (this) {
+      final int slot = (int) (calls++ % WINDOW);
+      latencies[slot] = System.nanoTime() - start;
+      failures[slot] = !succeeded;
+
+      if (succeeded) {
+        consecutiveFailures = 0;
+      } else {
+        consecutiveFailures++;
+        lastFailure = System.currentTimeMillis();
+      }
+    }
+  }
+
+  public int getInFlight() {
+    int total = 0;
+    for (AtomicInteger count : inFlight.values()) {
+      total += count.get();
+    }
+    return total;
+  }
+
+  public synchronized boolean isDown() {
+    return consecutiveFailures >= FAILURE_THRESHOLD && System.currentTimeMillis() - lastFailure < RECOVERY_WINDOW;
+  }
+
+  public synchronized String getState() {
+    return isDown() ? DOWN : UP;
+  }
+
+  public JsonObject asJsonObject() {
+    final JsonObject inFlightPerTenant = new JsonObject();
+    for (Map.Entry<String, AtomicInteger> count : inFlight.entrySet()) {
+      if (count.getValue().get() > 0) {
+        inFlightPerTenant.put(count.getKey(), count.getValue().get());
+      }
+    }
+
+    synchronized (this) {
+      final int recent = (int) Math.min(calls, WINDOW);
+      final long[] sorted = Arrays.copyOf(latencies, recent);
+      Arrays.sort(sorted);
+
+      int recentFailures = 0;
+      for (int i = 0; i < recent; i++) {
+        recentFailures += failures[i] ? 1 : 0;
+      }
+
+      return new JsonObject()
+        .put("state", getState())
+        .put("inFlight", inFlightPerTenant)
+        .put("calls", calls)
+        .put("consecutiveFailures", consecutiveFailures)
+        .put("recent", new JsonObject()
+          .put("calls", recent)
+          .put("errorRate", recent == 0 ? 0 : (double) recentFailures / recent)
+          .put("p50Ms", percentile(sorted, 0.5))
+          .put("p90Ms", percentile(sorted, 0.9))
+          .put("p99Ms", percentile(sorted, 0.99))
+          .put("maxMs", percentile(sorted, 1)));
+    }
+  }
+
+  private static double percentile(long[] sorted, double p) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    final int i = (int) Math.ceil(p * sorted.length) - 1;
+    return sorted[Math.max(0, i)] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+  }
+}
@@ -0,0 +1,89 @@
+package org.folio.edge.ltiCourses.utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * The one on-demand Java Flight Recorder recording that can be started and stopped through /admin/jfr. Recordings
+ * are bounded in both duration and size, so one that's forgotten about stops by itself. These methods do file IO and
+ * must not be called on an event loop.
+ */
+public class FlightRecording {
+  private FlightRecording() {}
+
+  private static final Logger logger = LogManager.getLogger(FlightRecording.class);
+
+  public static final String NAME = "edge-lti-courses";
+
+  // Guarded by the class.
+  private static Recording recording = null;
+
+  /**
+   * @param settings
+   *          the JFR configuration to use, eg: default or profile
+   * @return false if a recording is already running
+   */
+  public static synchronized boolean start(String settings, Duration duration, long maxSize)
+      throws IOException, ParseException {
+    if (recording != null && recording.getState() == RecordingState.RUNNING) {
+      return false;
+    }
+    discard();
+
+    logger.info("Starting a " + settings + " flight recording for at most " + duration + " and " + maxSize + " bytes");
+    recording = new Recording(Configuration.getConfiguration(settings));
+    recording.setName(NAME);
+    recording.setToDisk(true);
+    recording.setDuration(duration);
+    recording.setMaxSize(maxSize);
+    recording.start();
+    return true;
+  }
+
+  /**
+   * Stops the recording, if it hasn't already stopped by itself, and dumps it to a temporary file that is the
+   * caller's to delete.
+   *
+   * @return the file, or null if no recording was started
+   */
+  public static synchronized Path stop() throws IOException {
+    if (recording == null) {
+      return null;
+    }
+
+    if (recording.getState() == RecordingState.RUNNING) {
+      recording.stop();
+    }
+
+    final Path file = Files.createTempFile(NAME + "-", ".jfr");
+    try {
+      recording.dump(file);
+    } finally {
+      discard();
+    }
+
+    logger.info("Stopped the flight recording, " + Files.size(file) + " bytes");
+    return file;
+  }
+
+  public static synchronized boolean isRunning() {
+    return recording != null && recording.getState() == RecordingState.RUNNING;
+  }
+
+  private static void discard() {
+    if (recording != null) {
+      recording.close();
+      recording = null;
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package org.folio.edge.ltiCourses.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Signs and verifies short strings with HMAC-SHA256. Signatures are URL-safe base64 so they can be used in paths
+ * and cookies as-is.
+ */
+public class HmacSigner {
+  private static final String ALGORITHM = "HmacSHA256";
+
+  private final SecretKeySpec key;
+
+  // Mac instances aren't thread-safe, but are worth reusing.
+  private final ThreadLocal<Mac> macs;
+
+  public HmacSigner(byte[] secret) {
+    this.key = new SecretKeySpec(secret, ALGORITHM);
+    this.macs = ThreadLocal.withInitial(this::newMac);
+  }
+
+  public static HmacSigner withSecret(String secret) {
+    return new HmacSigner(secret.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static HmacSigner withRandomSecret() {
+    final byte[] secret = new byte[32];
+    new SecureRandom().nextBytes(secret);
+    return new HmacSigner(secret);
+  }
+
+  public String sign(String payload) {
+    final byte[] signature = macs.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+  }
+
+  public boolean verify(String payload, String signature) {
+    if (payload == null || signature == null) {
+      return false;
+    }
+
+    return MessageDigest.isEqual(
+      sign(payload).getBytes(StandardCharsets.UTF_8),
+      signature.getBytes(StandardCharsets.UTF_8)
+    );
+  }
+
+  private Mac newMac() {
+    try {
+      final Mac mac = Mac.getInstance(ALGORITHM);
+      mac.init(key);
+      return mac;
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Failed to initialize " + ALGORITHM, e);
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package org.folio.edge.ltiCourses.utils;
+
+/**
+ * A single byte range of a resource, as requested with a `Range: bytes=...` header. Multiple ranges aren't
+ * supported; such requests are treated as if no range had been asked for, which the HTTP spec allows.
+ */
+public class HttpRange {
+  public static final HttpRange UNSATISFIABLE = new HttpRange(-1, -1);
+
+  private static final String BYTES_UNIT = "bytes=";
+
+  // Both inclusive, like in the header itself.
+  public final long start;
+  public final long end;
+
+  public HttpRange(long start, long end) {
+    this.start = start;
+    this.end = end;
+  }
+
+  /**
+   * @return the requested range clamped to the resource's size, {@link #UNSATISFIABLE} if none of the requested
+   *         bytes exist, or null if the header is absent, malformed, or asks for more than one range
+   */
+  public static HttpRange parse(String header, long size) {
+    if (header == null || !header.startsWith(BYTES_UNIT) || header.indexOf(',') >= 0) {
+      return null;
+    }
+
+    final String spec = header.substring(BYTES_UNIT.length()).trim();
+    final int dash = spec.indexOf('-');
+    if (dash < 0) {
+      return null;
+    }
+
+    try {
+      final String first = spec.substring(0, dash).trim();
+      final String last = spec.substring(dash + 1).trim();
+
+      if (first.isEmpty()) {
+        // A suffix range, ie, the last N bytes.
+        final long suffixLength = Long.parseLong(last);
+        if (suffixLength <= 0 || size <= 0) {
+          return UNSATISFIABLE;
+        }
+        return new HttpRange(Math.max(0, size - suffixLength), size - 1);
+      }
+
+      final long start = Long.parseLong(first);
+      final long end = last.isEmpty() ? size - 1 : Long.parseLong(last);
+      if (start < 0 || end < start) {
+        return null;
+      }
+      if (start >= size) {
+        return UNSATISFIABLE;
+      }
+      return new HttpRange(start, Math.min(end, size - 1));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  public long length() {
+    return end - start + 1;
+  }
+
+  public String asRangeHeader() {
+    return BYTES_UNIT + start + "-" + end;
+  }
+
+  public String asContentRange(long size) {
+    return "bytes " + start + "-" + end + "/" + size;
+  }
+}
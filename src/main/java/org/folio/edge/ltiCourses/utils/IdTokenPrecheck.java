@@ -0,0 +1,110 @@
+package org.folio.edge.ltiCourses.utils;
+
+import java.time.Clock;
+import java.util.Date;
+import java.util.Set;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.exceptions.JWTDecodeException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+
+/**
+ * Rejects launches whose id_token can't possibly verify, using nothing but the token itself, before any platform
+ * lookup, JWKS fetch or signature check is paid for. A token that passes still has to be verified; this only sheds
+ * the junk cheaply.
+ *
+ * Every rejection is counted by reason in {@link Metrics}.
+ */
+public class IdTokenPrecheck {
+  public static final String TOO_LARGE = "too_large";
+  public static final String MALFORMED = "malformed";
+  public static final String UNSUPPORTED_ALGORITHM = "unsupported_algorithm";
+  public static final String MISSING_KEY_ID = "missing_key_id";
+  public static final String MISSING_ISSUER = "missing_issuer";
+  public static final String UNKNOWN_ISSUER = "unknown_issuer";
+  public static final String EXPIRED = "expired";
+  public static final String NOT_YET_VALID = "not_yet_valid";
+
+  // Platforms' keys are looked up as RSA keys and tokens are verified with RS256, so nothing else can verify.
+  private static final String ALGORITHM = "RS256";
+
+  protected final int maxSize;
+  protected final Set<String> knownIssuers;
+  protected final Clock clock;
+
+  /**
+   * @param maxSize
+   *          how many characters an id_token may have at most
+   * @param knownIssuers
+   *          the issuers launches are accepted from, or an empty set to leave that to the platform lookup
+   */
+  public IdTokenPrecheck(int maxSize, Set<String> knownIssuers, Clock clock) {
+    this.maxSize = maxSize;
+    this.knownIssuers = knownIssuers;
+    this.clock = clock;
+  }
+
+  /**
+   * @return the decoded token, or the reason and a message for the launch if it was rejected
+   */
+  public Result check(String idToken) {
+    if (idToken.length() > maxSize) {
+      return reject(TOO_LARGE, "id_token is larger than " + maxSize + " characters");
+    }
+
+    final DecodedJWT jwt;
+    try {
+      jwt = JWT.decode(idToken);
+    } catch (JWTDecodeException e) {
+      return reject(MALFORMED, "id_token is not a valid JWT");
+    }
+
+    if (!ALGORITHM.equals(jwt.getAlgorithm())) {
+      return reject(UNSUPPORTED_ALGORITHM, "The JWT was signed with an invalid algorithm");
+    }
+    if (jwt.getKeyId() == null || jwt.getKeyId().isEmpty()) {
+      return reject(MISSING_KEY_ID, "The JWT doesn't name the key it was signed with");
+    }
+
+    final String issuer = jwt.getIssuer();
+    if (issuer == null || issuer.isEmpty()) {
+      return reject(MISSING_ISSUER, "Issuer not provided");
+    }
+    if (!knownIssuers.isEmpty() && !knownIssuers.contains(issuer)) {
+      return reject(UNKNOWN_ISSUER, "No LTI Platform is known for this request's issuer.");
+    }
+
+    // The same checks the verifier makes later on, to the second and without leeway, so nothing that would verify is
+    // turned away.
+    final Date now = new Date(clock.millis() / 1000 * 1000);
+    if (jwt.getExpiresAt() != null && now.after(jwt.getExpiresAt())) {
+      return reject(EXPIRED, "The JWT has expired");
+    }
+    if (jwt.getNotBefore() != null && now.before(jwt.getNotBefore())) {
+      return reject(NOT_YET_VALID, "The JWT is not valid yet");
+    }
+
+    return new Result(jwt, null, null);
+  }
+
+  protected Result reject(String reason, String message) {
+    Metrics.recordIdTokenRejection(reason);
+    return new Result(null, reason, message);
+  }
+
+  public static class Result {
+    public final DecodedJWT jwt;
+    public final String reason;
+    public final String message;
+
+    Result(DecodedJWT jwt, String reason, String message) {
+      this.jwt = jwt;
+      this.reason = reason;
+      this.message = message;
+    }
+
+    public boolean passed() {
+      return jwt != null;
+    }
+  }
+}
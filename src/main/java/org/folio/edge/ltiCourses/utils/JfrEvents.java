@@ -0,0 +1,152 @@
+package org.folio.edge.ltiCourses.utils;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import io.vertx.core.Context;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder events for what this module does, so that it shows up next to the JVM's own events in a
+ * recording. Events cost next to nothing while no recording is running.
+ */
+public class JfrEvents {
+  private JfrEvents() {}
+
+  private static final String CATEGORY = "LTI Courses";
+
+  // Event loop lag below this is normal scheduling jitter.
+  protected static final long EVENT_LOOP_LAG_THRESHOLD = TimeUnit.MILLISECONDS.toNanos(10);
+
+  @Name("org.folio.edge.ltiCourses.Stage")
+  @Label("Stage")
+  @Description("A stage of handling a launch or a download")
+  @Category(CATEGORY)
+  @StackTrace(false)
+  public static class StageEvent extends Event {
+    @Label("Handler")
+    public String handler;
+
+    @Label("Stage")
+    public String stage;
+
+    @Label("Tenant")
+    public String tenant;
+
+    @Label("Course ID Type")
+    public String courseIdType;
+
+    @Label("Outcome")
+    public String outcome;
+  }
+
+  @Name("org.folio.edge.ltiCourses.CacheLookup")
+  @Label("Cache Lookup")
+  @Category(CATEGORY)
+  @StackTrace(false)
+  public static class CacheLookupEvent extends Event {
+    @Label("Cache")
+    public String cache;
+
+    @Label("Hit")
+    public boolean hit;
+  }
+
+  @Name("org.folio.edge.ltiCourses.BoxTransfer")
+  @Label("Box Transfer")
+  @Description("A download of a Box file, whether it was proxied, served from the content cache or redirected")
+  @Category(CATEGORY)
+  @StackTrace(false)
+  public static class BoxTransferEvent extends Event {
+    @Label("File ID")
+    public String fileId;
+
+    @Label("Source")
+    public String source;
+
+    @Label("Status")
+    public int status;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+  }
+
+  @Name("org.folio.edge.ltiCourses.BlockingCall")
+  @Label("Blocking Call")
+  @Description("A call that blocks its thread, which stalls every request on it when made on an event loop")
+  @Category(CATEGORY)
+  public static class BlockingCallEvent extends Event {
+    @Label("Operation")
+    public String operation;
+
+    @Label("Target")
+    public String target;
+
+    @Label("On Event Loop")
+    public boolean onEventLoop;
+  }
+
+  @Name("org.folio.edge.ltiCourses.EventLoopLag")
+  @Label("Event Loop Lag")
+  @Description("An event loop timer that fired noticeably late, because something was holding up the event loop")
+  @Category(CATEGORY)
+  @StackTrace(false)
+  public static class EventLoopLagEvent extends Event {
+    @Label("Lag")
+    @Timespan(Timespan.NANOSECONDS)
+    public long lag;
+  }
+
+  public static void cacheLookup(String cache, boolean hit) {
+    final CacheLookupEvent event = new CacheLookupEvent();
+    if (event.isEnabled()) {
+      event.cache = cache;
+      event.hit = hit;
+      event.commit();
+    }
+  }
+
+  public static void eventLoopLag(long lag) {
+    if (lag < EVENT_LOOP_LAG_THRESHOLD) {
+      return;
+    }
+
+    final EventLoopLagEvent event = new EventLoopLagEvent();
+    if (event.isEnabled()) {
+      event.lag = lag;
+      event.commit();
+    }
+  }
+
+  /**
+   * Makes a blocking call, recording how long it blocked its thread and whether that thread was an event loop.
+   *
+   * @param operation
+   *          what the call does, eg: jwks_fetch
+   * @param target
+   *          what it's made to, eg: a URL, or null
+   */
+  public static <T> T blocking(String operation, String target, Callable<T> call) throws Exception {
+    final BlockingCallEvent event = new BlockingCallEvent();
+    event.begin();
+    try {
+      return call.call();
+    } finally {
+      event.end();
+      if (event.shouldCommit()) {
+        event.operation = operation;
+        event.target = target;
+        event.onEventLoop = Context.isOnEventLoopThread();
+        event.commit();
+      }
+    }
+  }
+}
@@ -0,0 +1,191 @@
+package org.folio.edge.ltiCourses.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.Base64;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.ltiCourses.cache.TtlCache;
+import org.folio.edge.ltiCourses.model.LtiPlatform;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Issues and verifies the session cookies given out with a verified launch, so that the iframe can show the course's
+ * reserves again without another launch. A session carries the tenant, the issuer of the platform, the course's id and
+ * when it expires, all signed with an HMAC. Like {@link BoxDownloadTokens}, verifying one needs no lookup, so sessions
+ * work on any node that shares the signing secret. The course is looked up again by whoever uses the session, which
+ * keeps the cookie small and what's shown current.
+ *
+ * The platform isn't looked up again: each node remembers the platforms of the launches it verified for as long as
+ * their sessions last, see {@link #putPlatform(String, LtiPlatform)}. Only a session given out by another node needs
+ * its platform looked up.
+ */
+public class LaunchSessions {
+
+  private static final Logger logger = LogManager.getLogger(LaunchSessions.class);
+
+  public static final String COOKIE_NAME = "lti-courses-session";
+
+  private static final String SEPARATOR = ".";
+
+  // Platforms are configured per tenant, so there are only ever a few of them.
+  private static final int PLATFORM_CAPACITY = 1000;
+
+  private static volatile LaunchSessions instance = null;
+
+  private final HmacSigner signer;
+  private final long ttl;
+  private final TtlCache<LtiPlatform> platforms;
+
+  private LaunchSessions(HmacSigner signer, long ttl) {
+    logger.info("Using TTL: " + ttl);
+    this.signer = signer;
+    this.ttl = ttl;
+    platforms = new TtlCache<>("launch_session_platform", ttl, ttl, PLATFORM_CAPACITY);
+  }
+
+  /**
+   * Get the LaunchSessions singleton. the singleton must be initialized before
+   * calling this method.
+   *
+   * @see {@link #initialize(HmacSigner, long)}
+   *
+   * @return the LaunchSessions singleton instance.
+   */
+  public static LaunchSessions getInstance() {
+    final LaunchSessions current = instance;
+    if (current == null) {
+      throw new NotInitializedException(
+          "You must call LaunchSessions.initialize(signer, ttl) before you can get the singleton instance");
+    }
+    return current;
+  }
+
+  /**
+   * Creates a new LaunchSessions instance, replacing the existing one if it
+   * already exists. Sessions issued with a different secret will no longer verify.
+   *
+   * @param signer
+   *          signs and verifies the sessions
+   * @param ttl
+   *          time in ms that an issued session stays valid
+   * @return the new LaunchSessions singleton instance
+   */
+  public static synchronized LaunchSessions initialize(HmacSigner signer, long ttl) {
+    if (instance != null) {
+      logger.warn("Reinitializing launch sessions");
+    }
+    instance = new LaunchSessions(signer, ttl);
+    return instance;
+  }
+
+  public static boolean isInitialized() {
+    return instance != null;
+  }
+
+  /**
+   * @return how long in seconds an issued session stays valid, for the cookie's Max-Age
+   */
+  public long getMaxAge() {
+    return ttl / 1000;
+  }
+
+  public String issue(String tenant, String issuer, String courseId, Clock clock) {
+    final JsonObject session = new JsonObject()
+      .put("tenant", tenant)
+      .put("issuer", issuer)
+      .put("courseId", courseId)
+      .put("expires", (clock.millis() + ttl) / 1000);
+
+    final String payload = Base64.getUrlEncoder().withoutPadding()
+      .encodeToString(session.encode().getBytes(StandardCharsets.UTF_8));
+
+    return payload + SEPARATOR + signer.sign(payload);
+  }
+
+  /**
+   * Remembers the platform of a verified launch for as long as the session given out with it stays valid. Every launch
+   * puts it again, so that a session never outlives its platform here, and changes to the platform's configuration
+   * are picked up.
+   */
+  public void putPlatform(String tenant, LtiPlatform platform) {
+    platforms.put(tenant + " " + platform.issuer, platform);
+  }
+
+  /**
+   * @return the platform of a launch that this node verified while a session given out with it may still be valid, or
+   *         null if there's been none
+   */
+  public LtiPlatform getPlatform(String tenant, String issuer) {
+    return platforms.get(tenant + " " + issuer);
+  }
+
+  public void removePlatform(String tenant, String issuer) {
+    platforms.remove(tenant + " " + issuer);
+  }
+
+  /**
+   * @return the session, or null if it's malformed, forged or expired
+   */
+  public Session verify(String value, Clock clock) {
+    if (value == null) {
+      return null;
+    }
+
+    final int signatureStart = value.lastIndexOf(SEPARATOR);
+    if (signatureStart < 0) {
+      return null;
+    }
+
+    final String payload = value.substring(0, signatureStart);
+    if (!signer.verify(payload, value.substring(signatureStart + 1))) {
+      return null;
+    }
+
+    try {
+      final JsonObject session = new JsonObject(
+        new String(Base64.getUrlDecoder().decode(payload), StandardCharsets.UTF_8));
+
+      if (session.getLong("expires") * 1000 < clock.millis()) {
+        return null;
+      }
+
+      final Session verified = new Session(
+        session.getString("tenant"),
+        session.getString("issuer"),
+        session.getString("courseId")
+      );
+      if (verified.tenant == null || verified.issuer == null || verified.courseId == null) {
+        throw new IllegalArgumentException("tenant, issuer or courseId is missing");
+      }
+      return verified;
+    } catch (RuntimeException e) {
+      // Only a session we signed gets this far, so this means its format has changed since.
+      logger.warn("Failed to read launch session: " + e.getMessage());
+      return null;
+    }
+  }
+
+  public static class Session {
+    public final String tenant;
+    public final String issuer;
+    public final String courseId;
+
+    public Session(String tenant, String issuer, String courseId) {
+      this.tenant = tenant;
+      this.issuer = issuer;
+      this.courseId = courseId;
+    }
+  }
+
+  public static class NotInitializedException extends RuntimeException {
+
+    private static final long serialVersionUID = 8214371659820193754L;
+
+    public NotInitializedException(String msg) {
+      super(msg);
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package org.folio.edge.ltiCourses.utils;
 
+import io.vertx.core.MultiMap;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
@@ -8,12 +9,128 @@ import org.folio.edge.core.utils.OkapiClient;
 
 public class LtiCoursesOkapiClient extends OkapiClient {
 
+  protected TenantScheduler scheduler;
+  protected DependencyHealth health;
+  protected String traceparent;
+
   public LtiCoursesOkapiClient(OkapiClient client) {
+    this(client, null);
+  }
+
+  /**
+   * @param scheduler
+   *          whose turn every call waits for, or null to make calls right away
+   */
+  public LtiCoursesOkapiClient(OkapiClient client, TenantScheduler scheduler) {
+    this(client, scheduler, DependencyHealth.of(DependencyHealth.OKAPI));
+  }
+
+  /**
+   * @param health
+   *          what every call is counted in, or null to count calls nowhere, as the warm-up's aren't to Okapi
+   */
+  public LtiCoursesOkapiClient(OkapiClient client, TenantScheduler scheduler, DependencyHealth health) {
     super(client);
+    init(scheduler, health);
   }
 
   protected LtiCoursesOkapiClient(Vertx vertx, String okapiURL, String tenant, int timeout) {
+    this(vertx, okapiURL, tenant, timeout, null, DependencyHealth.of(DependencyHealth.OKAPI));
+  }
+
+  /**
+   * @see #LtiCoursesOkapiClient(OkapiClient, TenantScheduler, DependencyHealth)
+   */
+  protected LtiCoursesOkapiClient(Vertx vertx, String okapiURL, String tenant, int timeout, TenantScheduler scheduler,
+      DependencyHealth health) {
     super(vertx, okapiURL, tenant, timeout);
+    init(scheduler, health);
+  }
+
+  // The two OkapiClient constructors can't be chained, so whatever the constructor, this sets the rest up.
+  private void init(TenantScheduler scheduler, DependencyHealth health) {
+    this.scheduler = scheduler;
+    this.health = health;
+  }
+
+  public String getTenant() {
+    return tenant;
+  }
+
+  /**
+   * Makes the calls that follow part of the given trace, until it's changed again.
+   *
+   * @see StageTimer#traceparent()
+   */
+  public void setTraceparent(String traceparent) {
+    this.traceparent = traceparent;
+  }
+
+  /**
+   * Makes a GET request that's part of the current trace and counted in the {@link DependencyHealth} of Okapi, once
+   * the {@link TenantScheduler} gives this tenant its turn.
+   */
+  protected void tracedGet(
+    String url,
+    Handler<HttpResponse<Buffer>> responseHandler,
+    Handler<Throwable> exceptionHandler
+  ) {
+    // The trace may have moved on by the time our turn comes.
+    final String traceparent = this.traceparent;
+
+    if (scheduler == null) {
+      tracedGet(url, traceparent, responseHandler, exceptionHandler, () -> {});
+      return;
+    }
+
+    scheduler.acquire(tenant).onComplete(ar -> {
+      if (ar.failed()) {
+        exceptionHandler.handle(ar.cause());
+        return;
+      }
+      tracedGet(url, traceparent, responseHandler, exceptionHandler, ar.result());
+    });
+  }
+
+  private void tracedGet(
+    String url,
+    String traceparent,
+    Handler<HttpResponse<Buffer>> responseHandler,
+    Handler<Throwable> exceptionHandler,
+    Runnable release
+  ) {
+    final DependencyHealth okapi = health;
+    final long start = okapi == null ? 0 : okapi.begin(tenant);
+
+    final Handler<HttpResponse<Buffer>> countedResponseHandler = response -> {
+      release.run();
+      if (okapi != null) {
+        okapi.end(tenant, start, response.statusCode() < 500);
+      }
+      responseHandler.handle(response);
+    };
+    final Handler<Throwable> countedExceptionHandler = t -> {
+      release.run();
+      if (okapi != null) {
+        okapi.end(tenant, start, false);
+      }
+      exceptionHandler.handle(t);
+    };
+
+    if (traceparent == null) {
+      get(url, tenant, countedResponseHandler, countedExceptionHandler);
+      return;
+    }
+
+    MultiMap headers = MultiMap.caseInsensitiveMultiMap().add(Tracing.TRACEPARENT, traceparent);
+    get(url, tenant, headers, countedResponseHandler, countedExceptionHandler);
+  }
+
+  /**
+   * @return the size in bytes of a response's body, for {@link Metrics#recordUpstreamResponseSize}
+   */
+  public static long bodySize(HttpResponse<Buffer> response) {
+    return response.body() == null ? 0 : response.body().length();
   }
 
   public void getPlatform(
@@ -28,9 +145,8 @@ public class LtiCoursesOkapiClient extends OkapiClient {
       issuerQuery = issuerQuery.substring(issuerQuery.indexOf("://") + 3);
     }
 
-    get(
+    tracedGet(
       okapiURL + "/configurations/entries?limit=100&query=(module=EDGELTICOURSES+and+configName=platform+and+code=" + issuerQuery + ")",
-      tenant,
       responseHandler,
       exceptionHandler
     );
@@ -41,9 +157,8 @@ public class LtiCoursesOkapiClient extends OkapiClient {
     Handler<HttpResponse<Buffer>> responseHandler,
     Handler<Throwable> exceptionHandler
   ) {
-    get(
+    tracedGet(
       okapiURL + "/coursereserves/courses?" + query,
-      tenant,
       responseHandler,
       exceptionHandler
     );
@@ -54,9 +169,8 @@ public class LtiCoursesOkapiClient extends OkapiClient {
     Handler<HttpResponse<Buffer>> responseHandler,
     Handler<Throwable> exceptionHandler
   ) {
-    get(
+    tracedGet(
       okapiURL + "/coursereserves/courselistings/" + courseId + "/reserves?unused=9999&expand=*&limit=500&query=cql.allRecords=1%20sortby%20copiedItem.title",
-      tenant,
       responseHandler,
       exceptionHandler
     );
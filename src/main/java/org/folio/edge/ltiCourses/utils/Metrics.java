@@ -0,0 +1,183 @@
+package org.folio.edge.ltiCourses.utils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.JvmGcMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmMemoryMetrics;
+import io.micrometer.core.instrument.binder.system.ProcessorMetrics;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import io.vertx.core.Vertx;
+
+/**
+ * The module's metrics, kept in a single Prometheus registry that's scraped from /admin/metrics.
+ */
+public class Metrics {
+  private Metrics() {}
+
+  public static final String UNKNOWN_TENANT = "unknown";
+
+  private static final PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+
+  // Meters recorded on every request, by their tag values. Looking them up here is much cheaper than going through a
+  // builder and the registry each time.
+  private static final Map<List<String>, Timer> stageTimers = new ConcurrentHashMap<>();
+  private static final Map<List<String>, DistributionSummary> upstreamResponseSizes = new ConcurrentHashMap<>();
+
+  // The most recent lag of every monitored event loop, in ns, by thread name.
+  private static final Map<String, AtomicLong> eventLoopLags = new ConcurrentHashMap<>();
+
+  static {
+    new JvmMemoryMetrics().bindTo(registry);
+    new JvmGcMetrics().bindTo(registry);
+    new ProcessorMetrics().bindTo(registry);
+  }
+
+  public static MeterRegistry registry() {
+    return registry;
+  }
+
+  /**
+   * @return all metrics in the Prometheus text exposition format
+   */
+  public static String scrape() {
+    return registry.scrape();
+  }
+
+  public static void recordStage(String handler, String stage, String tenant, String outcome, long nanos) {
+    final List<String> tags = Arrays.asList(handler, stage, tenant == null ? UNKNOWN_TENANT : tenant, outcome);
+    stageTimers.computeIfAbsent(tags, t -> Timer.builder("lti.courses.stage")
+        .description("Time spent in each stage of handling a request")
+        .tag("handler", t.get(0))
+        .tag("stage", t.get(1))
+        .tag("tenant", t.get(2))
+        .tag("outcome", t.get(3))
+        .publishPercentileHistogram()
+        .register(registry))
+      .record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  public static void recordUpstreamResponseSize(String upstream, String tenant, long bytes) {
+    final List<String> tags = Arrays.asList(upstream, tenant == null ? UNKNOWN_TENANT : tenant);
+    upstreamResponseSizes.computeIfAbsent(tags, t -> DistributionSummary.builder("lti.courses.upstream.response.size")
+        .description("Size of the response bodies received from FOLIO and Box")
+        .baseUnit("bytes")
+        .tag("upstream", t.get(0))
+        .tag("tenant", t.get(1))
+        .publishPercentileHistogram()
+        .register(registry))
+      .record(bytes);
+  }
+
+  public static void recordIdTokenRejection(String reason) {
+    Counter.builder("lti.courses.id.token.rejections")
+      .description("Launches rejected by the id_token pre-check, before any upstream call")
+      .tag("reason", reason)
+      .register(registry)
+      .increment();
+  }
+
+  public static void recordDuplicateLaunch() {
+    Counter.builder("lti.courses.launch.duplicates")
+      .description("Launches answered with the response to an identical launch posted before them")
+      .register(registry)
+      .increment();
+  }
+
+  public static void recordAdmissionRejection(String route, String reason) {
+    Counter.builder("lti.courses.admission.rejections")
+      .description("Logins and launches turned away by admission control")
+      .tag("route", route)
+      .tag("reason", reason)
+      .register(registry)
+      .increment();
+  }
+
+  /**
+   * Removes every meter tagged with the given tenant, so that the warm-up's launches don't show up in any scrape.
+   */
+  public static void removeTenant(String tenant) {
+    stageTimers.keySet().removeIf(tags -> tenant.equals(tags.get(2)));
+    upstreamResponseSizes.keySet().removeIf(tags -> tenant.equals(tags.get(1)));
+
+    for (Meter meter : registry.getMeters()) {
+      if (tenant.equals(meter.getId().getTag("tenant"))) {
+        registry.remove(meter);
+      }
+    }
+  }
+
+  /**
+   * Exposes a cache's hits and misses. The counts are read through the suppliers on every scrape, so they follow the
+   * cache even when it's reinitialized.
+   */
+  public static void registerCache(String cache, Supplier<Long> hits, Supplier<Long> misses) {
+    FunctionCounter.builder("lti.courses.cache.gets", hits, h -> h.get())
+      .description("Cache lookups")
+      .tag("cache", cache)
+      .tag("result", "hit")
+      .register(registry);
+    FunctionCounter.builder("lti.courses.cache.gets", misses, m -> m.get())
+      .description("Cache lookups")
+      .tag("cache", cache)
+      .tag("result", "miss")
+      .register(registry);
+  }
+
+  /**
+   * Measures how late a timer on the current event loop fires compared to when it was due. Anything well above a
+   * millisecond means something is blocking or hogging the event loop. Call it once from each verticle instance, so
+   * that every event loop in use is watched.
+   *
+   * @param interval
+   *          how often to measure, in ms
+   */
+  public static void monitorEventLoopLag(Vertx vertx, long interval) {
+    final AtomicLong lastLag = new AtomicLong();
+    final Timer lag = Timer.builder("vertx.eventloop.lag")
+      .description("How late event loop timers fire")
+      .publishPercentileHistogram()
+      .register(registry);
+    Gauge.builder("vertx.eventloop.lag.last", lastLag, l -> l.get() / 1_000_000.0)
+      .description("How late the most recent event loop timer fired")
+      .baseUnit("milliseconds")
+      .tag("event_loop", Thread.currentThread().getName())
+      .register(registry);
+    eventLoopLags.put(Thread.currentThread().getName(), lastLag);
+
+    scheduleLagProbe(vertx, interval, lag, lastLag);
+  }
+
+  /**
+   * @return how late, in ms, the most recent timer on the calling thread's event loop fired, or 0 if that event loop
+   *         isn't monitored
+   */
+  public static long eventLoopLag() {
+    final AtomicLong lag = eventLoopLags.get(Thread.currentThread().getName());
+    return lag == null ? 0 : TimeUnit.NANOSECONDS.toMillis(lag.get());
+  }
+
+  private static void scheduleLagProbe(Vertx vertx, long interval, Timer lag, AtomicLong lastLag) {
+    final long due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(interval);
+    vertx.setTimer(interval, id -> {
+      final long late = Math.max(0, System.nanoTime() - due);
+      lag.record(late, TimeUnit.NANOSECONDS);
+      lastLag.set(late);
+      JfrEvents.eventLoopLag(late);
+      scheduleLagProbe(vertx, interval, lag, lastLag);
+    });
+  }
+}
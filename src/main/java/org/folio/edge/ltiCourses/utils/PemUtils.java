@@ -2,11 +2,18 @@ package org.folio.edge.ltiCourses.utils;
 
 import org.bouncycastle.util.io.pem.PemObject;
 import org.bouncycastle.util.io.pem.PemReader;
+import org.bouncycastle.util.io.pem.PemWriter;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.Key;
 import java.security.KeyFactory;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
@@ -69,4 +76,23 @@ public class PemUtils {
         return PemUtils.getPrivateKey(bytes, algorithm);
     }
 
+    /**
+     * Writes a key in the format the read methods expect: PKCS8 for private keys, X509 for public keys. The file is
+     * only readable by its owner, where the file system allows it, and is replaced atomically so that a reader never
+     * sees half a key.
+     */
+    public static void writeKeyToFile(Key key, String type, String filepath) throws IOException {
+        Path path = Paths.get(filepath);
+        // Temporary files are only readable by their owner on POSIX file systems.
+        Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp); PemWriter pemWriter = new PemWriter(writer)) {
+                pemWriter.writeObject(new PemObject(type, key.getEncoded()));
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package org.folio.edge.ltiCourses.utils;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Decides whether this node should be getting traffic, for /admin/ready. It isn't ready while anything is still
+ * warming up (see {@link #warmingUp(String)}) or while Okapi is down.
+ *
+ * Box being down doesn't make a node unready: every node shares the same Box account, so it would take all of them
+ * out of rotation at once, launches included, over what only affects downloads. Its state is reported all the same.
+ */
+public class Readiness {
+  private Readiness() {}
+
+  private static final Logger logger = LogManager.getLogger(Readiness.class);
+
+  private static final Set<String> warmingUp = ConcurrentHashMap.newKeySet();
+
+  private static volatile long timeToReady = -1;
+
+  /**
+   * Marks the node as not ready until {@link #warmedUp(String)} is called with the same name.
+   */
+  public static void warmingUp(String name) {
+    warmingUp.add(name);
+  }
+
+  public static void warmedUp(String name) {
+    warmingUp.remove(name);
+
+    if (warmingUp.isEmpty() && timeToReady < 0) {
+      timeToReady = ManagementFactory.getRuntimeMXBean().getUptime();
+      logger.info("Ready " + timeToReady + " ms after the JVM started");
+    }
+  }
+
+  /**
+   * @return the time in ms from the start of the JVM until nothing was warming up any more for the first time, or -1
+   *         if something still is
+   */
+  public static long getTimeToReady() {
+    return timeToReady;
+  }
+
+  public static boolean isReady() {
+    if (!warmingUp.isEmpty()) {
+      return false;
+    }
+
+    return !DependencyHealth.of(DependencyHealth.OKAPI).isDown();
+  }
+
+  public static JsonObject asJsonObject() {
+    final JsonArray down = new JsonArray();
+    for (Map.Entry<String, DependencyHealth> dependency : DependencyHealth.all().entrySet()) {
+      if (dependency.getValue().isDown()) {
+        down.add(dependency.getKey());
+      }
+    }
+
+    return new JsonObject()
+      .put("ready", isReady())
+      .put("warmingUp", new JsonArray(warmingUp.stream().sorted().toList()))
+      .put("timeToReadyMs", timeToReady)
+      .put("dependenciesDown", down);
+  }
+}
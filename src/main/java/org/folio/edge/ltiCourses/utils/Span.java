@@ -0,0 +1,95 @@
+package org.folio.edge.ltiCourses.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * One timed operation within a sampled trace, identified the same way as in W3C Trace Context so that the trace can
+ * be followed into Okapi. Requests that aren't sampled don't get spans at all.
+ */
+public class Span {
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  public final String traceId;
+  public final String spanId;
+  public final String parentSpanId;
+  public final String name;
+
+  protected final Tracing tracing;
+  protected final long startEpochMicros;
+  protected final long startNanos;
+  protected final Map<String, Object> attributes = new LinkedHashMap<>();
+
+  private long durationMicros = -1;
+  private String status;
+
+  protected Span(Tracing tracing, String traceId, String parentSpanId, String name) {
+    this.tracing = tracing;
+    this.traceId = traceId;
+    this.spanId = randomHex(16);
+    this.parentSpanId = parentSpanId;
+    this.name = name;
+    this.startEpochMicros = System.currentTimeMillis() * 1000;
+    this.startNanos = System.nanoTime();
+  }
+
+  public Span child(String name) {
+    return new Span(tracing, traceId, spanId, name);
+  }
+
+  public Span setAttribute(String key, Object value) {
+    attributes.put(key, value);
+    return this;
+  }
+
+  /**
+   * Ends the span and hands it to the exporter. Only the first call counts.
+   */
+  public synchronized void end(String status) {
+    if (durationMicros >= 0) {
+      return;
+    }
+
+    this.durationMicros = (System.nanoTime() - startNanos) / 1000;
+    this.status = status;
+
+    tracing.export(this);
+  }
+
+  /**
+   * @return the value of the traceparent header that makes a downstream service's spans children of this one
+   */
+  public String traceparent() {
+    return "00-" + traceId + "-" + spanId + "-01";
+  }
+
+  public JsonObject asJsonObject() {
+    return new JsonObject()
+      .put("traceId", traceId)
+      .put("spanId", spanId)
+      .put("parentSpanId", parentSpanId)
+      .put("name", name)
+      .put("startEpochMicros", startEpochMicros)
+      .put("durationMicros", durationMicros)
+      .put("status", status)
+      .put("attributes", new JsonObject(attributes));
+  }
+
+  protected static String randomHex(int length) {
+    final ThreadLocalRandom random = ThreadLocalRandom.current();
+    final char[] hex = new char[length];
+    long bits = 0;
+    for (int i = 0; i < length; i++) {
+      // Each random long is good for 16 hex digits.
+      if (i % 16 == 0) {
+        bits = random.nextLong();
+      }
+      hex[i] = HEX_DIGITS[(int) (bits & 0xf)];
+      bits >>>= 4;
+    }
+    return new String(hex);
+  }
+}
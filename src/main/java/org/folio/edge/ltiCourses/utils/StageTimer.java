@@ -0,0 +1,95 @@
+package org.folio.edge.ltiCourses.utils;
+
+import io.vertx.ext.web.RoutingContext;
+
+/**
+ * Times one stage of handling a request, and traces it as a child of the request's span if there is one, eg:
+ *
+ * <pre>
+ * StageTimer timer = StageTimer.start(ctx, "launch", "jwt_verify");
+ * ...
+ * timer.stop(StageTimer.SUCCESS);
+ * </pre>
+ *
+ * The tenant and course ID type are read from the routing context when the timer is stopped, since they're often only
+ * known by then. Every stage is also recorded as a {@link JfrEvents.StageEvent}.
+ */
+public class StageTimer {
+  public static final String TENANT_KEY = "tenant";
+  public static final String COURSE_ID_TYPE_KEY = "courseIdType";
+
+  public static final String SUCCESS = "success";
+  public static final String FAILURE = "failure";
+  public static final String ERROR = "error";
+
+  protected final RoutingContext ctx;
+  protected final String handler;
+  protected final String stage;
+  protected final long start;
+
+  protected final Span span;
+  protected final JfrEvents.StageEvent event = new JfrEvents.StageEvent();
+
+  private boolean stopped = false;
+
+  protected StageTimer(RoutingContext ctx, String handler, String stage) {
+    this.ctx = ctx;
+    this.handler = handler;
+    this.stage = stage;
+    this.start = System.nanoTime();
+
+    final Span parent = ctx == null ? null : ctx.get(Tracing.SPAN_KEY);
+    this.span = parent == null ? null : parent.child(stage);
+
+    event.begin();
+  }
+
+  public static StageTimer start(RoutingContext ctx, String handler, String stage) {
+    return new StageTimer(ctx, handler, stage);
+  }
+
+  /**
+   * Records the stage's duration. Only the first call counts, so it's safe to stop a timer on every path out of a
+   * stage.
+   *
+   * @param outcome
+   *          {@link #SUCCESS}, {@link #FAILURE} when the stage ran but rejected the request or got a bad response,
+   *          or {@link #ERROR} when it couldn't run at all
+   */
+  public void stop(String outcome) {
+    if (stopped) {
+      return;
+    }
+    stopped = true;
+
+    final String tenant = ctx == null ? null : ctx.get(TENANT_KEY);
+    Metrics.recordStage(handler, stage, tenant, outcome, System.nanoTime() - start);
+    if (span != null) {
+      span.end(outcome);
+    }
+
+    event.end();
+    if (event.shouldCommit()) {
+      event.handler = handler;
+      event.stage = stage;
+      event.tenant = tenant;
+      event.courseIdType = ctx == null ? null : ctx.get(COURSE_ID_TYPE_KEY);
+      event.outcome = outcome;
+      event.commit();
+    }
+  }
+
+  /**
+   * @return the stage's span, to add attributes to, or null if the request isn't traced
+   */
+  public Span span() {
+    return span;
+  }
+
+  /**
+   * @return the traceparent header that makes calls made during this stage part of the request's trace, or null
+   */
+  public String traceparent() {
+    return span == null ? null : span.traceparent();
+  }
+}
@@ -0,0 +1,104 @@
+package org.folio.edge.ltiCourses.utils;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.WriteStream;
+
+/**
+ * Writes everything to a primary stream and, on a best-effort basis, to a secondary one. Backpressure from either
+ * stream pauses the writer, but a failure of the secondary stream never affects the primary: the secondary is simply
+ * dropped and {@link #secondaryResult()} reports the failure.
+ */
+public class TeeWriteStream implements WriteStream<Buffer> {
+  protected final WriteStream<Buffer> primary;
+  protected final WriteStream<Buffer> secondary;
+  protected final Promise<Void> secondaryResult = Promise.promise();
+
+  protected boolean secondaryFailed = false;
+  protected Handler<Void> drainHandler;
+
+  public TeeWriteStream(WriteStream<Buffer> primary, WriteStream<Buffer> secondary) {
+    this.primary = primary;
+    this.secondary = secondary;
+    this.secondary.exceptionHandler(this::failSecondary);
+  }
+
+  /**
+   * Completes once the secondary stream has been fully written and ended, or fails as soon as it can't be.
+   */
+  public Future<Void> secondaryResult() {
+    return secondaryResult.future();
+  }
+
+  @Override
+  public TeeWriteStream exceptionHandler(Handler<Throwable> handler) {
+    primary.exceptionHandler(handler);
+    return this;
+  }
+
+  @Override
+  public Future<Void> write(Buffer data) {
+    if (!secondaryFailed) {
+      secondary.write(data).onFailure(this::failSecondary);
+    }
+    return primary.write(data);
+  }
+
+  @Override
+  public Future<Void> end() {
+    if (!secondaryFailed) {
+      secondary.end().onComplete(ar -> {
+        if (ar.succeeded()) {
+          secondaryResult.tryComplete();
+        } else {
+          failSecondary(ar.cause());
+        }
+      });
+    }
+    return primary.end();
+  }
+
+  @Override
+  public TeeWriteStream setWriteQueueMaxSize(int maxSize) {
+    primary.setWriteQueueMaxSize(maxSize);
+    secondary.setWriteQueueMaxSize(maxSize);
+    return this;
+  }
+
+  @Override
+  public boolean writeQueueFull() {
+    return primary.writeQueueFull() || (!secondaryFailed && secondary.writeQueueFull());
+  }
+
+  @Override
+  public TeeWriteStream drainHandler(Handler<Void> handler) {
+    drainHandler = handler;
+    if (handler == null) {
+      primary.drainHandler(null);
+      secondary.drainHandler(null);
+      return this;
+    }
+
+    // Only signal drain once neither stream is full anymore.
+    final Handler<Void> whenBothDrained = v -> {
+      if (!writeQueueFull()) {
+        handler.handle(null);
+      }
+    };
+    primary.drainHandler(whenBothDrained);
+    secondary.drainHandler(whenBothDrained);
+    return this;
+  }
+
+  public void failSecondary(Throwable cause) {
+    secondaryFailed = true;
+    secondaryResult.tryFail(cause);
+
+    // The writer may have been waiting on the secondary alone, so let it carry on with the primary.
+    if (drainHandler != null && !primary.writeQueueFull()) {
+      drainHandler.handle(null);
+    }
+  }
+}
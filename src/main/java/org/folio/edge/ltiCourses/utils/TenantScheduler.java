@@ -0,0 +1,230 @@
+package org.folio.edge.ltiCourses.utils;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.micrometer.core.instrument.Timer;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Shares the calls made to Okapi fairly between tenants, so that one big tenant's start of term doesn't crowd out the
+ * small tenants on the same deployment.
+ *
+ * - At most `maxInFlight` calls are in flight at once, and at most `maxPerTenant` for any one tenant.
+ * - When calls have to wait, each tenant gets its own queue, and the queues take turns in proportion to the tenants'
+ *   weights (start-time fair queueing): a tenant with weight 2 gets twice the turns of one with weight 1 while both
+ *   are waiting, and a tenant that has been idle starts level with the others rather than with turns saved up.
+ * - Calls that can't be started within `queueTimeout` fail with a {@link QueueTimeoutException}.
+ *
+ * One scheduler is shared by every verticle instance. Calls are started on the event loop they were made from.
+ */
+public class TenantScheduler {
+  private static final Logger logger = LogManager.getLogger(TenantScheduler.class);
+
+  protected final Vertx vertx;
+  protected final int maxInFlight;
+  protected final int maxPerTenant;
+  protected final long queueTimeout;
+  protected final Map<String, Double> weights;
+
+  // Everything below is guarded by `this`.
+  private final Map<String, TenantQueue> tenants = new HashMap<>();
+  private int inFlight = 0;
+  private double virtualTime = 0;
+
+  /**
+   * @param maxInFlight
+   *          how many calls may be in flight at once
+   * @param maxPerTenant
+   *          how many calls may be in flight at once for any one tenant
+   * @param queueTimeout
+   *          how long in ms a call may wait for its turn
+   * @param weights
+   *          the weight of each tenant, 1 for those that aren't listed
+   */
+  public TenantScheduler(Vertx vertx, int maxInFlight, int maxPerTenant, long queueTimeout, Map<String, Double> weights) {
+    logger.info("Using max concurrent Okapi calls: " + maxInFlight + ", per tenant: " + maxPerTenant
+      + ", queue timeout: " + queueTimeout + ", tenant weights: " + weights);
+
+    this.vertx = vertx;
+    this.maxInFlight = maxInFlight;
+    this.maxPerTenant = maxPerTenant;
+    this.queueTimeout = queueTimeout;
+    this.weights = weights;
+  }
+
+  /**
+   * Waits for the tenant's turn to make a call.
+   *
+   * @return a future that completes, on the caller's event loop, with what must be run once the call is done to let
+   *         the next one go ahead
+   */
+  public Future<Runnable> acquire(String tenant) {
+    final Waiter waiter = new Waiter(vertx.getOrCreateContext(), tenant);
+    waiter.deadlineTimer = vertx.setTimer(queueTimeout, id -> expire(waiter));
+
+    synchronized (this) {
+      final TenantQueue queue = tenants.computeIfAbsent(tenant, TenantQueue::new);
+      if (queue.waiting.isEmpty() && queue.inFlight == 0) {
+        // A tenant that has been idle starts level with the others instead of with turns saved up.
+        queue.virtualTime = Math.max(queue.virtualTime, virtualTime);
+      }
+      queue.waiting.add(waiter);
+    }
+    dispatch();
+
+    return waiter.promise.future();
+  }
+
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  public synchronized int getQueueDepth() {
+    int depth = 0;
+    for (TenantQueue queue : tenants.values()) {
+      depth += queue.waiting.size();
+    }
+    return depth;
+  }
+
+  /**
+   * @return for each tenant, its weight, the calls it has waiting and in flight, and how long its calls have waited
+   */
+  public synchronized JsonObject asJsonObject() {
+    final JsonObject json = new JsonObject();
+    for (TenantQueue queue : tenants.values()) {
+      json.put(queue.tenant, new JsonObject()
+        .put("weight", queue.weight)
+        .put("queued", queue.waiting.size())
+        .put("inFlight", queue.inFlight)
+        .put("started", queue.started)
+        .put("queueTimeouts", queue.timeouts)
+        .put("meanWaitMs", queue.started == 0 ? 0 : queue.totalWait / queue.started / 1_000_000.0)
+        .put("maxWaitMs", queue.maxWait / 1_000_000.0));
+    }
+    return json;
+  }
+
+  protected void dispatch() {
+    while (true) {
+      final Waiter next;
+      synchronized (this) {
+        if (inFlight >= maxInFlight) {
+          return;
+        }
+
+        TenantQueue turn = null;
+        for (TenantQueue queue : tenants.values()) {
+          if (queue.waiting.isEmpty() || queue.inFlight >= maxPerTenant) {
+            continue;
+          }
+          if (turn == null || queue.virtualTime < turn.virtualTime) {
+            turn = queue;
+          }
+        }
+        if (turn == null) {
+          return;
+        }
+
+        next = turn.waiting.removeFirst();
+        virtualTime = turn.virtualTime;
+        turn.virtualTime += 1 / turn.weight;
+        turn.inFlight++;
+        inFlight++;
+
+        final long wait = System.nanoTime() - next.queuedAt;
+        turn.started++;
+        turn.totalWait += wait;
+        turn.maxWait = Math.max(turn.maxWait, wait);
+        turn.waitTimer.record(wait, TimeUnit.NANOSECONDS);
+      }
+
+      vertx.cancelTimer(next.deadlineTimer);
+      final Runnable release = release(next.tenant);
+      next.context.runOnContext(v -> next.promise.complete(release));
+    }
+  }
+
+  private Runnable release(String tenant) {
+    final AtomicBoolean released = new AtomicBoolean();
+    return () -> {
+      if (!released.compareAndSet(false, true)) {
+        return;
+      }
+
+      synchronized (this) {
+        tenants.get(tenant).inFlight--;
+        inFlight--;
+      }
+      dispatch();
+    };
+  }
+
+  private void expire(Waiter waiter) {
+    synchronized (this) {
+      final TenantQueue queue = tenants.get(waiter.tenant);
+      if (queue == null || !queue.waiting.remove(waiter)) {
+        return;
+      }
+      queue.timeouts++;
+    }
+
+    logger.warn("Timed out waiting to call Okapi for tenant " + waiter.tenant);
+    waiter.context.runOnContext(v -> waiter.promise.fail(new QueueTimeoutException(
+      "Timed out waiting to call Okapi for tenant " + waiter.tenant)));
+  }
+
+  private class TenantQueue {
+    final String tenant;
+    final double weight;
+    final Timer waitTimer;
+    final LinkedList<Waiter> waiting = new LinkedList<>();
+    int inFlight = 0;
+    double virtualTime = 0;
+    long started = 0;
+    long timeouts = 0;
+    long totalWait = 0;
+    long maxWait = 0;
+
+    TenantQueue(String tenant) {
+      this.tenant = tenant;
+      this.weight = Math.max(0.01, weights.getOrDefault(tenant, 1.0));
+      this.waitTimer = Timer.builder("lti.courses.tenant.queue.wait")
+        .description("Time Okapi calls waited for their tenant's turn")
+        .tag("tenant", tenant)
+        .publishPercentileHistogram()
+        .register(Metrics.registry());
+    }
+  }
+
+  private static class Waiter {
+    final Context context;
+    final String tenant;
+    final long queuedAt = System.nanoTime();
+    final Promise<Runnable> promise = Promise.promise();
+    long deadlineTimer;
+
+    Waiter(Context context, String tenant) {
+      this.context = context;
+      this.tenant = tenant;
+    }
+  }
+
+  public static class QueueTimeoutException extends TimeoutException {
+    public QueueTimeoutException(String msg) {
+      super(msg);
+    }
+  }
+}
@@ -0,0 +1,240 @@
+package org.folio.edge.ltiCourses.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.vertx.ext.web.RoutingContext;
+
+/**
+ * Creates {@link Span}s for a sample of requests and exports them, one JSON object per line, either to a file or to
+ * the `org.folio.edge.ltiCourses.utils.Tracing` logger. No collector is needed.
+ *
+ * Exporting happens on a background thread through a bounded queue, so a slow disk can't hold up a request; spans
+ * that don't fit in the queue are dropped and counted. The thread runs until the instance is replaced, see
+ * {@link #close()}.
+ */
+public class Tracing {
+
+  private static final Logger logger = LogManager.getLogger(Tracing.class);
+
+  public static final String TRACEPARENT = "traceparent";
+  public static final String SPAN_KEY = "span";
+  // Whether the request being routed has been sampled yet, so that it's only ever decided once.
+  private static final String SAMPLED_KEY = "spanSampled";
+
+  // version-traceid-parentid-flags, see https://www.w3.org/TR/trace-context/#traceparent-header
+  private static final Pattern traceparentPattern = Pattern.compile("^00-([0-9a-f]{32})-([0-9a-f]{16})-([0-9a-f]{2})$");
+
+  private static final int QUEUE_SIZE = 10000;
+
+  private static volatile Tracing instance = null;
+
+  protected final double samplingRate;
+  protected final Path exportFile;
+  protected final BlockingQueue<Span> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+  protected final AtomicLong dropped = new AtomicLong();
+
+  // Put on the queue by close(), behind the spans still to be exported, to tell the exporter to stop.
+  private final Span endOfExport = new Span(this, "", null, "end_of_export");
+  private volatile boolean closed = false;
+
+  private Tracing(double samplingRate, Path exportFile) {
+    logger.info("Using sampling rate: " + samplingRate);
+    logger.info("Exporting spans to: " + (exportFile == null ? "the log" : exportFile));
+    this.samplingRate = samplingRate;
+    this.exportFile = exportFile;
+
+    if (samplingRate > 0) {
+      final Thread exporter = new Thread(this::exportQueued, "lti-courses-span-exporter");
+      exporter.setDaemon(true);
+      exporter.start();
+    }
+  }
+
+  public static Tracing getInstance() {
+    final Tracing current = instance;
+    if (current == null) {
+      throw new NotInitializedException(
+          "You must call Tracing.initialize(samplingRate, exportFile) before you can get the singleton instance");
+    }
+    return current;
+  }
+
+  public static boolean isInitialized() {
+    return instance != null;
+  }
+
+  /**
+   * @param samplingRate
+   *          the share of traces, between 0 and 1, that are started here and exported
+   * @param exportFile
+   *          the file spans are appended to, or null to write them to the log
+   */
+  public static synchronized Tracing initialize(double samplingRate, Path exportFile) {
+    if (instance != null) {
+      logger.warn("Reinitializing tracing");
+      instance.close();
+    }
+    instance = new Tracing(samplingRate, exportFile);
+    return instance;
+  }
+
+  /**
+   * Starts the root span of a request if it's sampled. Only the configured rate decides that, so callers can't have
+   * more requests traced than we're configured to trace, whatever their traceparent says. A sampled request that
+   * carries a valid traceparent continues the caller's trace.
+   *
+   * @return the span, or null if the request isn't sampled
+   */
+  public Span startTrace(String name, String traceparent) {
+    if (samplingRate <= 0 || ThreadLocalRandom.current().nextDouble() >= samplingRate) {
+      return null;
+    }
+
+    if (traceparent != null) {
+      final Matcher m = traceparentPattern.matcher(traceparent.trim());
+      if (m.matches()) {
+        return new Span(this, m.group(1), m.group(2), name);
+      }
+    }
+
+    return new Span(this, Span.randomHex(32), null, name);
+  }
+
+  /**
+   * Starts the root span of the request being routed and ends it once the response has been sent. The span is put
+   * on the routing context, where {@link StageTimer}s pick it up as the parent of their own spans. Called again for
+   * the same request, it returns the span started the first time, so that a handler can start the span as early as
+   * it likes and what it hands the request on to still shares it.
+   *
+   * @return the span, or null if tracing hasn't been initialized or the request isn't sampled
+   */
+  public static Span startRequestSpan(RoutingContext ctx, String name) {
+    if (!isInitialized()) {
+      return null;
+    }
+
+    if (ctx.get(SAMPLED_KEY) != null) {
+      return ctx.get(SPAN_KEY);
+    }
+
+    final Span span = getInstance().startTrace(name, ctx.request().getHeader(TRACEPARENT));
+    ctx.put(SAMPLED_KEY, span != null);
+    if (span == null) {
+      return null;
+    }
+
+    span
+      .setAttribute("http.method", ctx.request().method().name())
+      .setAttribute("http.route", ctx.currentRoute() == null ? null : ctx.currentRoute().getPath());
+    ctx.put(SPAN_KEY, span);
+
+    ctx.addEndHandler(ar -> {
+      final int status = ctx.response().getStatusCode();
+      span.setAttribute("http.status_code", status);
+      span.end(ar.succeeded() && status < 500 ? "ok" : "error");
+    });
+
+    return span;
+  }
+
+  public long getDroppedSpans() {
+    return dropped.get();
+  }
+
+  /**
+   * Stops exporting once the spans already queued have been exported, and closes the export file. Spans ended later,
+   * by requests that started before, are dropped.
+   */
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    // Wakes the exporter up right away, unless the queue is full, in which case it stops once the queue is empty.
+    queue.offer(endOfExport);
+  }
+
+  protected void export(Span span) {
+    if (closed || !queue.offer(span)) {
+      dropped.incrementAndGet();
+    }
+  }
+
+  private void exportQueued() {
+    BufferedWriter writer = null;
+    try {
+      while (true) {
+        try {
+          final Span span = queue.poll(1, TimeUnit.SECONDS);
+          if (span == endOfExport || span == null && closed) {
+            return;
+          }
+
+          if (exportFile == null) {
+            if (span != null) {
+              logger.info(span.asJsonObject().encode());
+            }
+            continue;
+          }
+
+          if (writer == null) {
+            writer = Files.newBufferedWriter(exportFile, StandardCharsets.UTF_8,
+              StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+          }
+          if (span != null) {
+            writer.write(span.asJsonObject().encode());
+            writer.newLine();
+          }
+          if (span == null || queue.isEmpty()) {
+            writer.flush();
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        } catch (IOException e) {
+          logger.error("Failed to export spans to " + exportFile + ": " + e.getMessage());
+          closeQuietly(writer);
+          writer = null;
+        }
+      }
+    } finally {
+      closeQuietly(writer);
+    }
+  }
+
+  private void closeQuietly(BufferedWriter writer) {
+    if (writer == null) {
+      return;
+    }
+
+    try {
+      writer.close();
+    } catch (IOException e) {
+      logger.error("Failed to close span export file " + exportFile + ": " + e.getMessage());
+    }
+  }
+
+  public static class NotInitializedException extends RuntimeException {
+
+    private static final long serialVersionUID = 3418213729451876624L;
+
+    public NotInitializedException(String msg) {
+      super(msg);
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package org.folio.edge.ltiCourses.warmup;
+
+import static org.folio.edge.core.Constants.APPLICATION_JSON;
+import static org.folio.edge.core.Constants.X_OKAPI_TENANT;
+import static org.folio.edge.core.Constants.X_OKAPI_TOKEN;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.Cookie;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+
+/**
+ * Stands in for Okapi during the warm-up with no more than its logins, launches and reloads ask for: logging in, the
+ * platform's configuration, one course, looked up by any of its ids, and its reserves. It listens on a port the OS
+ * picks, see {@link #getPort()}.
+ */
+class StubOkapi {
+  static final String COURSE_ID = "COURSE101";
+
+  private static final Duration TOKEN_EXPIRY = Duration.ofDays(1);
+
+  private final Vertx vertx;
+  private final Supplier<JsonObject> platform;
+  private HttpServer server;
+
+  /**
+   * @param platform
+   *          the platform configuration to answer with, as it's stored in mod-configuration
+   */
+  StubOkapi(Vertx vertx, Supplier<JsonObject> platform) {
+    this.vertx = vertx;
+    this.platform = platform;
+  }
+
+  Future<Void> start() {
+    server = vertx.createHttpServer();
+    return server.requestHandler(defineRoutes()).listen(0).mapEmpty();
+  }
+
+  int getPort() {
+    return server.actualPort();
+  }
+
+  Future<Void> close() {
+    return server == null ? Future.succeededFuture() : server.close();
+  }
+
+  private Router defineRoutes() {
+    Router router = Router.router(vertx);
+
+    router.route(HttpMethod.POST, "/authn/login").handler(this::handleLogin);
+    router.route(HttpMethod.POST, "/authn/login-with-expiry").handler(this::handleLoginWithExpiry);
+    router.route(HttpMethod.GET, "/configurations/entries").handler(this::handleGetConfigurations);
+    router.route(HttpMethod.GET, "/coursereserves/courses").handler(this::handleGetCourses);
+    router.route(HttpMethod.GET, "/coursereserves/courselistings/:courseId/reserves").handler(this::handleGetCourseReserves);
+
+    return router;
+  }
+
+  private void handleLogin(RoutingContext ctx) {
+    ctx.response()
+      .setStatusCode(201)
+      .putHeader(X_OKAPI_TOKEN, token(ctx))
+      .end();
+  }
+
+  private void handleLoginWithExpiry(RoutingContext ctx) {
+    final Instant expiration = Instant.now().plus(TOKEN_EXPIRY);
+    final JsonObject expirations = new JsonObject()
+      .put("accessTokenExpiration", expiration.toString())
+      .put("refreshTokenExpiration", expiration.toString());
+
+    ctx.response()
+      .setStatusCode(201)
+      .addCookie(tokenCookie("folioAccessToken", token(ctx)))
+      .addCookie(tokenCookie("folioRefreshToken", token(ctx)))
+      .putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
+      .end(expirations.encode());
+  }
+
+  private void handleGetConfigurations(RoutingContext ctx) {
+    // The platform's is the only configuration a launch looks up.
+    JsonObject config = new JsonObject().put("value", platform.get().encode());
+
+    ctx.response()
+      .setStatusCode(200)
+      .putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
+      .end(new JsonObject().put("configs", new JsonArray().add(config)).encode());
+  }
+
+  private void handleGetCourses(RoutingContext ctx) {
+    JsonArray courses = new JsonArray();
+
+    // A launch looks the course up by the id in its context claim, a reload by its FOLIO id, and both are COURSE_ID.
+    if (ctx.request().getParam("query", "").contains(COURSE_ID)) {
+      courses.add(new JsonObject()
+        .put("id", COURSE_ID)
+        .put("courseListingId", COURSE_ID)
+        .put("courseListingObject", new JsonObject()
+          .put("termObject", new JsonObject()
+            .put("startDate", "2020-06-01")
+            .put("endDate", "2130-12-31")
+          )
+        )
+      );
+    }
+
+    ctx.response()
+      .setStatusCode(200)
+      .putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
+      .end(new JsonObject().put("courses", courses).encode());
+  }
+
+  private void handleGetCourseReserves(RoutingContext ctx) {
+    JsonArray reserves = new JsonArray();
+
+    // One reserve for each way an item's location is shown or hidden, so that the launch runs through all of them.
+    if (COURSE_ID.equals(ctx.pathParam("courseId"))) {
+      reserves.add(new JsonObject()
+        .put("itemId", "shown")
+        .put("copiedItem", new JsonObject()
+          .put("barcode", "warmup1")
+          .put("permanentLocationObject", new JsonObject().put("discoveryDisplayName", "Shelf"))
+        )
+      );
+
+      reserves.add(new JsonObject()
+        .put("itemId", "temporaryLocation")
+        .put("copiedItem", new JsonObject()
+          .put("barcode", "warmup2")
+          .put("permanentLocationObject", new JsonObject().put("discoveryDisplayName", "Shelf"))
+          .put("temporaryLocationObject", new JsonObject().put("discoveryDisplayName", "Temporary Shelf"))
+          .put("instanceDiscoverySuppress", true)
+        )
+      );
+
+      reserves.add(new JsonObject()
+        .put("itemId", "online")
+        .put("copiedItem", new JsonObject()
+          .put("barcode", "warmup3")
+          .put("instanceDiscoverySuppress", true)
+          .put("uri", "http://localhost/online")
+        )
+      );
+    }
+
+    ctx.response()
+      .setStatusCode(200)
+      .putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
+      .end(new JsonObject().put("reserves", reserves).encode());
+  }
+
+  private static String token(RoutingContext ctx) {
+    return JWT.create()
+      .withSubject(Warmup.USERNAME)
+      .withClaim("tenant", ctx.request().getHeader(X_OKAPI_TENANT))
+      .withExpiresAt(Instant.now().plus(TOKEN_EXPIRY))
+      .sign(Algorithm.none());
+  }
+
+  private static Cookie tokenCookie(String name, String token) {
+    return Cookie.cookie(name, token)
+      .setPath("/")
+      .setHttpOnly(true)
+      .setMaxAge(TOKEN_EXPIRY.getSeconds());
+  }
+}
@@ -0,0 +1,116 @@
+package org.folio.edge.ltiCourses.warmup;
+
+import static org.folio.edge.core.Constants.APPLICATION_JSON;
+import static org.folio.edge.ltiCourses.Constants.JWT_KID;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collections;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+
+/**
+ * Stands in for the LMS during the warm-up: it signs the id_tokens of its launches and serves the JWKS they're
+ * verified with. The other URLs in its configuration are only ever rendered into pages, so nothing answers them. It
+ * listens on a port the OS picks, which is part of its issuer.
+ */
+class StubPlatform {
+  static final String CLIENT_ID = "warmup";
+
+  private final Vertx vertx;
+  private RSAPublicKey publicKey;
+  private Algorithm algorithm;
+  private HttpServer server;
+
+  StubPlatform(Vertx vertx) {
+    this.vertx = vertx;
+  }
+
+  Future<Void> start() {
+    try {
+      KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA");
+      kpg.initialize(2048);
+      KeyPair keyPair = kpg.generateKeyPair();
+      publicKey = (RSAPublicKey) keyPair.getPublic();
+      algorithm = Algorithm.RSA256(publicKey, (RSAPrivateKey) keyPair.getPrivate());
+    } catch (NoSuchAlgorithmException e) {
+      return Future.failedFuture(e);
+    }
+
+    Router router = Router.router(vertx);
+    router.route(HttpMethod.GET, "/jwks.json").handler(this::handleGetJWKS);
+
+    server = vertx.createHttpServer();
+    return server.requestHandler(router).listen(0).mapEmpty();
+  }
+
+  Future<Void> close() {
+    return server == null ? Future.succeededFuture() : server.close();
+  }
+
+  String getIssuer() {
+    return "http://localhost:" + server.actualPort();
+  }
+
+  /**
+   * @return this platform's configuration, as it's stored in mod-configuration
+   */
+  JsonObject asJsonObject() {
+    return new JsonObject()
+      .put("clientId", CLIENT_ID)
+      .put("cssUrl", getIssuer() + "/styles.css")
+      .put("issuer", getIssuer())
+      .put("jwksUrl", getIssuer() + "/jwks.json")
+      .put("oidcAuthUrl", getIssuer() + "/oidc")
+      .put("noReservesMessage", "No reserves")
+      .put("searchUrl", getIssuer() + "/search?barcode=[BARCODE]");
+  }
+
+  /**
+   * @return a signed id_token that launches the course with the given title
+   */
+  String resourceLinkIdToken(String nonce, String courseTitle) {
+    return JWT.create()
+      .withIssuer(getIssuer())
+      .withKeyId(JWT_KID)
+      .withAudience(CLIENT_ID)
+      .withIssuedAt(Instant.now())
+      .withExpiresAt(Instant.now().plusSeconds(300))
+      .withClaim("nonce", nonce)
+      .withClaim("https://purl.imsglobal.org/spec/lti/claim/message_type", "LtiResourceLinkRequest")
+      .withClaim("https://purl.imsglobal.org/spec/lti/claim/version", "1.3.0")
+      .withClaim("https://purl.imsglobal.org/spec/lti/claim/context", Collections.singletonMap("title", courseTitle))
+      .sign(algorithm);
+  }
+
+  private void handleGetJWKS(RoutingContext ctx) {
+    JsonObject jwk = new JsonObject()
+      .put("kty", publicKey.getAlgorithm()) // getAlgorithm() returns kty not algorithm
+      .put("kid", JWT_KID)
+      .put("n", Base64.getUrlEncoder().encodeToString(publicKey.getModulus().toByteArray()))
+      .put("e", Base64.getUrlEncoder().encodeToString(publicKey.getPublicExponent().toByteArray()))
+      .put("alg", "RS256")
+      .put("use", "sig");
+
+    ctx.response()
+      .setStatusCode(200)
+      .putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
+      .end(new JsonObject().put("keys", new JsonArray().add(jwk)).encode());
+  }
+}
@@ -0,0 +1,310 @@
+package org.folio.edge.ltiCourses.warmup;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.interfaces.RSAPrivateKey;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import org.folio.edge.core.ApiKeyHelper;
+import org.folio.edge.core.security.EphemeralStore;
+import org.folio.edge.core.utils.ApiKeyUtils;
+import org.folio.edge.core.utils.OkapiClient;
+import org.folio.edge.core.utils.OkapiClientFactory;
+import org.folio.edge.ltiCourses.LaunchBodyHandler;
+import org.folio.edge.ltiCourses.LtiCoursesHandler;
+import org.folio.edge.ltiCourses.MainVerticle;
+import org.folio.edge.ltiCourses.cache.OidcStateCache;
+import org.folio.edge.ltiCourses.utils.AdmissionControl;
+import org.folio.edge.ltiCourses.utils.BlockingExecutor;
+import org.folio.edge.ltiCourses.utils.IdTokenPrecheck;
+import org.folio.edge.ltiCourses.utils.LaunchSessions;
+import org.folio.edge.ltiCourses.utils.LtiCoursesOkapiClient;
+import org.folio.edge.ltiCourses.utils.Metrics;
+import org.folio.edge.ltiCourses.utils.Readiness;
+import org.folio.edge.ltiCourses.utils.StageTimer;
+
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.vertx.core.Future;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.PoolOptions;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.templ.pug.PugTemplateEngine;
+
+/**
+ * Runs synthetic logins and launches through the same routes and handlers as real ones before the node reports ready,
+ * so that the first students to launch don't wait for the classes a launch needs to be loaded and compiled.
+ *
+ * Everything the launches talk to is a stub on localhost, on a port the OS picks: {@link StubOkapi} for FOLIO and
+ * {@link StubPlatform} for the LMS, and they're made as a tenant of their own, {@link #TENANT}. They leave the
+ * production state alone: their handler has no launch result cache, Box or tenant scheduler, their admission control
+ * has no limits, their calls to the stub aren't counted in Okapi's health, the nonces of their logins are
+ * removed from the OIDC state cache, their platform from the launch sessions, and their metrics are removed once the
+ * warm-up is over.
+ */
+public class Warmup {
+  private static final Logger logger = LogManager.getLogger(Warmup.class);
+
+  // What the warm-up is called while it keeps the module from being ready.
+  public static final String NAME = "warmup";
+
+  public static final String TENANT = "lti_courses_warmup";
+  static final String USERNAME = "warmup";
+
+  // Enough launches at once for the event loop to be busy, few enough not to starve the rest of startup.
+  private static final int CONCURRENCY = 4;
+
+  private final Vertx vertx;
+  private final RSAPrivateKey privateKey;
+  private final BlockingExecutor jwksExecutor;
+  private final int jwksTimeout;
+  private final long launchBodyLimit;
+  private final LaunchSessions launchSessions;
+  private final int launches;
+  private final long timeLimit;
+
+  private final Set<String> nonces = ConcurrentHashMap.newKeySet();
+  private final Set<String> issuers = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger started = new AtomicInteger();
+  private final AtomicInteger failed = new AtomicInteger();
+
+  /**
+   * @param launchSessions
+   *          the sessions that launches give out, or null if they're disabled
+   * @param launches
+   *          how many logins and launches to run
+   * @param timeLimit
+   *          time in ms after which the node reports ready, whether or not the warm-up is over
+   */
+  public Warmup(Vertx vertx, RSAPrivateKey privateKey, BlockingExecutor jwksExecutor, int jwksTimeout,
+      long launchBodyLimit, LaunchSessions launchSessions, int launches, long timeLimit) {
+    this.vertx = vertx;
+    this.privateKey = privateKey;
+    this.jwksExecutor = jwksExecutor;
+    this.jwksTimeout = jwksTimeout;
+    this.launchBodyLimit = launchBodyLimit;
+    this.launchSessions = launchSessions;
+    this.launches = launches;
+    this.timeLimit = timeLimit;
+  }
+
+  /**
+   * Keeps the node from being ready until the warm-up is over, or until its time limit has passed.
+   *
+   * @return completed once the warm-up is over and everything it started has been closed
+   */
+  public Future<Void> start() {
+    Readiness.warmingUp(NAME);
+    final long start = System.currentTimeMillis();
+
+    final long timer = vertx.setTimer(timeLimit, id -> {
+      logger.warn("Warm-up isn't over after " + timeLimit + " ms, reporting ready anyway");
+      Readiness.warmedUp(NAME);
+    });
+
+    return run(start + timeLimit).andThen(ar -> {
+      vertx.cancelTimer(timer);
+      if (ar.failed()) {
+        logger.warn("Warm-up failed: " + ar.cause().getMessage());
+      } else {
+        logger.info("Warmed up with " + started.get() + " launches (" + failed.get() + " failed) in "
+          + (System.currentTimeMillis() - start) + " ms");
+      }
+      Readiness.warmedUp(NAME);
+    });
+  }
+
+  /**
+   * @return how many launches the warm-up has started
+   */
+  public int getStarted() {
+    return started.get();
+  }
+
+  public int getFailed() {
+    return failed.get();
+  }
+
+  protected Future<Void> run(long deadline) {
+    final String password = UUID.randomUUID().toString();
+    final String apiKey = ApiKeyUtils.generateApiKey(10, TENANT, USERNAME);
+
+    final StubPlatform platform = new StubPlatform(vertx);
+    final StubOkapi okapi = new StubOkapi(vertx, platform::asJsonObject);
+
+    final HttpClient client = vertx.createHttpClient(
+      new HttpClientOptions().setDefaultHost("localhost"),
+      new PoolOptions().setHttp1MaxSize(CONCURRENCY));
+
+    // Each server listens on port 0 so that the OS picks a free port for it, and no other process can take it first.
+    return okapi.start()
+      .compose(x -> platform.start())
+      .compose(x -> vertx.createHttpServer().requestHandler(defineRoutes(okapi.getPort(), password)).listen(0))
+      .compose(server -> {
+        final List<Future<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < CONCURRENCY; i++) {
+          workers.add(launchUntilDone(client, server.actualPort(), apiKey, platform, deadline));
+        }
+        return Future.join(workers).<Void>mapEmpty().eventually(() -> server.close());
+      })
+      .eventually(() -> client.close())
+      .eventually(() -> platform.close())
+      .eventually(() -> okapi.close())
+      .andThen(ar -> cleanUp());
+  }
+
+  /**
+   * @return the same LTI routes as {@link MainVerticle}'s, handled by a handler of the warm-up's own
+   */
+  protected Router defineRoutes(int okapiPort, String password) {
+    final Properties credentials = new Properties();
+    credentials.setProperty("tenants", TENANT);
+    credentials.setProperty(TENANT, USERNAME + "," + password);
+
+    final LtiCoursesHandler handler = new LtiCoursesHandler(
+      new EphemeralStore(credentials),
+      new OkapiClientFactory(vertx, "http://localhost:" + okapiPort, 10000),
+      new ApiKeyHelper("PATH"),
+      privateKey,
+      PugTemplateEngine.create(vertx),
+      false,
+      null,
+      0,
+      jwksExecutor,
+      jwksTimeout,
+      new IdTokenPrecheck(Integer.MAX_VALUE, Collections.emptySet(), Clock.systemUTC()),
+      new AdmissionControl(new AdmissionControl.Limits(0, 0, 0, 0, 0, 0, 0, 0)),
+      null,
+      null,
+      launchSessions
+    ) {
+      @Override
+      protected LtiCoursesOkapiClient newOkapiClient(OkapiClient client) {
+        return new LtiCoursesOkapiClient(client, null, null);
+      }
+    };
+
+    final Router router = Router.router(vertx);
+    // So that every stage is timed as the warm-up's, even those before the API key is read.
+    router.route().handler(ctx -> {
+      ctx.put(StageTimer.TENANT_KEY, TENANT);
+      ctx.next();
+    });
+    MainVerticle.defineLtiRoutes(router, handler, new LaunchBodyHandler(launchBodyLimit));
+    return router;
+  }
+
+  protected Future<Void> launchUntilDone(HttpClient client, int port, String apiKey, StubPlatform platform,
+      long deadline) {
+    if (System.currentTimeMillis() >= deadline || started.getAndUpdate(n -> n < launches ? n + 1 : n) >= launches) {
+      return Future.succeededFuture();
+    }
+
+    return launch(client, port, apiKey, platform)
+      .transform(ar -> {
+        if (ar.failed() && failed.getAndIncrement() == 0) {
+          logger.warn("Warm-up launch failed, the warm-up carries on: " + ar.cause().getMessage());
+        }
+        return launchUntilDone(client, port, apiKey, platform, deadline);
+      });
+  }
+
+  /**
+   * Logs in, launches the course with reserves and, if launches give out sessions, reloads its reserves. The reload
+   * looks the course up again by id, so the stub Okapi answers that lookup too, and the platform is remembered by the
+   * launch sessions until {@link #cleanUp()}.
+   */
+  protected Future<Void> launch(HttpClient client, int port, String apiKey, StubPlatform platform) {
+    final String login = "/lti-courses/oidc-login-init/" + apiKey
+      + "?iss=" + URLEncoder.encode(platform.getIssuer(), StandardCharsets.UTF_8)
+      + "&login_hint=" + USERNAME
+      + "&target_link_uri=" + URLEncoder.encode("http://localhost/launch", StandardCharsets.UTF_8);
+
+    return send(client, port, HttpMethod.GET, login, null, null, 302)
+      .compose(resp -> {
+        final QueryStringDecoder location = new QueryStringDecoder(resp.getHeader(HttpHeaders.LOCATION));
+        final String nonce = location.parameters().get("nonce").get(0);
+        final String state = location.parameters().get("state").get(0);
+        nonces.add(nonce);
+        issuers.add(platform.getIssuer());
+
+        final String form = "id_token=" + platform.resourceLinkIdToken(nonce, StubOkapi.COURSE_ID)
+          + "&state=" + state;
+        return send(client, port, HttpMethod.POST, "/lti-courses/launches/" + apiKey, Buffer.buffer(form), null, 200);
+      })
+      .compose(resp -> {
+        if (launchSessions == null) {
+          return Future.succeededFuture();
+        }
+
+        final String session = resp.cookies().stream()
+          .filter(cookie -> cookie.startsWith(LaunchSessions.COOKIE_NAME + "="))
+          .map(cookie -> cookie.split(";")[0])
+          .findFirst()
+          .orElse(null);
+        if (session == null) {
+          return Future.failedFuture("launch gave out no session");
+        }
+        return send(client, port, HttpMethod.GET, "/lti-courses/reserves/" + apiKey, null, session, 200);
+      })
+      .mapEmpty();
+  }
+
+  protected Future<HttpClientResponse> send(HttpClient client, int port, HttpMethod method, String uri, Buffer body,
+      String cookie, int expectedStatus) {
+    final MultiMap headers = MultiMap.caseInsensitiveMultiMap();
+    if (body != null) {
+      headers.add(HttpHeaders.CONTENT_TYPE, "application/x-www-form-urlencoded");
+    }
+    if (cookie != null) {
+      headers.add(HttpHeaders.COOKIE, cookie);
+    }
+
+    final RequestOptions options = new RequestOptions().setPort(port).setMethod(method).setURI(uri).setHeaders(headers);
+    return client.request(options)
+      .compose(req -> body == null ? req.send() : req.send(body))
+      .compose(resp -> resp.body().map(resp))
+      .compose(resp -> resp.statusCode() == expectedStatus
+        ? Future.succeededFuture(resp)
+        : Future.failedFuture(method + " " + uri.substring(0, uri.lastIndexOf('/')) + " responded with " + resp.statusCode()));
+  }
+
+  /**
+   * Removes what's left of the warm-up's launches from the state the node shares with real ones.
+   */
+  protected void cleanUp() {
+    if (OidcStateCache.isInitialized()) {
+      for (String nonce : nonces) {
+        OidcStateCache.getInstance().remove(nonce);
+      }
+    }
+    nonces.clear();
+
+    if (launchSessions != null) {
+      for (String issuer : issuers) {
+        launchSessions.removePlatform(TENANT, issuer);
+      }
+    }
+    issuers.clear();
+
+    Metrics.removeTenant(TENANT);
+  }
+}
@@ -0,0 +1,459 @@
+package org.folio.edge.ltiCourses;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Clock;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.folio.edge.ltiCourses.cache.BoxContentCache;
+import org.folio.edge.ltiCourses.cache.BoxFileCache;
+import org.folio.edge.ltiCourses.model.BoxFileMetadata;
+import org.folio.edge.ltiCourses.utils.BoxApiClient;
+import org.folio.edge.ltiCourses.utils.BoxApiScheduler;
+import org.folio.edge.ltiCourses.utils.BoxDownloadTokens;
+import org.folio.edge.ltiCourses.utils.HmacSigner;
+import org.folio.edge.ltiCourses.utils.HttpRange;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.box.sdk.BoxAPIConnection;
+import com.box.sdk.BoxAPIException;
+import com.box.sdk.BoxFile;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+
+public class BoxDownloadHandlerTest {
+  public static final Logger logger = Logger.getLogger(BoxDownloadHandlerTest.class);
+
+  private static final String FILE_ID = "12345";
+  private static final String LARGE_FILE_ID = "23456";
+  private static final String ENDLESS_FILE_ID = "34567";
+  private static final String BROKEN_FILE_ID = "45678";
+  private static final String SLOW_FILE_ID = "56789";
+  private static final String THROTTLED_FILE_ID = "67890";
+  private static final String FAILING_FILE_ID = "78901";
+  private static final String MISSING_FILE_ID = "89012";
+
+  private static final int CONTENT_SIZE = 100000;
+  // Far more than the socket buffers and write queues between Box, us and the client can hold.
+  private static final int LARGE_SIZE = 64 * 1024 * 1024;
+  private static final int CHUNK_SIZE = 64 * 1024;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Vertx vertx;
+  private HttpServer boxServer;
+  private HttpServer server;
+  private HttpClient client;
+  private StubBoxApiClient box;
+  private Buffer content;
+
+  private final AtomicInteger boxRequests = new AtomicInteger();
+  private final AtomicInteger throttledRequests = new AtomicInteger();
+  private final AtomicLong boxBytesWritten = new AtomicLong();
+  private final Promise<Void> boxConnectionClosed = Promise.promise();
+
+  @Before
+  public void setUp() throws Exception {
+    vertx = Vertx.vertx();
+
+    final byte[] bytes = new byte[CONTENT_SIZE];
+    new Random(42).nextBytes(bytes);
+    content = Buffer.buffer(bytes);
+
+    BoxDownloadTokens.initialize(HmacSigner.withSecret("secret"), 600000);
+    BoxFileCache.initialize(600000, 600000, 100);
+    // Too small to accept anything, so that downloads are piped straight through unless a test says otherwise.
+    BoxContentCache.initialize(folder.getRoot().toPath(), 1);
+
+    // Stands in for the servers Box's download URLs point to.
+    final Router boxRouter = Router.router(vertx);
+    boxRouter.get("/content").handler(this::serveContent);
+    boxRouter.get("/slow").handler(ctx -> vertx.setTimer(500, id -> serveContent(ctx)));
+    boxRouter.get("/throttled").handler(ctx -> {
+      if (throttledRequests.incrementAndGet() == 1) {
+        ctx.response().setStatusCode(429).putHeader(HttpHeaders.RETRY_AFTER, "1").end();
+      } else {
+        serveContent(ctx);
+      }
+    });
+    boxRouter.get("/large").handler(ctx -> writeChunks(
+      ctx.response().putHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(LARGE_SIZE)), LARGE_SIZE));
+    boxRouter.get("/endless").handler(ctx -> {
+      ctx.response().closeHandler(v -> boxConnectionClosed.tryComplete());
+      writeChunks(ctx.response().setChunked(true), Long.MAX_VALUE);
+    });
+    boxRouter.get("/failing").handler(ctx -> ctx.response()
+      .setStatusCode(500)
+      .end("Internal error at box-content-42"));
+    boxRouter.get("/broken").handler(ctx -> ctx.response()
+      .putHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(CONTENT_SIZE))
+      .write(content.getBuffer(0, CONTENT_SIZE / 2))
+      .onComplete(ar -> ctx.request().connection().close()));
+    boxServer = join(vertx.createHttpServer().requestHandler(boxRouter).listen(0));
+
+    final String boxUrl = "http://localhost:" + boxServer.actualPort();
+    box = new StubBoxApiClient(vertx);
+    box.add(FILE_ID, "syllabus.pdf", CONTENT_SIZE, "v1", boxUrl + "/content");
+    box.add(LARGE_FILE_ID, "large.pdf", LARGE_SIZE, "v1", boxUrl + "/large");
+    box.add(ENDLESS_FILE_ID, "endless.pdf", LARGE_SIZE, "v1", boxUrl + "/endless");
+    box.add(BROKEN_FILE_ID, "broken.pdf", CONTENT_SIZE, "v1", boxUrl + "/broken");
+    box.add(SLOW_FILE_ID, "slow.pdf", CONTENT_SIZE, "v1", boxUrl + "/slow");
+    box.add(THROTTLED_FILE_ID, "throttled.pdf", CONTENT_SIZE, "v1", boxUrl + "/throttled");
+    box.add(FAILING_FILE_ID, "failing.pdf", CONTENT_SIZE, "v1", boxUrl + "/failing");
+
+    final BoxDownloadHandler handler = new BoxDownloadHandler(vertx, box);
+    final Router router = Router.router(vertx);
+    router.get("/lti-courses/download-file/:token").handler(handler::handleDownloadRequest);
+    server = join(vertx.createHttpServer().requestHandler(router).listen(0));
+
+    client = vertx.createHttpClient();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    join(vertx.close());
+  }
+
+  private static <T> T join(Future<T> future) throws Exception {
+    return future.toCompletionStage().toCompletableFuture().get(60, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testContentDisposition() {
+    logger.info("=== Test file names are escaped in the Content-Disposition... ===");
+
+    assertEquals("attachment; filename=\"syllabus.pdf\"; filename*=UTF-8''syllabus.pdf",
+      BoxDownloadHandler.contentDisposition("syllabus.pdf"));
+    assertEquals(
+      "attachment; filename=\"Week 1 \\\"notes\\\" r_sum_.pdf\"; "
+        + "filename*=UTF-8''Week%201%20%22notes%22%20r%C3%A9sum%C3%A9.pdf",
+      BoxDownloadHandler.contentDisposition("Week 1 \"notes\" r\u00e9sum\u00e9.pdf"));
+    assertEquals("attachment; filename=\"a__b\\\\c;.pdf\"; filename*=UTF-8''a%0D%0Ab%5Cc%3B.pdf",
+      BoxDownloadHandler.contentDisposition("a\r\nb\\c;.pdf"));
+    assertEquals("attachment", BoxDownloadHandler.contentDisposition(null));
+  }
+
+  @Test
+  public void testStreamsFromBox() throws Exception {
+    logger.info("=== Test a download is streamed from Box... ===");
+
+    final Download download = download(FILE_ID);
+
+    assertEquals(200, download.response.statusCode());
+    assertEquals(content, download.body);
+    assertEquals(String.valueOf(CONTENT_SIZE), download.response.getHeader(HttpHeaders.CONTENT_LENGTH));
+    assertEquals("\"v1\"", download.response.getHeader(HttpHeaders.ETAG));
+    assertEquals("bytes", download.response.getHeader(HttpHeaders.ACCEPT_RANGES));
+    assertEquals(BoxDownloadHandler.contentDisposition("syllabus.pdf"),
+      download.response.getHeader("Content-Disposition"));
+  }
+
+  @Test
+  public void testBackpressure() throws Exception {
+    logger.info("=== Test a slow client slows down the download from Box... ===");
+
+    final AtomicLong received = new AtomicLong();
+    final HttpClientResponse response = join(client.request(downloadRequest(LARGE_FILE_ID))
+      .compose(HttpClientRequest::send)
+      .map(resp -> resp.handler(chunk -> received.addAndGet(chunk.length())).pause()));
+    assertEquals(200, response.statusCode());
+
+    // Give Box all the time it needs to fill up every buffer on the way.
+    Thread.sleep(2000);
+    final long written = boxBytesWritten.get();
+    logger.info("Box wrote " + written + " bytes while the client wasn't reading");
+    assertTrue(written < LARGE_SIZE / 2);
+
+    response.resume();
+    join(response.end());
+    assertEquals(LARGE_SIZE, received.get());
+    assertEquals(LARGE_SIZE, boxBytesWritten.get());
+  }
+
+  @Test
+  public void testClientAbortClosesBoxConnection() throws Exception {
+    logger.info("=== Test a client going away mid-download stops the download from Box... ===");
+
+    final Promise<Void> firstChunk = Promise.promise();
+    final HttpClientResponse response = join(client.request(downloadRequest(ENDLESS_FILE_ID))
+      .compose(HttpClientRequest::send)
+      .map(resp -> resp.handler(chunk -> firstChunk.tryComplete())));
+    assertEquals(200, response.statusCode());
+
+    join(firstChunk.future());
+    response.request().reset();
+
+    join(boxConnectionClosed.future());
+  }
+
+  @Test
+  public void testBoxFailureAfterHeadersAbortsResponse() throws Exception {
+    logger.info("=== Test Box failing after the headers were sent aborts the response... ===");
+
+    final Promise<Integer> status = Promise.promise();
+    final Future<Buffer> body = client.request(downloadRequest(BROKEN_FILE_ID))
+      .compose(HttpClientRequest::send)
+      .compose(resp -> {
+        status.complete(resp.statusCode());
+        return resp.body();
+      });
+
+    join(body.transform(ar -> Future.succeededFuture()));
+    assertEquals(200, (int) status.future().result());
+    assertTrue(body.failed());
+  }
+
+  @Test
+  public void testBoxFailureIsNotPassedOn() throws Exception {
+    logger.info("=== Test a failure of Box is answered with a 502 that doesn't say why... ===");
+
+    final Download download = download(FAILING_FILE_ID);
+
+    assertEquals(502, download.response.statusCode());
+    assertThat(download.body.toString(), not(containsString("Box responded with")));
+    assertThat(download.body.toString(), not(containsString("box-content-42")));
+  }
+
+  @Test
+  public void testMissingFile() throws Exception {
+    logger.info("=== Test a file Box doesn't have is answered with a 404... ===");
+
+    final Download download = download(MISSING_FILE_ID);
+
+    assertEquals(404, download.response.statusCode());
+    assertThat(download.body.toString(), not(containsString(MISSING_FILE_ID)));
+  }
+
+  @Test
+  public void testRange() throws Exception {
+    logger.info("=== Test a range request is answered with just that range... ===");
+
+    final Download download = download(FILE_ID, "Range", "bytes=100-199");
+
+    assertEquals(206, download.response.statusCode());
+    assertEquals("bytes 100-199/" + CONTENT_SIZE, download.response.getHeader(HttpHeaders.CONTENT_RANGE));
+    assertEquals("100", download.response.getHeader(HttpHeaders.CONTENT_LENGTH));
+    assertEquals(content.getBuffer(100, 200), download.body);
+  }
+
+  @Test
+  public void testRangeNotSatisfiable() throws Exception {
+    logger.info("=== Test a range past the end of the file is refused... ===");
+
+    final Download download = download(FILE_ID, "Range", "bytes=" + CONTENT_SIZE + "-");
+
+    assertEquals(416, download.response.statusCode());
+    assertEquals("bytes */" + CONTENT_SIZE, download.response.getHeader(HttpHeaders.CONTENT_RANGE));
+    assertEquals(0, boxRequests.get());
+  }
+
+  @Test
+  public void testNotModified() throws Exception {
+    logger.info("=== Test a client with the current version of the file gets a 304... ===");
+
+    final Download download = download(FILE_ID, "If-None-Match", "\"v0\", W/\"v1\"");
+
+    assertEquals(304, download.response.statusCode());
+    assertEquals("\"v1\"", download.response.getHeader(HttpHeaders.ETAG));
+    assertEquals(0, download.body.length());
+    assertEquals(0, boxRequests.get());
+  }
+
+  @Test
+  public void testStaleIfRangeGetsWholeFile() throws Exception {
+    logger.info("=== Test a range of an outdated version of the file is answered with the whole file... ===");
+
+    final Download download = download(FILE_ID, "Range", "bytes=100-199", "If-Range", "\"v0\"");
+
+    assertEquals(200, download.response.statusCode());
+    assertNull(download.response.getHeader(HttpHeaders.CONTENT_RANGE));
+    assertEquals(content, download.body);
+  }
+
+  @Test
+  public void testRangeFromContentCache() throws Exception {
+    logger.info("=== Test a range is served from the content cache once the file is cached... ===");
+
+    final BoxContentCache cache = BoxContentCache.initialize(folder.getRoot().toPath(), 10 * CONTENT_SIZE);
+    assertEquals(content, download(FILE_ID).body);
+    await().atMost(10, TimeUnit.SECONDS).until(() -> cache.size() == 1);
+
+    final Download download = download(FILE_ID, "Range", "bytes=-100", "If-Range", "\"v1\"");
+
+    assertEquals(206, download.response.statusCode());
+    assertEquals("bytes " + (CONTENT_SIZE - 100) + "-" + (CONTENT_SIZE - 1) + "/" + CONTENT_SIZE,
+      download.response.getHeader(HttpHeaders.CONTENT_RANGE));
+    assertEquals(content.getBuffer(CONTENT_SIZE - 100, CONTENT_SIZE), download.body);
+    assertEquals(1, boxRequests.get());
+    assertEquals(1, cache.getHits());
+  }
+
+  @Test
+  public void testRateLimitedContentIsRetried() throws Exception {
+    logger.info("=== Test a 429 from Box's content servers pauses and retries the download... ===");
+
+    final long start = System.currentTimeMillis();
+    final Download download = download(THROTTLED_FILE_ID);
+
+    assertEquals(200, download.response.statusCode());
+    assertEquals(content, download.body);
+    assertEquals(2, throttledRequests.get());
+    assertEquals(1, box.getScheduler().getThrottleEvents());
+    assertTrue(System.currentTimeMillis() - start >= 1000);
+  }
+
+  @Test
+  public void testConcurrentDownloadsShareCacheFill() throws Exception {
+    logger.info("=== Test downloads of a file that's being cached wait for it instead of going to Box... ===");
+
+    BoxContentCache.initialize(folder.getRoot().toPath(), 10 * CONTENT_SIZE);
+
+    final Future<Buffer> first = client.request(downloadRequest(SLOW_FILE_ID))
+      .compose(HttpClientRequest::send)
+      .compose(HttpClientResponse::body);
+    final Future<Buffer> second = client.request(downloadRequest(SLOW_FILE_ID))
+      .compose(HttpClientRequest::send)
+      .compose(HttpClientResponse::body);
+
+    assertEquals(content, join(first));
+    assertEquals(content, join(second));
+    assertEquals(1, boxRequests.get());
+  }
+
+  private RequestOptions downloadRequest(String fileId, String... headers) {
+    final RequestOptions options = new RequestOptions()
+      .setMethod(HttpMethod.GET)
+      .setHost("localhost")
+      .setPort(server.actualPort())
+      .setURI("/lti-courses/download-file/" + BoxDownloadTokens.getInstance().issue(fileId, false, Clock.systemUTC()));
+    for (int i = 0; i + 1 < headers.length; i += 2) {
+      options.putHeader(headers[i], headers[i + 1]);
+    }
+    return options;
+  }
+
+  private Download download(String fileId, String... headers) throws Exception {
+    return join(client.request(downloadRequest(fileId, headers))
+      .compose(HttpClientRequest::send)
+      .compose(resp -> resp.body().map(body -> new Download(resp, body))));
+  }
+
+  private void serveContent(RoutingContext ctx) {
+    boxRequests.incrementAndGet();
+    final String range = ctx.request().getHeader(HttpHeaders.RANGE);
+    if (range == null) {
+      ctx.response().end(content);
+      return;
+    }
+
+    final HttpRange parsed = HttpRange.parse(range, CONTENT_SIZE);
+    ctx.response()
+      .setStatusCode(206)
+      .putHeader(HttpHeaders.CONTENT_RANGE, parsed.asContentRange(CONTENT_SIZE))
+      .end(content.getBuffer((int) parsed.start, (int) (parsed.start + parsed.length())));
+  }
+
+  /**
+   * Writes zeros for as long as the response can take them, the way a well-behaved server would.
+   */
+  private void writeChunks(HttpServerResponse response, long remaining) {
+    while (remaining > 0 && !response.writeQueueFull()) {
+      final int size = (int) Math.min(CHUNK_SIZE, remaining);
+      response.write(Buffer.buffer(new byte[size]));
+      boxBytesWritten.addAndGet(size);
+      remaining -= size;
+    }
+
+    if (remaining == 0) {
+      response.end();
+      return;
+    }
+
+    final long left = remaining;
+    response.drainHandler(v -> writeChunks(response, left));
+  }
+
+  private static class Download {
+    final HttpClientResponse response;
+    final Buffer body;
+
+    Download(HttpClientResponse response, Buffer body) {
+      this.response = response;
+      this.body = body;
+    }
+  }
+
+  /**
+   * Answers metadata and download URL lookups without calling Box.
+   */
+  private static class StubBoxApiClient extends BoxApiClient {
+    final Map<String, BoxFileMetadata> files = new ConcurrentHashMap<>();
+    final Map<String, String> downloadUrls = new ConcurrentHashMap<>();
+
+    StubBoxApiClient(Vertx vertx) {
+      super(vertx, new BoxAPIConnection("stub"), null, new BoxApiScheduler(vertx, 10, 10, 100, 10000));
+    }
+
+    void add(String fileId, String name, long size, String version, String downloadUrl) {
+      // Without a file version, the SHA1 stands in for it.
+      files.put(fileId, new BoxFileMetadata(new BoxFile(null, fileId).new Info(new JsonObject()
+        .put("type", "file")
+        .put("id", fileId)
+        .put("name", name)
+        .put("size", size)
+        .put("sha1", version)
+        .encode())));
+      downloadUrls.put(fileId, downloadUrl);
+    }
+
+    @Override
+    public Future<BoxFileMetadata> getFileMetadata(String fileId) {
+      final BoxFileMetadata metadata = files.get(fileId);
+      return metadata == null
+        ? Future.failedFuture(new BoxAPIException("No such file: " + fileId, 404, null))
+        : Future.succeededFuture(metadata);
+    }
+
+    @Override
+    public Future<URL> getDownloadUrl(String fileId) {
+      try {
+        return Future.succeededFuture(new URL(downloadUrls.get(fileId)));
+      } catch (MalformedURLException e) {
+        return Future.failedFuture(e);
+      }
+    }
+  }
+}
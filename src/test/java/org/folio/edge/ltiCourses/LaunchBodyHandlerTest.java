@@ -0,0 +1,89 @@
+package org.folio.edge.ltiCourses;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServer;
+import io.vertx.ext.web.Router;
+
+public class LaunchBodyHandlerTest {
+  public static final Logger logger = Logger.getLogger(LaunchBodyHandlerTest.class);
+
+  private static final String FORM = "id_token=token&state=state";
+
+  private Vertx vertx;
+  private HttpServer server;
+  private HttpClient client;
+
+  @Before
+  public void setUp() throws Exception {
+    vertx = Vertx.vertx();
+
+    final LaunchBodyHandler launchBodyHandler = new LaunchBodyHandler(65536);
+    final Router router = Router.router(vertx);
+    // Held, then admitted asynchronously: the body must wait for LaunchBodyHandler.
+    router.post("/held")
+      .handler(LaunchBodyHandler::holdBody)
+      .handler(ctx -> vertx.setTimer(200, id -> ctx.next()))
+      .handler(launchBodyHandler)
+      .handler(ctx -> ctx.end(ctx.request().getFormAttribute("id_token")));
+    // Not held, and the whole request is read before LaunchBodyHandler runs, so the form is lost.
+    router.post("/read-early")
+      .handler(ctx -> {
+        ctx.request().resume();
+        ctx.request().end().onComplete(ar -> ctx.next());
+      })
+      .handler(launchBodyHandler)
+      .handler(ctx -> ctx.end(String.valueOf(ctx.request().getFormAttribute("id_token"))));
+    server = join(vertx.createHttpServer().requestHandler(router).listen(0));
+
+    client = vertx.createHttpClient();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    join(vertx.close());
+  }
+
+  private static <T> T join(Future<T> future) throws Exception {
+    return future.toCompletionStage().toCompletableFuture().get(60, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testHeldBodyIsDecoded() throws Exception {
+    logger.info("=== Test a held launch body is decoded after an asynchronous handler... ===");
+
+    final HttpClientResponse response = post("/held");
+
+    assertEquals(200, response.statusCode());
+    assertEquals("token", join(response.body()).toString());
+  }
+
+  @Test
+  public void testBodyReadBeforeDecodingIsRejected() throws Exception {
+    logger.info("=== Test a launch whose body was read before it could be decoded is rejected... ===");
+
+    final HttpClientResponse response = post("/read-early");
+
+    assertEquals(400, response.statusCode());
+  }
+
+  private HttpClientResponse post(String path) throws Exception {
+    return join(client.request(HttpMethod.POST, server.actualPort(), "localhost", path)
+      .compose(request -> request
+        .putHeader(HttpHeaders.CONTENT_TYPE, "application/x-www-form-urlencoded")
+        .send(FORM)));
+  }
+}
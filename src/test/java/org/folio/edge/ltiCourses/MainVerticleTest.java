@@ -6,11 +6,13 @@ import static org.folio.edge.core.Constants.SYS_REQUEST_TIMEOUT_MS;
 import static org.folio.edge.core.Constants.SYS_SECURE_STORE_PROP_FILE;
 import static org.folio.edge.core.Constants.TEXT_PLAIN;
 import static org.folio.edge.core.Constants.APPLICATION_JSON;
+import static org.folio.edge.ltiCourses.Constants.ADMIN_API_TOKEN;
 import static org.folio.edge.ltiCourses.Constants.JWT_KID;
 import static org.folio.edge.ltiCourses.Constants.OIDC_TTL;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.CoreMatchers.containsString;
 
@@ -47,6 +49,7 @@ import org.apache.log4j.Logger;
 
 import org.folio.edge.core.utils.ApiKeyUtils;
 import org.folio.edge.core.utils.test.TestUtils;
+import org.folio.edge.ltiCourses.utils.LaunchSessions;
 import org.folio.edge.ltiCourses.utils.LtiCoursesMockOkapi;
 import org.folio.edge.ltiCourses.utils.MockLtiPlatformServer;
 
@@ -60,6 +63,8 @@ public class MainVerticleTest {
 
   private static final long requestTimeoutMs = 3000L;
 
+  private static final String adminApiToken = "admin-secret";
+
   private static int serverPort;
 
   private static Vertx vertx;
@@ -93,6 +98,7 @@ public class MainVerticleTest {
     System.setProperty(SYS_SECURE_STORE_PROP_FILE, "src/main/resources/ephemeral.properties");
     System.setProperty(SYS_REQUEST_TIMEOUT_MS, String.valueOf(requestTimeoutMs));
     System.setProperty(OIDC_TTL, "3000");
+    System.setProperty(ADMIN_API_TOKEN, adminApiToken);
 
     mockOkapi = new LtiCoursesMockOkapi(okapiPort, knownTenants);
     mockOkapi.start()
@@ -124,6 +130,163 @@ public class MainVerticleTest {
     assertEquals("\"OK\"", resp.body().asString());
   }
 
+  @Test
+  public void testAdminMetrics() {
+    logger.info("=== Test the Prometheus metrics endpoint... ===");
+
+    RestAssured
+      .get("/admin/metrics")
+    .then()
+      .statusCode(401);
+
+    final Response resp = RestAssured
+      .given()
+      .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminApiToken)
+      .get("/admin/metrics")
+    .then()
+      .statusCode(200)
+      .extract()
+      .response();
+
+    assertThat(resp.body().asString(), containsString("lti_courses_cache_gets_total{cache=\"oidc_state\""));
+    assertThat(resp.body().asString(), containsString("vertx_eventloop_lag"));
+  }
+
+  @Test
+  public void testAdminStats() {
+    logger.info("=== Test the stats endpoint... ===");
+
+    RestAssured
+      .get("/admin/stats")
+    .then()
+      .statusCode(401);
+
+    RestAssured
+      .given()
+      .header(HttpHeaders.AUTHORIZATION, "Bearer not-" + adminApiToken)
+      .get("/admin/stats")
+    .then()
+      .statusCode(401);
+
+    final Response resp = RestAssured
+      .given()
+      .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminApiToken)
+      .get("/admin/stats")
+    .then()
+      .statusCode(200)
+      .header(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
+      .extract()
+      .response();
+
+    JsonObject stats = new JsonObject(resp.asString());
+    assertNotNull(stats.getJsonObject("caches").getJsonObject("oidc_state").getLong("size"));
+    assertNotNull(stats.getJsonObject("readiness"));
+  }
+
+  @Test
+  public void testAdminLimits() {
+    logger.info("=== Test changing the admission limits at runtime... ===");
+
+    RestAssured
+      .get("/admin/limits")
+    .then()
+      .statusCode(401);
+
+    RestAssured
+      .given()
+      .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminApiToken)
+      .body("not json")
+      .put("/admin/limits")
+    .then()
+      .statusCode(400);
+
+    RestAssured
+      .given()
+      .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminApiToken)
+      .body("{\"maxInFlight\": 400}")
+      .put("/admin/limits")
+    .then()
+      .statusCode(200);
+
+    final Response resp = RestAssured
+      .given()
+      .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminApiToken)
+      .get("/admin/limits")
+    .then()
+      .statusCode(200)
+      .extract()
+      .response();
+
+    JsonObject limits = new JsonObject(resp.asString());
+    assertEquals(400, (int) limits.getInteger("maxInFlight"));
+    assertEquals(20, limits.getDouble("issuerRate"), 0.0001);
+
+    RestAssured
+      .given()
+      .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminApiToken)
+      .body("{\"maxInFlight\": 500}")
+      .put("/admin/limits")
+    .then()
+      .statusCode(200);
+  }
+
+  @Test
+  public void testAdminJfr() {
+    logger.info("=== Test starting and stopping a flight recording... ===");
+
+    RestAssured
+      .post("/admin/jfr/start")
+    .then()
+      .statusCode(401);
+
+    RestAssured
+      .given()
+      .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminApiToken)
+      .post("/admin/jfr/start?settings=default&duration=60")
+    .then()
+      .statusCode(202);
+
+    RestAssured
+      .given()
+      .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminApiToken)
+      .post("/admin/jfr/start")
+    .then()
+      .statusCode(409);
+
+    final Response resp = RestAssured
+      .given()
+      .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminApiToken)
+      .post("/admin/jfr/stop")
+    .then()
+      .statusCode(200)
+      .extract()
+      .response();
+
+    assertTrue(resp.asByteArray().length > 0);
+
+    RestAssured
+      .given()
+      .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminApiToken)
+      .post("/admin/jfr/stop")
+    .then()
+      .statusCode(404);
+  }
+
+  @Test
+  public void testAdminReady() {
+    logger.info("=== Test the readiness endpoint... ===");
+
+    final Response resp = RestAssured
+      .get("/admin/ready")
+    .then()
+      .statusCode(200)
+      .extract()
+      .response();
+
+    assertEquals(true, new JsonObject(resp.asString()).getBoolean("ready"));
+    assertTrue(new JsonObject(resp.asString()).getLong("timeToReadyMs") >= 0);
+  }
+
   @Test
   public void testJWKSEndpoint() {
     logger.info("=== Test the JWKS endpoint... ===");
@@ -250,6 +413,34 @@ public class MainVerticleTest {
     assertEquals("sig", key.getString("use"));
   }
 
+  @Test
+  public void testLaunchBodyLimits() {
+    logger.info("=== Test launches that aren't small forms are rejected... ===");
+
+    StringBuilder hugeToken = new StringBuilder();
+    for (int i = 0; i < 70000; i++) {
+      hugeToken.append('a');
+    }
+
+    RestAssured
+      .given()
+        .formParam("id_token", hugeToken.toString())
+        .formParam("state", "state")
+      .when()
+        .post("/lti-courses/launches/" + apiKey)
+      .then()
+        .statusCode(413);
+
+    RestAssured
+      .given()
+        .contentType("application/json")
+        .body("{\"id_token\": \"token\"}")
+      .when()
+        .post("/lti-courses/launches/" + apiKey)
+      .then()
+        .statusCode(415);
+  }
+
   @Test
   public void testResourceLinkRequestForCourseWithReserves() {
     logger.info("=== Test Resource Link requests for course with reserves... ===");
@@ -511,6 +702,161 @@ public class MainVerticleTest {
         .response();
   }
 
+  @Test
+  public void testResourceLinkRequestPostedTwice() {
+    logger.info("=== Test Resource Link requests posted twice get the same page, but their nonce only once... ===");
+
+    final Response oidcResponse = performOIDCLoginInit();
+    HashMap<String, String> oidcResponseParams = getOIDCLoginQueryParams(oidcResponse.header("location"));
+
+    String nonce = oidcResponseParams.get("nonce");
+    String state = oidcResponseParams.get("state");
+    String id_token = getResourceLinkJWT(mockOkapi.courseWithReserves, nonce);
+
+    String first = RestAssured
+      .given()
+        .formParam("id_token", id_token)
+        .formParam("state", state)
+      .when()
+        .post("/lti-courses/launches/" + apiKey)
+      .then()
+        .statusCode(200)
+        .extract()
+        .asString();
+
+    String second = RestAssured
+      .given()
+        .formParam("id_token", id_token)
+        .formParam("state", state)
+      .when()
+        .post("/lti-courses/launches/" + apiKey)
+      .then()
+        .statusCode(200)
+        .contentType("text/html;charset=UTF-8")
+        .extract()
+        .asString();
+
+    assertEquals(first, second);
+
+    // Anything but the identical launch has to verify, and the nonce has been used up.
+    RestAssured
+      .given()
+        .formParam("id_token", id_token)
+        .formParam("state", state + "foo")
+      .when()
+        .post("/lti-courses/launches/" + apiKey)
+      .then()
+        .statusCode(400);
+  }
+
+  @Test
+  public void testReservesFromLaunchSession() {
+    logger.info("=== Test the reserves are shown again from the session cookie of a launch... ===");
+
+    final Response oidcResponse = performOIDCLoginInit();
+    HashMap<String, String> oidcResponseParams = getOIDCLoginQueryParams(oidcResponse.header("location"));
+
+    String nonce = oidcResponseParams.get("nonce");
+    String state = oidcResponseParams.get("state");
+    String id_token = getResourceLinkJWT(mockOkapi.courseWithReserves, nonce);
+
+    Response launch = RestAssured
+      .given()
+        .formParam("id_token", id_token)
+        .formParam("state", state)
+      .when()
+        .post("/lti-courses/launches/" + apiKey)
+      .then()
+        .statusCode(200)
+        .extract()
+        .response();
+
+    String session = launch.getCookie(LaunchSessions.COOKIE_NAME);
+    assertNotNull(session);
+    assertThat(launch.getHeader("set-cookie"), containsString("SameSite=None"));
+    assertThat(launch.getHeader("set-cookie"), containsString("Path=/lti-courses/reserves/"));
+    assertThat(launch.getBody().asString(), containsString("../reserves/" + apiKey));
+
+    // The platform was looked up by the launch, and the session remembers it.
+    final int platformRequests = mockOkapi.platformRequests.get();
+    String body = RestAssured
+      .given()
+        .cookie(LaunchSessions.COOKIE_NAME, session)
+      .when()
+        .get("/lti-courses/reserves/" + apiKey)
+      .then()
+        .statusCode(200)
+        .contentType("text/html;charset=UTF-8")
+        .extract()
+        .asString();
+    assertEquals(true, body.contains("lti-course-reserves-list"));
+    assertEquals(platformRequests, mockOkapi.platformRequests.get());
+
+    RestAssured
+      .given()
+        .cookie(LaunchSessions.COOKIE_NAME, session + "x")
+      .when()
+        .get("/lti-courses/reserves/" + apiKey)
+      .then()
+        .statusCode(401);
+
+    RestAssured
+      .get("/lti-courses/reserves/" + apiKey)
+      .then()
+        .statusCode(401);
+  }
+
+  @Test
+  public void testLaunchPostedTwiceGetsSession() {
+    logger.info("=== Test a launch posted twice gets the first one's session cookie too... ===");
+
+    final Response oidcResponse = performOIDCLoginInit();
+    HashMap<String, String> oidcResponseParams = getOIDCLoginQueryParams(oidcResponse.header("location"));
+
+    String nonce = oidcResponseParams.get("nonce");
+    String state = oidcResponseParams.get("state");
+    String id_token = getResourceLinkJWT(mockOkapi.courseWithReserves, nonce);
+
+    Response first = RestAssured
+      .given()
+        .formParam("id_token", id_token)
+        .formParam("state", state)
+      .when()
+        .post("/lti-courses/launches/" + apiKey)
+      .then()
+        .statusCode(200)
+        .extract()
+        .response();
+
+    Response second = RestAssured
+      .given()
+        .formParam("id_token", id_token)
+        .formParam("state", state)
+      .when()
+        .post("/lti-courses/launches/" + apiKey)
+      .then()
+        .statusCode(200)
+        .contentType("text/html;charset=UTF-8")
+        .extract()
+        .response();
+
+    String session = second.getCookie(LaunchSessions.COOKIE_NAME);
+    assertEquals(first.getCookie(LaunchSessions.COOKIE_NAME), session);
+    assertThat(second.getHeader("set-cookie"), containsString("SameSite=None"));
+    assertThat(second.getBody().asString(), containsString("../reserves/" + apiKey));
+
+    String body = RestAssured
+      .given()
+        .cookie(LaunchSessions.COOKIE_NAME, session)
+      .when()
+        .get("/lti-courses/reserves/" + apiKey)
+      .then()
+        .statusCode(200)
+        .extract()
+        .asString();
+    assertEquals(true, body.contains("lti-course-reserves-list"));
+  }
+
   private Response performOIDCLoginInit() {
     return RestAssured
       .given()
@@ -0,0 +1,97 @@
+package org.folio.edge.ltiCourses.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.log4j.Logger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BoxContentCacheTest {
+
+  public static final Logger logger = Logger.getLogger(BoxContentCacheTest.class);
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testCommitAndGet() throws Exception {
+    logger.info("=== Test committed content is served from the cache... ===");
+
+    BoxContentCache cache = BoxContentCache.initialize(folder.getRoot().toPath(), 100);
+    String key = BoxContentCache.key("123", "v1");
+
+    assertNull(cache.get(key, 10));
+    assertTrue(cache.commit(key, writePartialFile(cache, 10), 10));
+
+    Path content = cache.get(key, 10);
+    assertNotNull(content);
+    assertEquals(10, Files.size(content));
+
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertEquals(0.5, cache.getHitRatio(), 0.0001);
+    assertEquals(10, cache.getBytesSaved());
+  }
+
+  @Test
+  public void testTruncatedContentIsNotCommitted() throws Exception {
+    logger.info("=== Test truncated content isn't cached... ===");
+
+    BoxContentCache cache = BoxContentCache.initialize(folder.getRoot().toPath(), 100);
+    String key = BoxContentCache.key("123", "v1");
+    Path partialFile = writePartialFile(cache, 5);
+
+    assertFalse(cache.commit(key, partialFile, 10));
+    assertFalse(Files.exists(partialFile));
+    assertNull(cache.get(key, 10));
+  }
+
+  @Test
+  public void testLeastRecentlyUsedIsEvicted() throws Exception {
+    logger.info("=== Test the least recently used content is evicted when over budget... ===");
+
+    BoxContentCache cache = BoxContentCache.initialize(folder.getRoot().toPath(), 25);
+    String first = BoxContentCache.key("1", "v1");
+    String second = BoxContentCache.key("2", "v1");
+    String third = BoxContentCache.key("3", "v1");
+
+    cache.commit(first, writePartialFile(cache, 10), 10);
+    cache.commit(second, writePartialFile(cache, 10), 10);
+    cache.get(first, 10);
+    cache.commit(third, writePartialFile(cache, 10), 10);
+
+    assertNotNull(cache.get(first, 10));
+    assertNull(cache.get(second, 10));
+    assertNotNull(cache.get(third, 10));
+    assertEquals(1, cache.getEvictions());
+    assertEquals(20, cache.getTotalBytes());
+  }
+
+  @Test
+  public void testExistingContentIsIndexedOnInitialize() throws Exception {
+    logger.info("=== Test cached content survives reinitialization... ===");
+
+    BoxContentCache cache = BoxContentCache.initialize(folder.getRoot().toPath(), 100);
+    String key = BoxContentCache.key("123", "v1");
+    cache.commit(key, writePartialFile(cache, 10), 10);
+    writePartialFile(cache, 3);
+
+    BoxContentCache reinitialized = BoxContentCache.initialize(folder.getRoot().toPath(), 100);
+    assertNotNull(reinitialized.get(key, 10));
+    assertEquals(1, reinitialized.size());
+  }
+
+  private Path writePartialFile(BoxContentCache cache, int size) throws Exception {
+    Path partialFile = cache.newPartialFile();
+    Files.write(partialFile, new byte[size]);
+    return partialFile;
+  }
+}
@@ -0,0 +1,68 @@
+package org.folio.edge.ltiCourses.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.log4j.Logger;
+import org.folio.edge.ltiCourses.cache.LaunchResultCache.LaunchResult;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+
+public class LaunchResultCacheTest {
+
+  public static final Logger logger = Logger.getLogger(LaunchResultCacheTest.class);
+
+  private static final String KEY = LaunchResultCache.key("/lti-courses/launches/key", "token", "state");
+
+  private LaunchResultCache cache;
+
+  @Before
+  public void setUp() {
+    cache = LaunchResultCache.initialize(60000, 10);
+  }
+
+  @Test
+  public void testJoinAroundCompletion() {
+    logger.info("=== Test identical launches join the first whether or not its result is recorded yet... ===");
+    final Promise<LaunchResult> first = Promise.promise();
+    final LaunchResult result = new LaunchResult(200, "<html/>");
+
+    // Registered before the first launch claims its key, so it runs once the first launch's future is complete but
+    // before the cache has seen it complete.
+    final AtomicReference<Future<LaunchResult>> joinedBeforeComplete = new AtomicReference<>();
+    first.future().onComplete(ar -> joinedBeforeComplete.set(cache.join(KEY, Promise.<LaunchResult>promise().future())));
+
+    assertNull(cache.join(KEY, first.future()));
+    final Future<LaunchResult> joinedInFlight = cache.join(KEY, Promise.<LaunchResult>promise().future());
+    assertNotNull(joinedInFlight);
+
+    first.complete(result);
+
+    assertNotNull(joinedBeforeComplete.get());
+    assertSame(result, joinedBeforeComplete.get().result());
+    assertSame(result, joinedInFlight.result());
+
+    final Future<LaunchResult> joinedAfterComplete = cache.join(KEY, Promise.<LaunchResult>promise().future());
+    assertNotNull(joinedAfterComplete);
+    assertSame(result, joinedAfterComplete.result());
+    assertEquals(0, (int) cache.getStats().getInteger("inFlight"));
+  }
+
+  @Test
+  public void testFailedLaunchIsNotKept() {
+    logger.info("=== Test a launch that didn't get through isn't repeated to the next identical one... ===");
+    final Promise<LaunchResult> first = Promise.promise();
+
+    assertNull(cache.join(KEY, first.future()));
+    first.complete(new LaunchResult(400, null));
+
+    assertNull(cache.join(KEY, Promise.<LaunchResult>promise().future()));
+  }
+}
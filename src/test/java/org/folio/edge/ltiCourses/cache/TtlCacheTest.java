@@ -0,0 +1,110 @@
+package org.folio.edge.ltiCourses.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+import io.vertx.core.json.JsonObject;
+
+public class TtlCacheTest {
+
+  public static final Logger logger = Logger.getLogger(TtlCacheTest.class);
+
+  @Test
+  public void testEvictsLeastRecentlyUsed() {
+    logger.info("=== Test the least recently used entry is evicted when the cache is full... ===");
+
+    TtlCache<String> cache = new TtlCache<>("test", 60000, 60000, 2);
+    cache.put("a", "1");
+    cache.put("b", "2");
+    assertEquals("1", cache.get("a"));
+    cache.put("c", "3");
+
+    assertNull(cache.get("b"));
+    assertEquals("1", cache.get("a"));
+    assertEquals("3", cache.get("c"));
+
+    JsonObject stats = cache.asJsonObject();
+    assertEquals(2, (int) stats.getInteger("size"));
+    assertEquals(1, (long) stats.getLong("evictions"));
+    assertEquals(3, (long) stats.getLong("hits"));
+    assertEquals(1, (long) stats.getLong("misses"));
+    assertEquals(0.75, stats.getDouble("hitRatio"), 0.0001);
+  }
+
+  @Test
+  public void testExpires() throws Exception {
+    logger.info("=== Test entries expire after their TTL... ===");
+
+    TtlCache<String> cache = new TtlCache<>("test", 50, 50, 10);
+    cache.put("a", "1");
+    assertEquals("1", cache.get("a"));
+
+    Thread.sleep(100);
+
+    assertNull(cache.get("a"));
+    assertEquals(0, cache.size());
+    assertEquals(1, cache.getExpirations());
+  }
+
+  @Test
+  public void testPutIfAbsent() throws Exception {
+    logger.info("=== Test putIfAbsent keeps a live entry and replaces an expired one... ===");
+
+    TtlCache<String> cache = new TtlCache<>("test", 50, 50, 10);
+    assertNull(cache.putIfAbsent("a", "1"));
+    assertEquals("1", cache.putIfAbsent("a", "2"));
+    assertEquals("1", cache.get("a"));
+
+    assertFalse(cache.remove("a", "2"));
+    assertTrue(cache.remove("a", "1"));
+    assertNull(cache.get("a"));
+
+    cache.put("a", "1");
+    Thread.sleep(100);
+
+    assertNull(cache.putIfAbsent("a", "2"));
+    assertEquals("2", cache.get("a"));
+  }
+
+  @Test
+  public void testConcurrentUse() throws Exception {
+    logger.info("=== Test the cache stays within capacity and counts every get under concurrent use... ===");
+
+    TtlCache<String> cache = new TtlCache<>("test", 60000, 60000, 100);
+    int threads = 8;
+    int operations = 10000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      futures.add(executor.submit(() -> {
+        for (int i = 0; i < operations; i++) {
+          String key = Integer.toString(ThreadLocalRandom.current().nextInt(1000));
+          if (cache.get(key) == null) {
+            cache.put(key, key);
+          }
+        }
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get(60, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    assertTrue(cache.size() <= 100);
+    assertEquals(threads * operations, cache.getHits() + cache.getMisses());
+    assertTrue(cache.getEvictions() > 0);
+  }
+}
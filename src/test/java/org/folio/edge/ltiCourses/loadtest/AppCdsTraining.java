@@ -0,0 +1,203 @@
+package org.folio.edge.ltiCourses.loadtest;
+
+import static org.folio.edge.core.Constants.SYS_OKAPI_URL;
+import static org.folio.edge.core.Constants.SYS_PORT;
+import static org.folio.edge.core.Constants.SYS_REQUEST_TIMEOUT_MS;
+import static org.folio.edge.core.Constants.SYS_SECURE_STORE_PROP_FILE;
+import static org.folio.edge.ltiCourses.Constants.MAX_LAUNCHES_IN_FLIGHT;
+import static org.folio.edge.ltiCourses.Constants.RATE_LIMIT_API_KEY;
+import static org.folio.edge.ltiCourses.Constants.RATE_LIMIT_CLIENT;
+import static org.folio.edge.ltiCourses.Constants.RATE_LIMIT_ISSUER;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+import org.folio.edge.core.utils.ApiKeyUtils;
+import org.folio.edge.core.utils.test.TestUtils;
+import org.folio.edge.ltiCourses.MockLtiPlatform;
+import org.folio.edge.ltiCourses.utils.LtiCoursesMockOkapi;
+import org.folio.edge.ltiCourses.utils.MockLtiPlatformServer;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Trains an AppCDS archive for the fat jar, and measures what it does for startup.
+ *
+ * The fat jar is started in a JVM of its own with -XX:ArchiveClassesAtExit, the {@link LaunchLoadTest} sequence is run
+ * against it with the mock platform and mock Okapi standing in for the LMS and FOLIO, and it's stopped so that every
+ * class it loaded is archived. The fat jar is then started twice more, without and with the archive, and the time
+ * each took until /admin/ready answered 200 is reported. Nothing leaves localhost.
+ *
+ * The archive only works with the JVM that wrote it and the same fat jar, so train it where the image is built.
+ *
+ * Configured with system properties:
+ * - appcds.jar: the fat jar (default target/edge-lti-courses-fat.jar)
+ * - appcds.archive: where to write the archive (default target/edge-lti-courses.jsa)
+ * - appcds.duration: seconds to run launches for while training (default 20)
+ * - appcds.jvmArgs: space separated extra arguments for the fat jar's JVM, eg: -Dfast_startup=true
+ */
+public class AppCdsTraining {
+  private static final Logger logger = Logger.getLogger(AppCdsTraining.class);
+
+  private static final String apiKey = ApiKeyUtils.generateApiKey(10, "tester", "tester");
+
+  private final Vertx vertx;
+  private final String jar;
+  private final List<String> jvmArgs;
+
+  public AppCdsTraining(Vertx vertx, String jar, List<String> jvmArgs) {
+    this.vertx = vertx;
+    this.jar = jar;
+    this.jvmArgs = jvmArgs;
+  }
+
+  public static void main(String[] args) throws Exception {
+    final String jar = System.getProperty("appcds.jar", "target/edge-lti-courses-fat.jar");
+    final String archive = System.getProperty("appcds.archive", "target/edge-lti-courses.jsa");
+    final int duration = Integer.getInteger("appcds.duration", 20);
+
+    final int okapiPort = TestUtils.getPort();
+    final int platformPort = TestUtils.getPort();
+
+    final List<String> jvmArgs = new ArrayList<>();
+    jvmArgs.add("-D" + SYS_OKAPI_URL + "=http://localhost:" + okapiPort);
+    jvmArgs.add("-D" + SYS_SECURE_STORE_PROP_FILE + "=src/main/resources/ephemeral.properties");
+    jvmArgs.add("-D" + SYS_REQUEST_TIMEOUT_MS + "=10000");
+    // Every request comes from the same issuer and API key.
+    jvmArgs.add("-D" + RATE_LIMIT_ISSUER + "=0");
+    jvmArgs.add("-D" + RATE_LIMIT_API_KEY + "=0");
+    jvmArgs.add("-D" + RATE_LIMIT_CLIENT + "=0");
+    jvmArgs.add("-D" + MAX_LAUNCHES_IN_FLIGHT + "=0");
+    for (String jvmArg : System.getProperty("appcds.jvmArgs", "").split(" ")) {
+      if (!jvmArg.isEmpty()) {
+        jvmArgs.add(jvmArg);
+      }
+    }
+
+    final Vertx vertx = Vertx.vertx();
+
+    final LtiCoursesMockOkapi mockOkapi = new LtiCoursesMockOkapi(okapiPort,
+      Collections.singletonList(ApiKeyUtils.parseApiKey(apiKey).tenantId));
+    final MockLtiPlatformServer platformServer = new MockLtiPlatformServer(platformPort, vertx);
+    final MockLtiPlatform platform = MockLtiPlatform.initialize(platformPort);
+
+    mockOkapi.start()
+      .compose(x -> platformServer.start())
+      .toCompletionStage().toCompletableFuture().get(60, TimeUnit.SECONDS);
+
+    final AppCdsTraining training = new AppCdsTraining(vertx, jar, jvmArgs);
+
+    new File(archive).delete();
+    logger.info("Training " + archive + " with " + duration + "s of launches against " + jar);
+    final Run trainingRun = training.start("-XX:ArchiveClassesAtExit=" + archive);
+    final LaunchLoadTest launches = new LaunchLoadTest(vertx, platformServer, platform, trainingRun.port, 20, 8);
+    launches.run(1, duration);
+    trainingRun.stop();
+
+    if (!new File(archive).isFile()) {
+      throw new IllegalStateException("No archive was written to " + archive + ", see the module's output above");
+    }
+    if (launches.errors("total") > 0) {
+      logger.warn(launches.errors("total") + " launches failed while training, the archive may be missing classes");
+    }
+
+    final Run withoutArchive = training.start(null);
+    withoutArchive.stop();
+    final Run withArchive = training.start("-XX:SharedArchiveFile=" + archive);
+    withArchive.stop();
+
+    System.out.println(String.format("%-16s %16s %16s%n%-16s %16d %16d%n%-16s %16d %16d%n",
+      "", "ready after ms", "JVM reported ms",
+      "without archive", withoutArchive.readyAfter, withoutArchive.timeToReady,
+      "with archive", withArchive.readyAfter, withArchive.timeToReady));
+    System.out.println("Archive: " + archive + ", " + new File(archive).length() + " bytes");
+
+    mockOkapi.close().compose(x -> vertx.close())
+      .toCompletionStage().toCompletableFuture().get(30, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Starts the fat jar with the same JVM as this one, and waits until it's ready.
+   *
+   * @param cdsArg
+   *          the argument that writes or uses the archive, or null for neither
+   */
+  protected Run start(String cdsArg) throws Exception {
+    final int port = TestUtils.getPort();
+
+    final List<String> command = new ArrayList<>();
+    command.add(ProcessHandle.current().info().command().orElse("java"));
+    if (cdsArg != null) {
+      command.add(cdsArg);
+    }
+    command.add("-D" + SYS_PORT + "=" + port);
+    command.addAll(jvmArgs);
+    command.add("-jar");
+    command.add(jar);
+
+    final long start = System.nanoTime();
+    final Process process = new ProcessBuilder(command).inheritIO().start();
+
+    final HttpClient client = vertx.createHttpClient(
+      new HttpClientOptions().setDefaultHost("localhost").setDefaultPort(port));
+    try {
+      final long deadline = start + TimeUnit.SECONDS.toNanos(120);
+      while (System.nanoTime() < deadline) {
+        if (!process.isAlive()) {
+          throw new IllegalStateException("The module exited with " + process.exitValue() + " before it was ready");
+        }
+
+        final JsonObject readiness = client.request(HttpMethod.GET, "/admin/ready")
+          .compose(req -> req.send())
+          .compose(resp -> resp.body().map(body -> resp.statusCode() == 200 ? body.toJsonObject() : null))
+          .otherwiseEmpty()
+          .toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+        if (readiness != null) {
+          final long readyAfter = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+          return new Run(process, port, readyAfter, readiness.getLong("timeToReadyMs", -1L));
+        }
+
+        TimeUnit.MILLISECONDS.sleep(20);
+      }
+    } finally {
+      client.close();
+    }
+
+    process.destroyForcibly();
+    throw new IllegalStateException("The module wasn't ready within 120s");
+  }
+
+  protected static class Run {
+    final Process process;
+    final int port;
+    final long readyAfter;
+    final long timeToReady;
+
+    Run(Process process, int port, long readyAfter, long timeToReady) {
+      this.process = process;
+      this.port = port;
+      this.readyAfter = readyAfter;
+      this.timeToReady = timeToReady;
+    }
+
+    /**
+     * Stops the module the way the container runtime would, so that the JVM exits normally and writes its archive.
+     */
+    void stop() throws InterruptedException {
+      process.destroy();
+      if (!process.waitFor(60, TimeUnit.SECONDS)) {
+        process.destroyForcibly();
+        throw new IllegalStateException("The module didn't stop within 60s");
+      }
+    }
+  }
+}
@@ -0,0 +1,322 @@
+package org.folio.edge.ltiCourses.loadtest;
+
+import static org.folio.edge.core.Constants.SYS_OKAPI_URL;
+import static org.folio.edge.core.Constants.SYS_PORT;
+import static org.folio.edge.core.Constants.SYS_REQUEST_TIMEOUT_MS;
+import static org.folio.edge.core.Constants.SYS_SECURE_STORE_PROP_FILE;
+import static org.folio.edge.ltiCourses.Constants.JWT_KID;
+import static org.folio.edge.ltiCourses.Constants.MAX_LAUNCHES_IN_FLIGHT;
+import static org.folio.edge.ltiCourses.Constants.RATE_LIMIT_API_KEY;
+import static org.folio.edge.ltiCourses.Constants.RATE_LIMIT_CLIENT;
+import static org.folio.edge.ltiCourses.Constants.RATE_LIMIT_ISSUER;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.apache.log4j.Logger;
+
+import org.folio.edge.core.utils.ApiKeyUtils;
+import org.folio.edge.core.utils.test.TestUtils;
+import org.folio.edge.ltiCourses.MainVerticle;
+import org.folio.edge.ltiCourses.MockLtiPlatform;
+import org.folio.edge.ltiCourses.utils.LtiCoursesMockOkapi;
+import org.folio.edge.ltiCourses.utils.MockLtiPlatformServer;
+
+import com.auth0.jwt.JWT;
+
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.vertx.core.Future;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.PoolOptions;
+import io.vertx.core.http.RequestOptions;
+
+/**
+ * Drives OIDC login initiations followed by launches against a MainVerticle running on this box, with the mock
+ * platform and mock Okapi standing in for the LMS and FOLIO. Nothing leaves localhost.
+ *
+ * Sequences are started at a fixed rate (an open model), and no more than `concurrency` run at once; sequences that
+ * have to wait for a free slot are timed from when they were due, so a saturated module shows up as latency rather
+ * than as a lower request rate. With a rate of 0, a new sequence is started as soon as one ends instead (a closed
+ * model), which measures the most the module can handle; see ScalingLoadTest.
+ *
+ * Configured with system properties:
+ * - loadtest.rate: sequences started per second (default 50)
+ * - loadtest.concurrency: maximum sequences in flight (default 32)
+ * - loadtest.duration: seconds to measure for (default 60)
+ * - loadtest.warmup: seconds to run before measuring (default 10)
+ * - loadtest.okapiLatency: ms the mock Okapi waits before each response (default 0)
+ * - loadtest.platformLatency: ms the mock platform waits before each response (default 0)
+ */
+public class LaunchLoadTest {
+  private static final Logger logger = Logger.getLogger(LaunchLoadTest.class);
+
+  private static final String apiKey = ApiKeyUtils.generateApiKey(10, "tester", "tester");
+
+  private final Vertx vertx;
+  private final MockLtiPlatformServer platformServer;
+  private final MockLtiPlatform platform;
+  private final HttpClient client;
+  private final int rate;
+  private final int concurrency;
+
+  private final Map<String, Stage> stages = new LinkedHashMap<>();
+  private final ArrayDeque<Long> waiting = new ArrayDeque<>();
+  private int inFlight = 0;
+  private long started = 0;
+  private long startNanos;
+  private boolean running = false;
+  private volatile boolean measuring = false;
+
+  public LaunchLoadTest(Vertx vertx, MockLtiPlatformServer platformServer, MockLtiPlatform platform, int serverPort,
+      int rate, int concurrency) {
+    this.vertx = vertx;
+    this.platformServer = platformServer;
+    this.platform = platform;
+    this.rate = rate;
+    this.concurrency = concurrency;
+    this.client = vertx.createHttpClient(
+      new HttpClientOptions().setDefaultHost("localhost").setDefaultPort(serverPort),
+      new PoolOptions().setHttp1MaxSize(concurrency));
+
+    stages.put("oidc-login-init", new Stage());
+    stages.put("launch", new Stage());
+    stages.put("total", new Stage());
+  }
+
+  public static void main(String[] args) throws Exception {
+    final int rate = Integer.getInteger("loadtest.rate", 50);
+    final int concurrency = Integer.getInteger("loadtest.concurrency", 32);
+    final int duration = Integer.getInteger("loadtest.duration", 60);
+    final int warmup = Integer.getInteger("loadtest.warmup", 10);
+
+    final int serverPort = TestUtils.getPort();
+    final int okapiPort = TestUtils.getPort();
+    final int platformPort = TestUtils.getPort();
+
+    System.setProperty(SYS_PORT, String.valueOf(serverPort));
+    System.setProperty(SYS_OKAPI_URL, "http://localhost:" + okapiPort);
+    System.setProperty(SYS_SECURE_STORE_PROP_FILE, "src/main/resources/ephemeral.properties");
+    System.setProperty(SYS_REQUEST_TIMEOUT_MS, "10000");
+    // Every request comes from the same issuer and API key, so the module's own limits would be measured instead.
+    System.setProperty(RATE_LIMIT_ISSUER, "0");
+    System.setProperty(RATE_LIMIT_API_KEY, "0");
+    System.setProperty(RATE_LIMIT_CLIENT, "0");
+    System.setProperty(MAX_LAUNCHES_IN_FLIGHT, "0");
+
+    final Vertx vertx = Vertx.vertx();
+
+    final LtiCoursesMockOkapi mockOkapi = new LtiCoursesMockOkapi(okapiPort,
+      Collections.singletonList(ApiKeyUtils.parseApiKey(apiKey).tenantId));
+    mockOkapi.setLatency(Long.getLong("loadtest.okapiLatency", 0));
+
+    final MockLtiPlatformServer platformServer = new MockLtiPlatformServer(platformPort, vertx);
+    platformServer.setLatency(Long.getLong("loadtest.platformLatency", 0));
+    final MockLtiPlatform platform = MockLtiPlatform.initialize(platformPort);
+
+    mockOkapi.start()
+      .compose(x -> platformServer.start())
+      .compose(x -> vertx.deployVerticle(MainVerticle.class.getName()))
+      .toCompletionStage().toCompletableFuture().get(60, TimeUnit.SECONDS);
+
+    logger.info("Running " + rate + " launches/s with at most " + concurrency + " in flight, warming up for "
+      + warmup + "s and measuring for " + duration + "s");
+
+    final LaunchLoadTest loadTest = new LaunchLoadTest(vertx, platformServer, platform, serverPort, rate, concurrency);
+    loadTest.run(warmup, duration);
+    System.out.println(loadTest.report(duration));
+
+    mockOkapi.close().compose(x -> vertx.close())
+      .toCompletionStage().toCompletableFuture().get(30, TimeUnit.SECONDS);
+  }
+
+  public void run(int warmup, int duration) throws InterruptedException {
+    final CountDownLatch done = new CountDownLatch(1);
+    start(warmup, duration).onComplete(ar -> done.countDown());
+    done.await();
+  }
+
+  /**
+   * Starts generating load on an event loop of its own.
+   *
+   * @return completed once the measurement is over
+   */
+  public Future<Void> start(int warmup, int duration) {
+    final Promise<Void> done = Promise.promise();
+
+    vertx.runOnContext(v -> {
+      startNanos = System.nanoTime();
+      running = true;
+      final long ticker = vertx.setPeriodic(5, id -> tick());
+
+      vertx.setTimer(warmup * 1000L, id -> {
+        stages.values().forEach(Stage::reset);
+        measuring = true;
+      });
+      vertx.setTimer((warmup + duration) * 1000L, id -> {
+        measuring = false;
+        running = false;
+        vertx.cancelTimer(ticker);
+        done.complete();
+      });
+    });
+
+    return done.future();
+  }
+
+  public Histogram latencies(String stage) {
+    return stages.get(stage).latencies;
+  }
+
+  public long errors(String stage) {
+    return stages.get(stage).errors.get();
+  }
+
+  // Runs on the harness's event loop, so the scheduling state needs no locking.
+  private void tick() {
+    if (rate <= 0) {
+      while (inFlight < concurrency && running) {
+        inFlight++;
+        launchSequence(System.nanoTime()).onComplete(ar -> {
+          inFlight--;
+          tick();
+        });
+      }
+      return;
+    }
+
+    final long now = System.nanoTime();
+    final long due = (now - startNanos) * rate / 1_000_000_000L;
+    while (started < due) {
+      waiting.add(startNanos + started * 1_000_000_000L / rate);
+      started++;
+    }
+
+    while (inFlight < concurrency && !waiting.isEmpty()) {
+      final long intendedStart = waiting.poll();
+      inFlight++;
+      launchSequence(intendedStart).onComplete(ar -> {
+        inFlight--;
+        tick();
+      });
+    }
+  }
+
+  protected Future<Void> launchSequence(long intendedStart) {
+    final String oidcLoginInit = "/lti-courses/oidc-login-init/" + apiKey
+      + "?iss=" + URLEncoder.encode(platform.issuer, StandardCharsets.UTF_8)
+      + "&login_hint=loadtest"
+      + "&target_link_uri=" + URLEncoder.encode("http://localhost/launch", StandardCharsets.UTF_8);
+
+    return timed("oidc-login-init", intendedStart, send(HttpMethod.GET, oidcLoginInit, null), 302)
+      .compose(resp -> {
+        final QueryStringDecoder location = new QueryStringDecoder(resp.getHeader(HttpHeaders.LOCATION));
+        final String nonce = location.parameters().get("nonce").get(0);
+        final String state = location.parameters().get("state").get(0);
+
+        final String form = "id_token=" + idToken(nonce) + "&state=" + state;
+        return timed("launch", System.nanoTime(),
+          send(HttpMethod.POST, "/lti-courses/launches/" + apiKey, Buffer.buffer(form)), 200);
+      })
+      .andThen(ar -> stages.get("total").record(intendedStart, ar.succeeded()))
+      .mapEmpty();
+  }
+
+  protected String idToken(String nonce) {
+    return JWT.create()
+      .withIssuer(platform.issuer)
+      .withKeyId(JWT_KID)
+      .withAudience(platform.clientId)
+      .withIssuedAt(Date.from(Instant.now()))
+      .withExpiresAt(Date.from(Instant.now().plusSeconds(300)))
+      .withClaim("nonce", nonce)
+      .withClaim("https://purl.imsglobal.org/spec/lti/claim/message_type", "LtiResourceLinkRequest")
+      .withClaim("https://purl.imsglobal.org/spec/lti/claim/version", "1.3.0")
+      .withClaim("https://purl.imsglobal.org/spec/lti/claim/context", Collections.singletonMap("title", "COURSE101"))
+      .sign(platformServer.algorithm);
+  }
+
+  protected Future<HttpClientResponse> send(HttpMethod method, String uri, Buffer body) {
+    final RequestOptions options = new RequestOptions().setMethod(method).setURI(uri);
+    if (body != null) {
+      options.setHeaders(MultiMap.caseInsensitiveMultiMap()
+        .add(HttpHeaders.CONTENT_TYPE, "application/x-www-form-urlencoded"));
+    }
+
+    return client.request(options)
+      .compose(req -> body == null ? req.send() : req.send(body))
+      .compose(resp -> resp.body().map(resp));
+  }
+
+  protected Future<HttpClientResponse> timed(String stage, long start, Future<HttpClientResponse> response,
+      int expectedStatus) {
+    return response
+      .compose(resp -> resp.statusCode() == expectedStatus
+        ? Future.succeededFuture(resp)
+        : Future.failedFuture(stage + " responded with " + resp.statusCode()))
+      .andThen(ar -> stages.get(stage).record(start, ar.succeeded()));
+  }
+
+  public String report(int duration) {
+    final StringBuilder report = new StringBuilder()
+      .append(String.format("%-16s %8s %8s %8s %10s %10s %10s %10s %10s %10s%n",
+        "stage", "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "error %"));
+
+    stages.forEach((name, stage) -> {
+      final Histogram latencies = stage.latencies;
+      final long errors = stage.errors.get();
+      final long count = latencies.getTotalCount() + errors;
+      report.append(String.format("%-16s %8d %8d %8.1f %10.2f %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+        name, count, errors, count / (double) duration,
+        latencies.getValueAtPercentile(50) / 1000.0,
+        latencies.getValueAtPercentile(90) / 1000.0,
+        latencies.getValueAtPercentile(99) / 1000.0,
+        latencies.getValueAtPercentile(99.9) / 1000.0,
+        latencies.getMaxValue() / 1000.0,
+        count == 0 ? 0 : 100.0 * errors / count));
+    });
+
+    return report.toString();
+  }
+
+  protected class Stage {
+    // Latencies of successful requests in microseconds, up to a minute.
+    final Histogram latencies = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+    final AtomicLong errors = new AtomicLong();
+
+    void record(long start, boolean succeeded) {
+      if (!measuring) {
+        return;
+      }
+
+      if (succeeded) {
+        latencies.recordValue(Math.min((System.nanoTime() - start) / 1000, latencies.getHighestTrackableValue()));
+      } else {
+        errors.incrementAndGet();
+      }
+    }
+
+    void reset() {
+      latencies.reset();
+      errors.set(0);
+    }
+  }
+}
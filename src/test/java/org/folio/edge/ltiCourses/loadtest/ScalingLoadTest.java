@@ -0,0 +1,147 @@
+package org.folio.edge.ltiCourses.loadtest;
+
+import static org.folio.edge.core.Constants.SYS_OKAPI_URL;
+import static org.folio.edge.core.Constants.SYS_PORT;
+import static org.folio.edge.core.Constants.SYS_REQUEST_TIMEOUT_MS;
+import static org.folio.edge.core.Constants.SYS_SECURE_STORE_PROP_FILE;
+import static org.folio.edge.ltiCourses.Constants.MAX_LAUNCHES_IN_FLIGHT;
+import static org.folio.edge.ltiCourses.Constants.RATE_LIMIT_API_KEY;
+import static org.folio.edge.ltiCourses.Constants.RATE_LIMIT_CLIENT;
+import static org.folio.edge.ltiCourses.Constants.RATE_LIMIT_ISSUER;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.apache.log4j.Logger;
+
+import org.folio.edge.core.utils.ApiKeyUtils;
+import org.folio.edge.core.utils.test.TestUtils;
+import org.folio.edge.ltiCourses.MainVerticle;
+import org.folio.edge.ltiCourses.MockLtiPlatform;
+import org.folio.edge.ltiCourses.utils.LtiCoursesMockOkapi;
+import org.folio.edge.ltiCourses.utils.MockLtiPlatformServer;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+
+/**
+ * Measures how launch throughput scales with the number of MainVerticle instances deployed, by running the
+ * {@link LaunchLoadTest} sequence flat out (a closed model) against 1, 2, 4 ... instances in turn.
+ *
+ * The load generators, the mock platform and the mock Okapi share the machine with the module, so the numbers are
+ * only comparable with each other, and flatten out well before the module itself would on dedicated hardware.
+ *
+ * Configured with system properties:
+ * - loadtest.instances: comma separated instance counts to measure (default 1, 2, 4 ... up to the number of cores)
+ * - loadtest.generators: event loops generating load (default 2)
+ * - loadtest.concurrency: sequences in flight per generator (default 32)
+ * - loadtest.duration: seconds to measure each instance count for (default 30)
+ * - loadtest.warmup: seconds to run each instance count before measuring (default 10)
+ */
+public class ScalingLoadTest {
+  private static final Logger logger = Logger.getLogger(ScalingLoadTest.class);
+
+  private static final String apiKey = ApiKeyUtils.generateApiKey(10, "tester", "tester");
+
+  public static void main(String[] args) throws Exception {
+    final int generators = Integer.getInteger("loadtest.generators", 2);
+    final int concurrency = Integer.getInteger("loadtest.concurrency", 32);
+    final int duration = Integer.getInteger("loadtest.duration", 30);
+    final int warmup = Integer.getInteger("loadtest.warmup", 10);
+
+    final int serverPort = TestUtils.getPort();
+    final int okapiPort = TestUtils.getPort();
+    final int platformPort = TestUtils.getPort();
+
+    System.setProperty(SYS_PORT, String.valueOf(serverPort));
+    System.setProperty(SYS_OKAPI_URL, "http://localhost:" + okapiPort);
+    System.setProperty(SYS_SECURE_STORE_PROP_FILE, "src/main/resources/ephemeral.properties");
+    System.setProperty(SYS_REQUEST_TIMEOUT_MS, "10000");
+    // Every request comes from the same issuer and API key, so the module's own limits would be measured instead.
+    System.setProperty(RATE_LIMIT_ISSUER, "0");
+    System.setProperty(RATE_LIMIT_API_KEY, "0");
+    System.setProperty(RATE_LIMIT_CLIENT, "0");
+    System.setProperty(MAX_LAUNCHES_IN_FLIGHT, "0");
+
+    final Vertx vertx = Vertx.vertx();
+
+    final LtiCoursesMockOkapi mockOkapi = new LtiCoursesMockOkapi(okapiPort,
+      Collections.singletonList(ApiKeyUtils.parseApiKey(apiKey).tenantId));
+    final MockLtiPlatformServer platformServer = new MockLtiPlatformServer(platformPort, vertx);
+    final MockLtiPlatform platform = MockLtiPlatform.initialize(platformPort);
+
+    mockOkapi.start()
+      .compose(x -> platformServer.start())
+      .toCompletionStage().toCompletableFuture().get(60, TimeUnit.SECONDS);
+
+    final StringBuilder report = new StringBuilder()
+      .append(String.format("%-10s %10s %10s %10s %10s %10s%n",
+        "instances", "seq/s", "speedup", "p50 ms", "p99 ms", "errors"));
+
+    double baseline = 0;
+    for (int instances : instanceCounts()) {
+      logger.info("Measuring " + instances + " instances with " + generators + " generators of " + concurrency
+        + " sequences each, warming up for " + warmup + "s and measuring for " + duration + "s");
+
+      final String deploymentId = vertx
+        .deployVerticle(MainVerticle.class.getName(), new DeploymentOptions().setInstances(instances))
+        .toCompletionStage().toCompletableFuture().get(60, TimeUnit.SECONDS);
+
+      final List<LaunchLoadTest> loadTests = new ArrayList<>();
+      final List<Future<Void>> runs = new ArrayList<>();
+      for (int i = 0; i < generators; i++) {
+        final LaunchLoadTest loadTest = new LaunchLoadTest(vertx, platformServer, platform, serverPort, 0, concurrency);
+        loadTests.add(loadTest);
+        runs.add(loadTest.start(warmup, duration));
+      }
+      Future.all(runs).toCompletionStage().toCompletableFuture().get(warmup + duration + 60, TimeUnit.SECONDS);
+
+      final Histogram latencies = new Histogram(TimeUnit.MINUTES.toMicros(1), 3);
+      long errors = 0;
+      for (LaunchLoadTest loadTest : loadTests) {
+        latencies.add(loadTest.latencies("total"));
+        errors += loadTest.errors("total");
+      }
+
+      final double throughput = latencies.getTotalCount() / (double) duration;
+      if (baseline == 0) {
+        baseline = throughput;
+      }
+      report.append(String.format("%-10d %10.1f %10.2f %10.2f %10.2f %10d%n",
+        instances, throughput, baseline == 0 ? 0 : throughput / baseline,
+        latencies.getValueAtPercentile(50) / 1000.0,
+        latencies.getValueAtPercentile(99) / 1000.0,
+        errors));
+
+      vertx.undeploy(deploymentId).toCompletionStage().toCompletableFuture().get(30, TimeUnit.SECONDS);
+    }
+
+    System.out.println(report);
+
+    mockOkapi.close().compose(x -> vertx.close())
+      .toCompletionStage().toCompletableFuture().get(30, TimeUnit.SECONDS);
+  }
+
+  protected static List<Integer> instanceCounts() {
+    final List<Integer> counts = new ArrayList<>();
+
+    final String configured = System.getProperty("loadtest.instances", "");
+    if (!configured.isEmpty()) {
+      for (String count : configured.split(",")) {
+        counts.add(Integer.valueOf(count.trim()));
+      }
+      return counts;
+    }
+
+    final int cores = Runtime.getRuntime().availableProcessors();
+    for (int count = 1; count < cores; count *= 2) {
+      counts.add(count);
+    }
+    counts.add(cores);
+    return counts;
+  }
+}
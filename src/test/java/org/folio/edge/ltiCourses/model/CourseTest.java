@@ -4,11 +4,22 @@ import static org.junit.Assert.assertEquals;
 
 import java.time.Clock;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.log4j.Logger;
 import org.junit.Test;
 
+import org.folio.edge.ltiCourses.utils.BoxDownloadTokens;
+import org.folio.edge.ltiCourses.utils.HmacSigner;
+
+import com.box.sdk.BoxFile;
+
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 
@@ -383,4 +394,75 @@ public class CourseTest {
     assertEquals(1, reserves.size());
     assertEquals("https://find.mylib.edu?q=raboof", reserves.getJsonObject(0).getString("uri"));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testBoxFoldersAreExpandedIntoTheirFiles() {
+    logger.info("=== Test Box folder reserves are replaced with their files... ===");
+
+    BoxDownloadTokens.initialize(HmacSigner.withSecret("secret"), 600000);
+
+    Course course = new Course(courseJson);
+    course.enableBoxDirectDownload();
+
+    String folderReserves = "{"
+    + "  \"reserves\" : [ {"
+    + "    \"id\" : \"folder\","
+    + "    \"itemId\" : \"12\","
+    + "    \"copiedItem\" : {"
+    + "      \"title\" : \"Week 1\","
+    + "      \"uri\" : \"https://app.box.com/folder/1000\""
+    + "    }"
+    + "  }, { "
+    + "    \"id\" : \"unlisted-folder\","
+    + "    \"itemId\" : \"34\","
+    + "    \"copiedItem\" : {"
+    + "      \"title\" : \"Week 2\","
+    + "      \"uri\" : \"https://app.box.com/folder/2000\""
+    + "    }"
+    + "  }],"
+    + "  \"totalRecords\" : 2"
+    + "}";
+
+    course.setReserves(folderReserves);
+
+    JsonArray reserves = course.getCurrentReserves(octoberClock);
+    assertEquals("1000", reserves.getJsonObject(0).getString("boxFolderId"));
+
+    List<BoxFileMetadata> files = Arrays.asList(boxFile("111", "syllabus.pdf"), boxFile("222", "reading.pdf"));
+    Map<String, List<BoxFileMetadata>> folders = Collections.singletonMap("1000", files);
+
+    JsonArray expanded = course.expandBoxFolders(reserves, folders, octoberClock);
+
+    assertEquals(3, expanded.size());
+    assertEquals("Week 1 / syllabus.pdf", expanded.getJsonObject(0).getString("title"));
+    assertEquals("111", expanded.getJsonObject(0).getString("boxFileId"));
+    assertEquals("222", expanded.getJsonObject(1).getString("boxFileId"));
+    assertEquals("111", BoxDownloadTokens.getInstance().verify(
+      expanded.getJsonObject(0).getString("uri").replace("/lti-courses/download-file/", ""), octoberClock).fileId);
+    assertEquals("https://app.box.com/folder/2000", expanded.getJsonObject(2).getString("uri"));
+  }
+
+  @Test
+  public void testParseDateIsLenient() {
+    logger.info("=== Test term and reserve dates are parsed as leniently as before... ===");
+    Instant expected = Instant.from(LocalDate.of(2020, 9, 1).atStartOfDay(ZoneId.systemDefault()));
+
+    assertEquals(expected, Course.parseDate("2020-09-01"));
+    assertEquals(expected, Course.parseDate("2020-9-1"));
+    assertEquals(expected, Course.parseDate("2020-09-01T12:00:00.000Z"));
+    assertEquals(expected, Course.parseDate("2020-08-32"));
+    assertEquals(Instant.from(LocalDate.of(2021, 1, 1).atStartOfDay(ZoneId.systemDefault())),
+      Course.parseDate("2020-13-01"));
+  }
+
+  @Test(expected = DateTimeParseException.class)
+  public void testParseDateRejectsNonDates() {
+    logger.info("=== Test unparseable dates are still rejected... ===");
+    Course.parseDate("September 1st");
+  }
+
+  private static BoxFileMetadata boxFile(String id, String name) {
+    return new BoxFileMetadata(new BoxFile(null, id).new Info(
+      new JsonObject().put("type", "file").put("id", id).put("name", name).put("size", 1024).encode()));
+  }
+}
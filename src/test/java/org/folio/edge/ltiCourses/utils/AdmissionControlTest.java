@@ -0,0 +1,77 @@
+package org.folio.edge.ltiCourses.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+import io.vertx.core.json.JsonObject;
+
+public class AdmissionControlTest {
+  public static final Logger logger = Logger.getLogger(AdmissionControlTest.class);
+
+  @Test
+  public void testIssuerBurstIsRateLimited() {
+    logger.info("=== Test requests beyond an issuer's burst are answered with 429... ===");
+    AdmissionControl admission = new AdmissionControl(new AdmissionControl.Limits(1, 3, 0, 0, 0, 0, 0, 0));
+
+    for (int i = 0; i < 3; i++) {
+      assertNull(admission.takeIssuer("key", "https://platform.example.edu"));
+    }
+
+    AdmissionControl.Rejection rejection = admission.takeIssuer("key", "https://platform.example.edu");
+    assertNotNull(rejection);
+    assertEquals(429, rejection.statusCode);
+    assertEquals(AdmissionControl.ISSUER_RATE, rejection.reason);
+    assertEquals(1, rejection.retryAfter);
+
+    // Other issuers, and the same issuer for another API key, have buckets of their own. API keys and clients aren't
+    // limited at all.
+    assertNull(admission.takeIssuer("key", "https://other.example.edu"));
+    assertNull(admission.takeIssuer("other-key", "https://platform.example.edu"));
+    for (int i = 0; i < 10; i++) {
+      assertNull(admission.takeApiKey("key"));
+      assertNull(admission.takeClient("192.0.2.1"));
+    }
+  }
+
+  @Test
+  public void testClientBurstIsRateLimited() {
+    logger.info("=== Test requests beyond a client address's burst are answered with 429... ===");
+    AdmissionControl admission = new AdmissionControl(new AdmissionControl.Limits(0, 0, 0, 0, 1, 2, 0, 0));
+
+    assertNull(admission.takeClient("192.0.2.1"));
+    assertNull(admission.takeClient("192.0.2.1"));
+
+    AdmissionControl.Rejection rejection = admission.takeClient("192.0.2.1");
+    assertNotNull(rejection);
+    assertEquals(429, rejection.statusCode);
+    assertEquals(AdmissionControl.CLIENT_RATE, rejection.reason);
+
+    assertNull(admission.takeClient("192.0.2.2"));
+    assertNull(admission.takeClient(null));
+  }
+
+  @Test
+  public void testInFlightLimitCanBeChanged() {
+    logger.info("=== Test the in flight limit is enforced and can be changed at runtime... ===");
+    AdmissionControl admission = new AdmissionControl(new AdmissionControl.Limits(0, 0, 0, 0, 0, 0, 1, 0));
+
+    assertNull(admission.enter());
+    AdmissionControl.Rejection rejection = admission.enter();
+    assertNotNull(rejection);
+    assertEquals(503, rejection.statusCode);
+    assertEquals(AdmissionControl.TOO_MANY_IN_FLIGHT, rejection.reason);
+
+    admission.setLimits(admission.getLimits().with(new JsonObject().put("maxInFlight", 2)));
+    assertEquals(2, admission.getLimits().maxInFlight);
+    assertNull(admission.enter());
+    assertEquals(2, admission.getInFlight());
+
+    admission.exit();
+    admission.exit();
+    assertEquals(0, admission.getInFlight());
+  }
+}
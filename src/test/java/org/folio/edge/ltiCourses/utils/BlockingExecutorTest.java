@@ -0,0 +1,99 @@
+package org.folio.edge.ltiCourses.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+
+public class BlockingExecutorTest {
+  public static final Logger logger = Logger.getLogger(BlockingExecutorTest.class);
+
+  private Vertx vertx;
+
+  @Before
+  public void setUp() {
+    vertx = Vertx.vertx();
+  }
+
+  @After
+  public void tearDown() {
+    vertx.close();
+  }
+
+  private static <T> T await(Future<T> future) throws Exception {
+    return future.toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testTimeoutInterruptsCall() throws Exception {
+    logger.info("=== Test a call that takes too long fails and is interrupted... ===");
+    for (BlockingExecutor.Mode mode : BlockingExecutor.Mode.values()) {
+      BlockingExecutor executor = new BlockingExecutor(vertx, "test-" + mode, mode, 1, 100);
+      CountDownLatch interrupted = new CountDownLatch(1);
+
+      Future<String> call = executor.execute(() -> {
+        try {
+          Thread.sleep(10000);
+        } catch (InterruptedException e) {
+          interrupted.countDown();
+          throw e;
+        }
+        return "done";
+      });
+
+      try {
+        await(call);
+        fail("Expected the call to time out");
+      } catch (ExecutionException e) {
+        assertTrue(e.getCause() instanceof TimeoutException);
+      }
+      assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+      assertEquals(1, executor.getTimeouts());
+      executor.close();
+    }
+  }
+
+  @Test
+  public void testConcurrencyIsLimited() throws Exception {
+    logger.info("=== Test no more calls run at once than allowed... ===");
+    for (BlockingExecutor.Mode mode : BlockingExecutor.Mode.values()) {
+      BlockingExecutor executor = new BlockingExecutor(vertx, "test-" + mode, mode, 2, 5000);
+      AtomicInteger running = new AtomicInteger();
+      AtomicInteger mostRunning = new AtomicInteger();
+
+      List<Future<Integer>> calls = new ArrayList<>();
+      for (int i = 0; i < 10; i++) {
+        final int n = i;
+        calls.add(executor.execute(() -> {
+          mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+          Thread.sleep(20);
+          running.decrementAndGet();
+          return n;
+        }));
+      }
+
+      for (int i = 0; i < 10; i++) {
+        assertEquals(i, (int) await(calls.get(i)));
+      }
+      assertTrue(mostRunning.get() <= 2);
+      assertEquals(0, executor.getQueued());
+      assertEquals(0, executor.getActive());
+      executor.close();
+    }
+  }
+}
@@ -0,0 +1,135 @@
+package org.folio.edge.ltiCourses.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.box.sdk.BoxAPIException;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+
+public class BoxApiSchedulerTest {
+  public static final Logger logger = Logger.getLogger(BoxApiSchedulerTest.class);
+
+  private Vertx vertx;
+
+  @Before
+  public void setUp() {
+    vertx = Vertx.vertx();
+  }
+
+  @After
+  public void tearDown() {
+    vertx.close();
+  }
+
+  private static <T> T await(Future<T> future) throws Exception {
+    return future.toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testIdenticalCallsAreCoalesced() throws Exception {
+    logger.info("=== Test concurrent identical calls are only made once... ===");
+    BoxApiScheduler scheduler = new BoxApiScheduler(vertx, 10, 2, 100, 5000);
+    AtomicInteger calls = new AtomicInteger();
+    Promise<String> result = Promise.promise();
+
+    Future<String> first = scheduler.submit("info:1", "1", () -> {
+      calls.incrementAndGet();
+      return result.future();
+    });
+    Future<String> second = scheduler.submit("info:1", "1", () -> {
+      calls.incrementAndGet();
+      return result.future();
+    });
+
+    result.complete("info");
+    assertSame(first, second);
+    assertEquals("info", await(second));
+    assertEquals(1, calls.get());
+    assertEquals(1, scheduler.getCoalescedCalls());
+  }
+
+  @Test
+  public void testPerFileLimitQueuesCalls() throws Exception {
+    logger.info("=== Test calls beyond the per-file limit wait for capacity... ===");
+    BoxApiScheduler scheduler = new BoxApiScheduler(vertx, 10, 1, 100, 5000);
+    Promise<String> slow = Promise.promise();
+
+    scheduler.submit("info:1", "1", () -> slow.future());
+    Future<String> queued = scheduler.submit("download-url:1", "1", () -> Future.succeededFuture("url"));
+    Future<String> otherFile = scheduler.submit("info:2", "2", () -> Future.succeededFuture("other"));
+
+    assertEquals("other", await(otherFile));
+    assertEquals(1, scheduler.getQueueDepth());
+
+    slow.complete("info");
+    assertEquals("url", await(queued));
+    assertEquals(0, scheduler.getQueueDepth());
+  }
+
+  @Test
+  public void testRateLimitedCallsAreRetriedAfterRetryAfter() throws Exception {
+    logger.info("=== Test a 429 pauses calls and retries them... ===");
+    BoxApiScheduler scheduler = new BoxApiScheduler(vertx, 10, 2, 100, 5000);
+    Map<String, List<String>> headers = Collections.singletonMap("Retry-After", Collections.singletonList("1"));
+    AtomicInteger attempts = new AtomicInteger();
+
+    long start = System.currentTimeMillis();
+    Future<String> call = scheduler.submit("info:1", "1", () -> attempts.incrementAndGet() == 1
+      ? Future.failedFuture(new BoxAPIException("Too Many Requests", 429, "", headers))
+      : Future.succeededFuture("info"));
+
+    assertEquals("info", await(call));
+    assertEquals(2, attempts.get());
+    assertEquals(1, scheduler.getThrottleEvents());
+    assertTrue(System.currentTimeMillis() - start >= 1000);
+  }
+
+  @Test
+  public void testParseRetryAfter() {
+    logger.info("=== Test Retry-After is understood as seconds or as a date... ===");
+    Clock now = Clock.fixed(Instant.parse("2024-05-01T12:00:00Z"), ZoneOffset.UTC);
+
+    assertEquals(120000, BoxApiScheduler.parseRetryAfter(" 120 ", now));
+    assertEquals(30000, BoxApiScheduler.parseRetryAfter("Wed, 01 May 2024 12:00:30 GMT", now));
+    assertEquals(0, BoxApiScheduler.parseRetryAfter("Wed, 01 May 2024 11:59:00 GMT", now));
+    assertEquals(1000, BoxApiScheduler.parseRetryAfter("soon", now));
+    assertEquals(1000, BoxApiScheduler.parseRetryAfter(null, now));
+  }
+
+  @Test
+  public void testCallsFailWhenTheirDeadlinePasses() throws Exception {
+    logger.info("=== Test calls that wait too long fail as throttled... ===");
+    BoxApiScheduler scheduler = new BoxApiScheduler(vertx, 1, 1, 100, 200);
+
+    scheduler.submit("info:1", "1", () -> Promise.<String>promise().future());
+    Future<String> queued = scheduler.submit("info:2", "2", () -> Future.succeededFuture("info"));
+
+    try {
+      await(queued);
+      fail("Expected the queued call to time out");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof BoxApiScheduler.ThrottledException);
+    }
+    assertEquals(1, scheduler.getQueueTimeouts());
+  }
+}
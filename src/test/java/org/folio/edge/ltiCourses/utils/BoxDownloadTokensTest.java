@@ -0,0 +1,84 @@
+package org.folio.edge.ltiCourses.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import org.apache.log4j.Logger;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BoxDownloadTokensTest {
+  public static final Logger logger = Logger.getLogger(BoxDownloadTokensTest.class);
+
+  private static final long TTL = 600000;
+
+  private static final Clock windowStart = Clock.fixed(Instant.ofEpochMilli(100 * TTL), ZoneId.systemDefault());
+  private static final Clock windowEnd = Clock.fixed(Instant.ofEpochMilli(101 * TTL - 1), ZoneId.systemDefault());
+  private static final Clock nextWindow = Clock.fixed(Instant.ofEpochMilli(101 * TTL + 1), ZoneId.systemDefault());
+  private static final Clock muchLater = Clock.fixed(Instant.ofEpochMilli(103 * TTL), ZoneId.systemDefault());
+
+  private BoxDownloadTokens tokens;
+
+  @Before
+  public void setUp() {
+    tokens = BoxDownloadTokens.initialize(HmacSigner.withSecret("secret"), TTL);
+  }
+
+  @Test
+  public void testIssueAndVerify() {
+    logger.info("=== Test an issued token verifies to its file... ===");
+    String token = tokens.issue("12345", true, windowStart);
+
+    BoxDownloadTokens.Token verified = tokens.verify(token, windowEnd);
+    assertNotNull(verified);
+    assertEquals("12345", verified.fileId);
+    assertTrue(verified.redirect);
+
+    assertFalse(tokens.verify(tokens.issue("12345", false, windowStart), windowEnd).redirect);
+  }
+
+  @Test
+  public void testTokensAreDeterministicWithinAWindow() {
+    logger.info("=== Test renders within the same window get the same link... ===");
+    assertEquals(tokens.issue("12345", false, windowStart), tokens.issue("12345", false, windowEnd));
+    assertNotEquals(tokens.issue("12345", false, windowStart), tokens.issue("12345", false, nextWindow));
+  }
+
+  @Test
+  public void testTokenIsValidForAtLeastOneTtl() {
+    logger.info("=== Test a token issued at the end of a window survives into the next one... ===");
+    String token = tokens.issue("12345", false, windowEnd);
+
+    assertNotNull(tokens.verify(token, nextWindow));
+    assertNull(tokens.verify(token, muchLater));
+  }
+
+  @Test
+  public void testTamperedTokensAreRejected() {
+    logger.info("=== Test forged and malformed tokens are rejected... ===");
+    String token = tokens.issue("12345", false, windowStart);
+
+    assertNull(tokens.verify(token.replace("12345", "54321"), windowStart));
+    assertNull(tokens.verify(token.replace(".p.", ".r."), windowStart));
+    assertNull(tokens.verify("not-a-token", windowStart));
+    assertNull(tokens.verify(null, windowStart));
+
+    BoxDownloadTokens otherSecret = BoxDownloadTokens.initialize(HmacSigner.withSecret("other"), TTL);
+    assertNull(otherSecret.verify(token, windowStart));
+  }
+
+  @Test
+  public void testUnsafeFileIdsAreNotIssued() {
+    logger.info("=== Test file IDs that can't be put into a link get no token... ===");
+    assertNull(tokens.issue("123?shared=1", false, windowStart));
+    assertNull(tokens.issue("", false, windowStart));
+  }
+}
@@ -19,4 +19,14 @@ public class DateUtilsTest {
     logger.info("=== Test stripping of time from datetime strings... ===");
     assertEquals("2020-10-29", DateUtils.normalizeDate("2020-10-29T12:00:00.123Z"));
   }
+
+  @Test
+  public void testLenientDateTime() {
+    logger.info("=== Test datetime strings are parsed as leniently as before... ===");
+    assertEquals("2020-10-29", DateUtils.normalizeDate("2020-10-29T12:00:00.5Z"));
+    assertEquals("2020-10-29", DateUtils.normalizeDate("2020-10-29T12:00:00.123456Z"));
+    assertEquals("2020-10-29", DateUtils.normalizeDate("2020-10-29T12:00:00.123Z[UTC]"));
+    assertEquals("2020-11-01", DateUtils.normalizeDate("2020-10-32T12:00:00.123Z"));
+    assertEquals("", DateUtils.normalizeDate("2020-10-29T12:00"));
+  }
 }
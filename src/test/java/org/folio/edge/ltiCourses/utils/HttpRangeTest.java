@@ -0,0 +1,68 @@
+package org.folio.edge.ltiCourses.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+public class HttpRangeTest {
+  public static final Logger logger = Logger.getLogger(HttpRangeTest.class);
+
+  @Test
+  public void testClosedRange() {
+    logger.info("=== Test parsing of a range with a start and end... ===");
+    HttpRange range = HttpRange.parse("bytes=0-499", 1000);
+
+    assertEquals(0, range.start);
+    assertEquals(499, range.end);
+    assertEquals(500, range.length());
+    assertEquals("bytes 0-499/1000", range.asContentRange(1000));
+  }
+
+  @Test
+  public void testOpenEndedRange() {
+    logger.info("=== Test parsing of a range without an end... ===");
+    HttpRange range = HttpRange.parse("bytes=900-", 1000);
+
+    assertEquals(900, range.start);
+    assertEquals(999, range.end);
+  }
+
+  @Test
+  public void testSuffixRange() {
+    logger.info("=== Test parsing of a suffix range... ===");
+    HttpRange range = HttpRange.parse("bytes=-100", 1000);
+
+    assertEquals(900, range.start);
+    assertEquals(999, range.end);
+    assertEquals("bytes=900-999", range.asRangeHeader());
+  }
+
+  @Test
+  public void testRangeIsClampedToSize() {
+    logger.info("=== Test a range past the end of the file is clamped... ===");
+    HttpRange range = HttpRange.parse("bytes=500-5000", 1000);
+
+    assertEquals(500, range.start);
+    assertEquals(999, range.end);
+  }
+
+  @Test
+  public void testUnsatisfiableRange() {
+    logger.info("=== Test ranges starting past the end of the file are unsatisfiable... ===");
+    assertSame(HttpRange.UNSATISFIABLE, HttpRange.parse("bytes=1000-", 1000));
+    assertSame(HttpRange.UNSATISFIABLE, HttpRange.parse("bytes=-0", 1000));
+  }
+
+  @Test
+  public void testIgnoredRanges() {
+    logger.info("=== Test malformed and multi-part ranges are ignored... ===");
+    assertNull(HttpRange.parse(null, 1000));
+    assertNull(HttpRange.parse("items=0-10", 1000));
+    assertNull(HttpRange.parse("bytes=10-5", 1000));
+    assertNull(HttpRange.parse("bytes=abc-", 1000));
+    assertNull(HttpRange.parse("bytes=0-10,20-30", 1000));
+  }
+}
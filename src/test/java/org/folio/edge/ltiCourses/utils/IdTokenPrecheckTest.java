@@ -0,0 +1,83 @@
+package org.folio.edge.ltiCourses.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.Date;
+
+import org.apache.log4j.Logger;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTCreator;
+import com.auth0.jwt.algorithms.Algorithm;
+
+public class IdTokenPrecheckTest {
+  public static final Logger logger = Logger.getLogger(IdTokenPrecheckTest.class);
+
+  private static final Instant now = Instant.parse("2024-01-15T12:00:00Z");
+
+  private static Algorithm algorithm;
+
+  private final IdTokenPrecheck precheck = new IdTokenPrecheck(
+    4096,
+    Collections.singleton("https://platform.example.edu"),
+    Clock.fixed(now, ZoneOffset.UTC)
+  );
+
+  @BeforeClass
+  public static void setUpOnce() throws Exception {
+    KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA");
+    kpg.initialize(2048);
+    KeyPair keyPair = kpg.generateKeyPair();
+    algorithm = Algorithm.RSA256((RSAPublicKey) keyPair.getPublic(), (RSAPrivateKey) keyPair.getPrivate());
+  }
+
+  private static JWTCreator.Builder token() {
+    return JWT.create()
+      .withIssuer("https://platform.example.edu")
+      .withKeyId("kid")
+      .withExpiresAt(Date.from(now.plusSeconds(300)));
+  }
+
+  @Test
+  public void testPassesPlausibleToken() {
+    logger.info("=== Test a token that could verify passes... ===");
+
+    IdTokenPrecheck.Result result = precheck.check(token().sign(algorithm));
+    assertTrue(result.passed());
+    assertEquals("https://platform.example.edu", result.jwt.getIssuer());
+  }
+
+  @Test
+  public void testRejectsJunk() {
+    logger.info("=== Test tokens that can't verify are rejected with their reason... ===");
+
+    StringBuilder huge = new StringBuilder();
+    for (int i = 0; i < 5000; i++) {
+      huge.append('a');
+    }
+
+    assertEquals(IdTokenPrecheck.TOO_LARGE, precheck.check(huge.toString()).reason);
+    assertEquals(IdTokenPrecheck.MALFORMED, precheck.check("not.a.jwt").reason);
+    assertEquals(IdTokenPrecheck.UNSUPPORTED_ALGORITHM,
+      precheck.check(token().sign(Algorithm.HMAC256("secret"))).reason);
+    assertEquals(IdTokenPrecheck.MISSING_KEY_ID,
+      precheck.check(JWT.create().withIssuer("https://platform.example.edu").sign(algorithm)).reason);
+    assertEquals(IdTokenPrecheck.UNKNOWN_ISSUER,
+      precheck.check(token().withIssuer("https://elsewhere.example.edu").sign(algorithm)).reason);
+    assertEquals(IdTokenPrecheck.EXPIRED,
+      precheck.check(token().withExpiresAt(Date.from(now.minusSeconds(1))).sign(algorithm)).reason);
+    assertEquals(IdTokenPrecheck.NOT_YET_VALID,
+      precheck.check(token().withNotBefore(Date.from(now.plusSeconds(60))).sign(algorithm)).reason);
+  }
+}
@@ -0,0 +1,76 @@
+package org.folio.edge.ltiCourses.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.vertx.core.json.JsonObject;
+
+public class LaunchSessionsTest {
+  public static final Logger logger = Logger.getLogger(LaunchSessionsTest.class);
+
+  private static final long TTL = 1800000;
+
+  private static final Clock issued = Clock.fixed(Instant.ofEpochMilli(100 * TTL), ZoneId.systemDefault());
+  private static final Clock later = Clock.fixed(Instant.ofEpochMilli(101 * TTL - 1000), ZoneId.systemDefault());
+  private static final Clock expired = Clock.fixed(Instant.ofEpochMilli(101 * TTL + 1000), ZoneId.systemDefault());
+
+  private static final String ISSUER = "https://platform.example.edu";
+
+  private LaunchSessions sessions;
+
+  @Before
+  public void setUp() {
+    sessions = LaunchSessions.initialize(HmacSigner.withSecret("secret"), TTL);
+  }
+
+  @Test
+  public void testIssueAndVerify() {
+    logger.info("=== Test an issued session verifies to its tenant, issuer and course... ===");
+    String value = sessions.issue("diku", ISSUER, "course-id", issued);
+    LaunchSessions.Session session = sessions.verify(value, later);
+
+    assertNotNull(session);
+    assertEquals("diku", session.tenant);
+    assertEquals(ISSUER, session.issuer);
+    assertEquals("course-id", session.courseId);
+
+    // Only ids are carried, so the cookie stays small.
+    JsonObject payload = new JsonObject(new String(
+      Base64.getUrlDecoder().decode(value.substring(0, value.lastIndexOf("."))), StandardCharsets.UTF_8));
+    assertEquals(Set.of("tenant", "issuer", "courseId", "expires"), payload.fieldNames());
+  }
+
+  @Test
+  public void testIncompleteSessionIsRejected() {
+    logger.info("=== Test a signed session without its course doesn't verify... ===");
+    assertNull(sessions.verify(sessions.issue("diku", ISSUER, null, issued), later));
+  }
+
+  @Test
+  public void testForgedAndExpiredSessionsAreRejected() {
+    logger.info("=== Test forged, malformed and expired sessions don't verify... ===");
+    String value = sessions.issue("diku", ISSUER, "course-id", issued);
+    String payload = value.substring(0, value.lastIndexOf("."));
+    String signature = value.substring(value.lastIndexOf(".") + 1);
+
+    assertNull(sessions.verify(value, expired));
+    assertNull(sessions.verify(payload + "x." + signature, later));
+    assertNull(sessions.verify(payload, later));
+    assertNull(sessions.verify(null, later));
+
+    LaunchSessions other = LaunchSessions.initialize(HmacSigner.withSecret("other"), TTL);
+    assertNull(other.verify(value, later));
+  }
+}
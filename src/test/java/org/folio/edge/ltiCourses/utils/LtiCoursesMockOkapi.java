@@ -3,6 +3,7 @@ package org.folio.edge.ltiCourses.utils;
 import static org.folio.edge.core.Constants.APPLICATION_JSON;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
 import org.folio.edge.core.utils.test.MockOkapi;
@@ -23,14 +24,28 @@ public class LtiCoursesMockOkapi extends MockOkapi {
   public final String courseWithReserves = "COURSE101";
   public final String courseWithoutReserves = "COURSE201";
 
+  // How many times the platform's configuration was asked for.
+  public final AtomicInteger platformRequests = new AtomicInteger();
+
+  protected long latency = 0;
+
   public LtiCoursesMockOkapi(int port, List<String> knownTenants) {
     super(port, knownTenants);
   }
 
+  /**
+   * Delays every response by the given number of ms, to simulate an Okapi that isn't on localhost.
+   */
+  public void setLatency(long latency) {
+    this.latency = latency;
+  }
+
   @Override
   public Router defineRoutes() {
     Router router = super.defineRoutes();
 
+    router.route().order(-1).handler(this::delay);
+
     router.route(HttpMethod.GET, "/configurations/entries").handler(this::handleGetConfigurations);
     router.route(HttpMethod.GET, "/coursereserves/courses").handler(this::handleGetCourses);
     router.route(HttpMethod.GET, "/coursereserves/courselistings/:courseId/reserves").handler(this::handleGetCourseReserves);
@@ -38,11 +53,20 @@ public class LtiCoursesMockOkapi extends MockOkapi {
     return router;
   }
 
+  protected void delay(RoutingContext ctx) {
+    if (latency > 0) {
+      ctx.vertx().setTimer(latency, id -> ctx.next());
+    } else {
+      ctx.next();
+    }
+  }
+
   protected void handleGetConfigurations(RoutingContext ctx) {
     String query = ctx.request().getParam("query");
     Boolean isFetchingPlatform = query.contains("configName=platform");
 
     if (isFetchingPlatform) {
+      platformRequests.incrementAndGet();
       JsonObject config = new JsonObject().put("value", MockLtiPlatform.getInstance().asJsonObject().encode());
       JsonObject configs = new JsonObject().put("configs", new JsonArray().add(config));
 
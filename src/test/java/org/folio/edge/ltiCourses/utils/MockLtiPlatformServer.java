@@ -30,6 +30,7 @@ public class MockLtiPlatformServer {
 
   protected final Vertx vertx;
   protected KeyPair keyPair;
+  protected long latency = 0;
 
   private static final Logger logger = Logger.getLogger(MockLtiPlatformServer.class);
 
@@ -38,6 +39,13 @@ public class MockLtiPlatformServer {
     this.vertx = vertx;
   }
 
+  /**
+   * Delays every response by the given number of ms, to simulate a platform that isn't on localhost.
+   */
+  public void setLatency(long latency) {
+    this.latency = latency;
+  }
+
   public Future<Void> start() {
     HttpServer server = vertx.createHttpServer();
 
@@ -54,6 +62,7 @@ public class MockLtiPlatformServer {
   public Router defineRoutes() {
     Router router = Router.router(vertx);
 
+    router.route().handler(this::delay);
     router.route(HttpMethod.GET, "/jwks.json").handler(this::handleGetJWKS);
     router.route(HttpMethod.GET, "/styles.css").handler(this::respondOK);
     router.route(HttpMethod.GET, "/oidc").handler(this::respondOK);
@@ -63,6 +72,14 @@ public class MockLtiPlatformServer {
     return router;
   }
 
+  protected void delay(RoutingContext ctx) {
+    if (latency > 0) {
+      vertx.setTimer(latency, id -> ctx.next());
+    } else {
+      ctx.next();
+    }
+  }
+
   protected void handleGetJWKS(RoutingContext ctx) {
     RSAPublicKey key = (RSAPublicKey) keyPair.getPublic();
 
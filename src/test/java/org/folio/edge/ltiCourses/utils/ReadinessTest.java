@@ -0,0 +1,58 @@
+package org.folio.edge.ltiCourses.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Test;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+public class ReadinessTest {
+  public static final Logger logger = Logger.getLogger(ReadinessTest.class);
+
+  @After
+  public void tearDown() {
+    // A single success brings a dependency back up.
+    succeed(DependencyHealth.BOX);
+    succeed(DependencyHealth.OKAPI);
+  }
+
+  @Test
+  public void testBoxDownDoesNotGateTraffic() {
+    logger.info("=== Test Box being down is reported but leaves the node ready... ===");
+    fail(DependencyHealth.BOX);
+
+    JsonObject readiness = Readiness.asJsonObject();
+    assertTrue(Readiness.isReady());
+    assertTrue(readiness.getBoolean("ready"));
+    assertEquals(new JsonArray().add(DependencyHealth.BOX), readiness.getJsonArray("dependenciesDown"));
+  }
+
+  @Test
+  public void testOkapiDownGatesTraffic() {
+    logger.info("=== Test Okapi being down makes the node unready... ===");
+    fail(DependencyHealth.OKAPI);
+
+    assertFalse(Readiness.isReady());
+    assertFalse(Readiness.asJsonObject().getBoolean("ready"));
+
+    succeed(DependencyHealth.OKAPI);
+    assertTrue(Readiness.isReady());
+  }
+
+  private static void fail(String dependency) {
+    DependencyHealth health = DependencyHealth.of(dependency);
+    for (int i = 0; i < DependencyHealth.FAILURE_THRESHOLD; i++) {
+      health.end(null, health.begin(null), false);
+    }
+  }
+
+  private static void succeed(String dependency) {
+    DependencyHealth health = DependencyHealth.of(dependency);
+    health.end(null, health.begin(null), true);
+  }
+}
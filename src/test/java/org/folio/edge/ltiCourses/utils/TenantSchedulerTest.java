@@ -0,0 +1,89 @@
+package org.folio.edge.ltiCourses.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+
+public class TenantSchedulerTest {
+  public static final Logger logger = Logger.getLogger(TenantSchedulerTest.class);
+
+  private Vertx vertx;
+
+  @Before
+  public void setUp() {
+    vertx = Vertx.vertx();
+  }
+
+  @After
+  public void tearDown() {
+    vertx.close();
+  }
+
+  private static <T> T await(Future<T> future) throws Exception {
+    return future.toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testTenantsTakeTurnsByWeight() throws Exception {
+    logger.info("=== Test waiting tenants take turns in proportion to their weights... ===");
+    Map<String, Double> weights = new HashMap<>();
+    weights.put("big", 2.0);
+    TenantScheduler scheduler = new TenantScheduler(vertx, 1, 1, 5000, weights);
+
+    Runnable holding = await(scheduler.acquire("other"));
+
+    List<String> order = Collections.synchronizedList(new ArrayList<>());
+    List<Future<Runnable>> turns = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      for (String tenant : new String[] { "big", "small" }) {
+        turns.add(scheduler.acquire(tenant).onSuccess(release -> {
+          order.add(tenant);
+          release.run();
+        }));
+      }
+    }
+    assertEquals(12, scheduler.getQueueDepth());
+
+    holding.run();
+    for (Future<Runnable> turn : turns) {
+      await(turn);
+    }
+
+    assertEquals(4, Collections.frequency(order.subList(0, 6), "big"));
+    assertEquals(0, scheduler.getInFlight());
+  }
+
+  @Test
+  public void testPerTenantLimitTimesOut() throws Exception {
+    logger.info("=== Test calls beyond a tenant's limit wait, and time out... ===");
+    TenantScheduler scheduler = new TenantScheduler(vertx, 10, 1, 100, Collections.emptyMap());
+
+    await(scheduler.acquire("busy"));
+    Runnable other = await(scheduler.acquire("other"));
+    other.run();
+
+    try {
+      await(scheduler.acquire("busy"));
+      fail("Expected the call to time out waiting for its turn");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof TenantScheduler.QueueTimeoutException);
+    }
+    assertEquals(1, scheduler.getInFlight());
+  }
+}
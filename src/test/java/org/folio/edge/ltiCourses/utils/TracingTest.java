@@ -0,0 +1,97 @@
+package org.folio.edge.ltiCourses.utils;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+import io.vertx.core.json.JsonObject;
+
+public class TracingTest {
+  public static final Logger logger = Logger.getLogger(TracingTest.class);
+
+  private static final String traceId = "4bf92f3577b34da6a3ce929d0e0e4736";
+  private static final String parentId = "00f067aa0ba902b7";
+
+  @Test
+  public void testIncomingTraceIsContinued() {
+    logger.info("=== Test a valid traceparent continues the caller's trace... ===");
+    Tracing tracing = Tracing.initialize(1, null);
+
+    Span span = tracing.startTrace("launch", "00-" + traceId + "-" + parentId + "-00");
+    assertEquals(traceId, span.traceId);
+    assertEquals(parentId, span.parentSpanId);
+
+    Span child = span.child("jwt_verify");
+    assertEquals(traceId, child.traceId);
+    assertEquals(span.spanId, child.parentSpanId);
+    assertEquals("00-" + traceId + "-" + child.spanId + "-01", child.traceparent());
+  }
+
+  @Test
+  public void testCallersCantForceSampling() {
+    logger.info("=== Test a sampled traceparent doesn't override the sampling rate... ===");
+    Tracing tracing = Tracing.initialize(0, null);
+
+    assertNull(tracing.startTrace("launch", "00-" + traceId + "-" + parentId + "-01"));
+  }
+
+  @Test
+  public void testNewTracesAreSampledAtTheConfiguredRate() {
+    logger.info("=== Test new traces follow the sampling rate... ===");
+    assertNull(Tracing.initialize(0, null).startTrace("launch", "not-a-traceparent"));
+
+    Span sampled = Tracing.initialize(1, null).startTrace("launch", "not-a-traceparent");
+    assertNull(sampled.parentSpanId);
+    assertNotEquals(traceId, sampled.traceId);
+    assertTrue(sampled.traceId.matches("[0-9a-f]{32}"));
+    assertTrue(sampled.spanId.matches("[0-9a-f]{16}"));
+    assertTrue(sampled.traceparent().endsWith("-01"));
+  }
+
+  @Test
+  public void testReinitializingStopsExporter() {
+    logger.info("=== Test reinitializing tracing stops the previous instance's exporter... ===");
+    for (int i = 0; i < 5; i++) {
+      Tracing.initialize(1, null);
+    }
+
+    await().atMost(5, TimeUnit.SECONDS).until(() -> exporterThreads() == 1);
+  }
+
+  private static long exporterThreads() {
+    return Thread.getAllStackTraces().keySet().stream()
+      .filter(thread -> thread.isAlive() && "lti-courses-span-exporter".equals(thread.getName()))
+      .count();
+  }
+
+  @Test
+  public void testSampledSpansAreExportedToFile() throws Exception {
+    logger.info("=== Test sampled spans are written to the export file... ===");
+    Path exportFile = Files.createTempFile("spans", ".jsonl");
+    exportFile.toFile().deleteOnExit();
+
+    Tracing tracing = Tracing.initialize(1, exportFile);
+    Span span = tracing.startTrace("launch", null).setAttribute("tenant", "diku");
+    span.child("render").end("success");
+    span.end("ok");
+
+    await().atMost(5, TimeUnit.SECONDS).until(() -> Files.readAllLines(exportFile).size() == 2);
+
+    List<String> lines = Files.readAllLines(exportFile);
+    JsonObject root = new JsonObject(lines.get(1));
+    assertEquals("launch", root.getString("name"));
+    assertEquals("ok", root.getString("status"));
+    assertEquals("diku", root.getJsonObject("attributes").getString("tenant"));
+    assertEquals(root.getString("spanId"), new JsonObject(lines.get(0)).getString("parentSpanId"));
+  }
+}
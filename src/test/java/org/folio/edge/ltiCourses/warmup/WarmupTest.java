@@ -0,0 +1,77 @@
+package org.folio.edge.ltiCourses.warmup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.not;
+
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.folio.edge.ltiCourses.cache.OidcStateCache;
+import org.folio.edge.ltiCourses.utils.BlockingExecutor;
+import org.folio.edge.ltiCourses.utils.DependencyHealth;
+import org.folio.edge.ltiCourses.utils.HmacSigner;
+import org.folio.edge.ltiCourses.utils.LaunchSessions;
+import org.folio.edge.ltiCourses.utils.Metrics;
+import org.folio.edge.ltiCourses.utils.Readiness;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+
+public class WarmupTest {
+  public static final Logger logger = Logger.getLogger(WarmupTest.class);
+
+  private Vertx vertx;
+  private BlockingExecutor jwksExecutor;
+  private RSAPrivateKey privateKey;
+
+  @Before
+  public void setUp() throws Exception {
+    vertx = Vertx.vertx();
+    jwksExecutor = new BlockingExecutor(vertx, "jwks", BlockingExecutor.Mode.WORKER, 10, 5000);
+
+    KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA");
+    kpg.initialize(2048);
+    privateKey = (RSAPrivateKey) kpg.generateKeyPair().getPrivate();
+
+    OidcStateCache.initialize(10000, 10000, 10000);
+  }
+
+  @After
+  public void tearDown() {
+    jwksExecutor.close();
+    vertx.close();
+  }
+
+  private static <T> T await(Future<T> future) throws Exception {
+    return future.toCompletionStage().toCompletableFuture().get(60, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testWarmupLeavesNoState() throws Exception {
+    logger.info("=== Test the warm-up launches through the stubs and leaves nothing behind... ===");
+    final long okapiCalls = DependencyHealth.of(DependencyHealth.OKAPI).asJsonObject().getLong("calls");
+
+    Warmup warmup = new Warmup(vertx, privateKey, jwksExecutor, 5000, 65536,
+      LaunchSessions.initialize(HmacSigner.withRandomSecret(), 60000), 10, 30000);
+
+    Future<Void> done = warmup.start();
+    assertFalse(Readiness.isReady());
+    await(done);
+
+    assertEquals(10, warmup.getStarted());
+    assertEquals(0, warmup.getFailed());
+    assertTrue(Readiness.asJsonObject().getJsonArray("warmingUp").isEmpty());
+    assertEquals(0, (int) OidcStateCache.getInstance().getStats().getInteger("size"));
+    assertEquals(okapiCalls, (long) DependencyHealth.of(DependencyHealth.OKAPI).asJsonObject().getLong("calls"));
+    assertThat(Metrics.scrape(), not(containsString(Warmup.TENANT)));
+  }
+}